@@ -0,0 +1,29 @@
+package ru.hogwarts.school.configuration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Small fixed pool of workers generating avatar previews, so decoding of uploaded images
+ * doesn't hold request threads. The number of waiting tasks is limited by {@code AvatarPreviewService}.
+ */
+@Configuration
+public class AvatarPreviewConfig {
+    public static final String PREVIEW_EXECUTOR = "previewExecutor";
+
+    @Value("${avatars.preview.threads:2}")
+    private int threads;
+
+    @Bean(PREVIEW_EXECUTOR)
+    public ThreadPoolTaskExecutor previewExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix("avatar-preview-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+}
@@ -0,0 +1,119 @@
+package ru.hogwarts.school.configuration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+import ru.hogwarts.school.storage.AvatarStorage;
+import ru.hogwarts.school.storage.LocalAvatarStorage;
+import ru.hogwarts.school.storage.PackFileAvatarStorage;
+import ru.hogwarts.school.storage.S3AvatarStorage;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Chooses where avatars are kept with 'avatars.storage.type':
+ * 'local' - a file per avatar under 'students.avatars.dir.path', the default;
+ * 'pack' - one memory-mapped pack file under the same directory;
+ * 's3' - a bucket of S3 or of an S3-compatible store, so several instances of the application can share avatars.
+ */
+@Configuration
+public class AvatarStorageConfig {
+    @Value("${students.avatars.dir.path}")
+    private Path avatarsDir;
+
+    @Bean
+    @ConditionalOnProperty(name = "avatars.storage.type", havingValue = "local", matchIfMissing = true)
+    public AvatarStorage localAvatarStorage() {
+        return new LocalAvatarStorage(avatarsDir);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "avatars.storage.type", havingValue = "pack")
+    public AvatarStorage packFileAvatarStorage() throws IOException {
+        return new PackFileAvatarStorage(avatarsDir);
+    }
+
+    @Configuration
+    @ConditionalOnProperty(name = "avatars.storage.type", havingValue = "s3")
+    public static class S3StorageConfig {
+        @Value("${avatars.storage.s3.endpoint:}")
+        private String endpoint;
+
+        @Value("${avatars.storage.s3.region:us-east-1}")
+        private String region;
+
+        @Value("${avatars.storage.s3.access-key:}")
+        private String accessKey;
+
+        @Value("${avatars.storage.s3.secret-key:}")
+        private String secretKey;
+
+        @Value("${avatars.storage.s3.bucket}")
+        private String bucket;
+
+        @Value("${avatars.storage.s3.prefix:avatars/}")
+        private String prefix;
+
+        @Value("${avatars.storage.s3.part-size:8MB}")
+        private DataSize partSize;
+
+        @Value("${avatars.storage.s3.url-ttl:PT15M}")
+        private Duration urlTtl;
+
+        @Bean(destroyMethod = "close")
+        public S3Client s3Client() {
+            var builder = S3Client.builder()
+                    .region(Region.of(region))
+                    .credentialsProvider(credentials())
+                    .serviceConfiguration(s3Configuration());
+            if (!endpoint.isBlank()) {
+                builder.endpointOverride(URI.create(endpoint));
+            }
+            return builder.build();
+        }
+
+        @Bean(destroyMethod = "close")
+        public S3Presigner s3Presigner() {
+            var builder = S3Presigner.builder()
+                    .region(Region.of(region))
+                    .credentialsProvider(credentials())
+                    .serviceConfiguration(s3Configuration());
+            if (!endpoint.isBlank()) {
+                builder.endpointOverride(URI.create(endpoint));
+            }
+            return builder.build();
+        }
+
+        @Bean
+        public AvatarStorage s3AvatarStorage(S3Client s3Client, S3Presigner s3Presigner) {
+            return new S3AvatarStorage(s3Client, s3Presigner, bucket, prefix, (int) partSize.toBytes(), urlTtl);
+        }
+
+        /**
+         * Path-style addressing is needed by S3-compatible stores reached by a plain host name.
+         */
+        private S3Configuration s3Configuration() {
+            return S3Configuration.builder().pathStyleAccessEnabled(!endpoint.isBlank()).build();
+        }
+
+        private AwsCredentialsProvider credentials() {
+            if (accessKey.isBlank()) {
+                return DefaultCredentialsProvider.create();
+            }
+            return StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey));
+        }
+    }
+}
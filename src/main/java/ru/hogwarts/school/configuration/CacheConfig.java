@@ -0,0 +1,41 @@
+package ru.hogwarts.school.configuration;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Bounded in-process caches in front of student and faculty lookups.
+ * Size and time to live of every cache are set with Caffeine spec strings,
+ * statistics are always recorded, so hit, miss and eviction counters are available.
+ * Puts and evictions made inside a transaction are applied only after it commits.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    public static final String STUDENTS = "students";
+
+    public static final String FACULTIES = "faculties";
+
+    public static final String STUDENT_FACULTIES = "studentFaculties";
+
+    @Value("${cache.students.spec:maximumSize=10000,expireAfterWrite=5m}")
+    private String studentsSpec;
+
+    @Value("${cache.faculties.spec:maximumSize=1000,expireAfterWrite=1h}")
+    private String facultiesSpec;
+
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.registerCustomCache(STUDENTS, Caffeine.from(studentsSpec).recordStats().build());
+        cacheManager.registerCustomCache(STUDENT_FACULTIES, Caffeine.from(studentsSpec).recordStats().build());
+        cacheManager.registerCustomCache(FACULTIES, Caffeine.from(facultiesSpec).recordStats().build());
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
@@ -0,0 +1,35 @@
+package ru.hogwarts.school.configuration;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import ru.hogwarts.school.utility.ConsolePrinter;
+
+/**
+ * Small pool of workers printing names of students, shared by all requests instead of threads started per request.
+ */
+@Configuration
+public class ConsoleConfig {
+    public static final String CONSOLE_EXECUTOR = "consoleExecutor";
+
+    @Value("${console.threads:2}")
+    private int threads;
+
+    @Bean(CONSOLE_EXECUTOR)
+    public ThreadPoolTaskExecutor consoleExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix("console-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(5);
+        return executor;
+    }
+
+    @Bean
+    public ConsolePrinter consolePrinter(@Qualifier(CONSOLE_EXECUTOR) ThreadPoolTaskExecutor executor) {
+        return new ConsolePrinter(executor, System.out);
+    }
+}
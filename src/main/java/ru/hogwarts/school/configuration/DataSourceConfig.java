@@ -0,0 +1,93 @@
+package ru.hogwarts.school.configuration;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pool of connections sized by the formula of HikariCP, twice the cores of the database plus one, but never more
+ * than an instance's share of connections the database allows. The pool keeps the default size of HikariCP
+ * when the cores of the database are not set. The rest of the pool and driver settings are bound
+ * from 'spring.datasource.hikari', so an explicit 'maximum-pool-size' there overrides the derived one.
+ * Metrics of the pool, like time waiting for a connection, are exported by Spring Boot as 'hikaricp.connections'.
+ * <p>
+ * If 'datasource.replicas.urls' are set, every replica gets a pool of its own with the settings of the primary one,
+ * and read-only transactions are routed to them by {@link ReplicaRoutingDataSource}.
+ */
+@Configuration
+public class DataSourceConfig {
+    @Value("${datasource.pool.database-cores:0}")
+    private int databaseCores;
+
+    @Value("${datasource.pool.max-connections:100}")
+    private int maxConnections;
+
+    @Value("${datasource.pool.reserved-connections:10}")
+    private int reservedConnections;
+
+    @Value("${datasource.pool.instances:1}")
+    private int instances;
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        if (databaseCores > 0) {
+            dataSource.setMaximumPoolSize(getPoolSize(databaseCores, maxConnections - reservedConnections, instances));
+        }
+        return dataSource;
+    }
+
+    @Bean
+    @ConditionalOnProperty("datasource.replicas.urls")
+    public ReplicaRoutingDataSource replicaRoutingDataSource(
+            HikariDataSource dataSource,
+            ObjectProvider<MeterRegistry> meterRegistry,
+            @Value("${datasource.replicas.urls}") List<String> urls,
+            @Value("${datasource.replicas.max-lag:PT5S}") Duration maxLag,
+            @Value("${datasource.replicas.lag-query}") String lagQuery) {
+        List<DataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < urls.size(); i++) {
+            HikariConfig config = new HikariConfig();
+            dataSource.copyStateTo(config);
+            config.setJdbcUrl(urls.get(i).trim());
+            config.setPoolName(dataSource.getPoolName() + "-replica-" + i);
+            MeterRegistry registry = meterRegistry.getIfAvailable();
+            if (registry != null && config.getMetricRegistry() == null && config.getMetricsTrackerFactory() == null) {
+                config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+            }
+            replicas.add(new HikariDataSource(config));
+        }
+        return new ReplicaRoutingDataSource(dataSource, replicas, maxLag, lagQuery);
+    }
+
+    @Bean
+    @Primary
+    @ConditionalOnProperty("datasource.replicas.urls")
+    public DataSource routingDataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    /**
+     * Connections beyond twice the cores only wait for the CPU and disks of the database,
+     * while requests wait for a free connection in the pool instead.
+     */
+    static int getPoolSize(int cores, int availableConnections, int instances) {
+        return Math.max(1, Math.min(cores * 2 + 1, availableConnections / Math.max(1, instances)));
+    }
+}
@@ -0,0 +1,35 @@
+package ru.hogwarts.school.configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.annotation.AfterThrowing;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+import static ru.hogwarts.school.configuration.MetricsConfig.EXCEPTION_COUNTER;
+
+/**
+ * Counts domain exceptions leaving controllers, tagged with the exception and the controller method.
+ * Exceptions are counted once per request, however deep in services they were thrown.
+ */
+@Aspect
+@Component
+public class ExceptionMetricsAspect {
+    private final MeterRegistry registry;
+
+    public ExceptionMetricsAspect(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @AfterThrowing(pointcut = "within(ru.hogwarts.school.controller..*)", throwing = "e")
+    public void countException(JoinPoint joinPoint, RuntimeException e) {
+        if (!e.getClass().getPackageName().equals("ru.hogwarts.school.exception")) {
+            return;
+        }
+        registry.counter(EXCEPTION_COUNTER,
+                        "exception", e.getClass().getSimpleName(),
+                        "class", joinPoint.getSignature().getDeclaringTypeName(),
+                        "method", joinPoint.getSignature().getName())
+                .increment();
+    }
+}
@@ -0,0 +1,29 @@
+package ru.hogwarts.school.configuration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Workers deleting large faculties in background, one by default, so deletions don't compete
+ * with each other for locks on the table of students.
+ */
+@Configuration
+public class FacultyDeletionConfig {
+    public static final String DELETION_EXECUTOR = "facultyDeletionExecutor";
+
+    @Value("${faculties.delete.threads:1}")
+    private int threads;
+
+    @Bean(DELETION_EXECUTOR)
+    public ThreadPoolTaskExecutor facultyDeletionExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix("faculty-deletion-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+}
@@ -0,0 +1,58 @@
+package ru.hogwarts.school.configuration;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lets through at most 'eventsPerSecond' events of every logger at 'level' and below, the rest are dropped
+ * before a message is formatted. Warnings and errors are never limited. Counting is approximate,
+ * a few extra events may pass when a new second starts, which is fine for sampling repeated debug lines.
+ * <p>
+ * Turbo filters run before the level of a logger is checked, so events of disabled levels are left
+ * to be denied by the logger itself without touching counters.
+ */
+public class LogRateLimitFilter extends TurboFilter {
+    private final Map<Logger, Window> windows = new ConcurrentHashMap<>();
+
+    private Level level = Level.INFO;
+
+    private int eventsPerSecond = 100;
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        // 'format' is null when only a level is checked, like by isDebugEnabled()
+        if (format == null || level.isGreaterOrEqual(Level.WARN) || level.toInt() > this.level.toInt()
+                || !level.isGreaterOrEqual(logger.getEffectiveLevel())) {
+            return FilterReply.NEUTRAL;
+        }
+        Window window = windows.computeIfAbsent(logger, key -> new Window());
+        long second = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime());
+        if (window.second != second) {
+            window.second = second;
+            window.count.set(0);
+        }
+        return window.count.incrementAndGet() <= eventsPerSecond ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    public void setLevel(String level) {
+        this.level = Level.toLevel(level, Level.INFO);
+    }
+
+    public void setEventsPerSecond(int eventsPerSecond) {
+        this.eventsPerSecond = eventsPerSecond;
+    }
+
+    private static class Window {
+        private volatile long second;
+
+        private final AtomicInteger count = new AtomicInteger();
+    }
+}
@@ -0,0 +1,23 @@
+package ru.hogwarts.school.configuration;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Timers of service methods annotated with {@code @Timed(SERVICE_TIMER)}, tagged with class and method.
+ * Latencies of endpoints are recorded by Spring MVC itself as 'http.server.requests',
+ * percentile histograms of both are switched on in application properties for Prometheus.
+ */
+@Configuration
+public class MetricsConfig {
+    public static final String SERVICE_TIMER = "school.service";
+
+    public static final String EXCEPTION_COUNTER = "school.exceptions";
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+}
@@ -0,0 +1,107 @@
+package ru.hogwarts.school.configuration;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Keeps reads of a client on the primary database for 'datasource.replicas.stickiness' after it has written there,
+ * so it sees its own changes even if replicas haven't caught up. The deadline travels in the 'primary-until' cookie,
+ * which is set by {@link ReplicaRoutingDataSource} when a request opens a read-write transaction,
+ * so any instance of the application serving the next request keeps to it.
+ * Only the thread serving the request is tracked, work handed over to other threads is routed without it.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+    public static final String PRIMARY_UNTIL_COOKIE = "primary-until";
+
+    private final static ThreadLocal<Session> SESSIONS = new ThreadLocal<>();
+
+    private final Duration stickiness;
+
+    public ReadYourWritesFilter(@Value("${datasource.replicas.stickiness:PT10S}") Duration stickiness) {
+        this.stickiness = stickiness;
+    }
+
+    /**
+     * Whether reads of the current request have to go to the primary database.
+     */
+    public static boolean isPrimaryRequired() {
+        Session session = SESSIONS.get();
+        return session != null && session.primaryUntil > System.currentTimeMillis();
+    }
+
+    /**
+     * Sends the following reads of the current request and of the client to the primary database.
+     */
+    public static void markWritten() {
+        Session session = SESSIONS.get();
+        if (session == null || session.written) {
+            return;
+        }
+        session.written = true;
+        session.primaryUntil = System.currentTimeMillis() + session.stickiness.toMillis();
+        // set right away, the body may be written and the headers sent before the filter is left
+        Cookie cookie = new Cookie(PRIMARY_UNTIL_COOKIE, Long.toString(session.primaryUntil));
+        cookie.setPath("/");
+        cookie.setHttpOnly(true);
+        cookie.setMaxAge((int) Math.max(1, session.stickiness.toSeconds()));
+        session.response.addCookie(cookie);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        SESSIONS.set(new Session(response, stickiness, getPrimaryUntil(request)));
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            SESSIONS.remove();
+        }
+    }
+
+    private static long getPrimaryUntil(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return 0;
+        }
+        for (Cookie cookie : cookies) {
+            if (PRIMARY_UNTIL_COOKIE.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+
+    private static class Session {
+        private final HttpServletResponse response;
+
+        private final Duration stickiness;
+
+        private long primaryUntil;
+
+        private boolean written;
+
+        private Session(HttpServletResponse response, Duration stickiness, long primaryUntil) {
+            this.response = response;
+            this.stickiness = stickiness;
+            this.primaryUntil = primaryUntil;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package ru.hogwarts.school.configuration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Sends connections of read-only transactions to replicas in turn, everything else goes to the primary database.
+ * A replica is skipped while its lag, measured by 'lagQuery' every 'datasource.replicas.lag-check-interval',
+ * is above 'maxLag' or can't be measured, and reads fall back to the primary when no replica is left.
+ * Reads of a client which has just written are kept on the primary by {@link ReadYourWritesFilter},
+ * reads whose result outlives the request, like cached lookups, are kept there by {@link #readFromPrimary}.
+ * <p>
+ * Transactions decide whether they are read-only after taking a connection, so this data source has to be
+ * wrapped into a {@code LazyConnectionDataSourceProxy}, which takes the real one on the first statement.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+    private final static String PRIMARY = "primary";
+
+    private final static ThreadLocal<Boolean> PRIMARY_READS = new ThreadLocal<>();
+
+    private final List<Replica> replicas;
+
+    private final Duration maxLag;
+
+    private final String lagQuery;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, Duration maxLag, String lagQuery) {
+        this.replicas = IntStream.range(0, replicas.size())
+                .mapToObj(i -> new Replica("replica-" + i, replicas.get(i)))
+                .toList();
+        this.maxLag = maxLag;
+        this.lagQuery = lagQuery;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        this.replicas.forEach(replica -> targets.put(replica.key, replica.dataSource));
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+        checkLag();
+    }
+
+    /**
+     * Runs the read on the primary database without marking the client as written.
+     */
+    public static <T> T readFromPrimary(Supplier<T> read) {
+        if (PRIMARY_READS.get() != null) {
+            return read.get();
+        }
+        PRIMARY_READS.set(Boolean.TRUE);
+        try {
+            return read.get();
+        } finally {
+            PRIMARY_READS.remove();
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                ReadYourWritesFilter.markWritten();
+            }
+            return PRIMARY;
+        }
+        if (PRIMARY_READS.get() != null || ReadYourWritesFilter.isPrimaryRequired()) {
+            return PRIMARY;
+        }
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get(Math.floorMod(next.getAndIncrement(), replicas.size()));
+            if (replica.available) {
+                return replica.key;
+            }
+        }
+        return PRIMARY;
+    }
+
+    @Scheduled(initialDelayString = "${datasource.replicas.lag-check-interval:PT5S}",
+            fixedDelayString = "${datasource.replicas.lag-check-interval:PT5S}")
+    public void checkLag() {
+        for (Replica replica : replicas) {
+            boolean available;
+            try (Connection connection = replica.dataSource.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(lagQuery)) {
+                resultSet.next();
+                double lagSeconds = resultSet.getDouble(1);
+                available = lagSeconds * 1000 <= maxLag.toMillis();
+                if (!available) {
+                    logger.warn("Replica '{}' is {} s behind, reads go to the primary", replica.key, lagSeconds);
+                }
+            } catch (SQLException e) {
+                available = false;
+                logger.warn("Lag of replica '{}' couldn't be checked, reads go to the primary", replica.key, e);
+            }
+            replica.available = available;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof Closeable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private static class Replica {
+        private final String key;
+
+        private final DataSource dataSource;
+
+        private volatile boolean available;
+
+        private Replica(String key, DataSource dataSource) {
+            this.key = key;
+            this.dataSource = dataSource;
+        }
+    }
+}
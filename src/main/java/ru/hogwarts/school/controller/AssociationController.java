@@ -1,9 +1,6 @@
 package ru.hogwarts.school.controller;
 
-import org.springframework.web.bind.annotation.PathVariable;
-import org.springframework.web.bind.annotation.PutMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.*;
 import ru.hogwarts.school.model.Student;
 import ru.hogwarts.school.service.AssociationService;
 
@@ -25,9 +22,15 @@ public class AssociationController {
         return associationService.changeFacultyForStudent(studentId, facultyId);
     }
 
-    @PutMapping("/faculty/{facultyId}/change-students/{idList}")
+    @PutMapping("/faculty/{facultyId}/change-students")
     public Collection<Student> changeStudentsInFaculty(@PathVariable long facultyId,
-                                                       @PathVariable List<Long> idList) {
+                                                       @RequestBody List<Long> idList) {
+        return associationService.changeStudentsInFaculty(facultyId, idList);
+    }
+
+    @PutMapping("/faculty/{facultyId}/change-students/{idList}")
+    public Collection<Student> changeStudentsInFacultyByPath(@PathVariable long facultyId,
+                                                             @PathVariable List<Long> idList) {
         return associationService.changeStudentsInFaculty(facultyId, idList);
     }
 }
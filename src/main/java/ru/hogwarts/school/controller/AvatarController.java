@@ -1,63 +1,132 @@
 package ru.hogwarts.school.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.apache.commons.fileupload2.core.DiskFileItem;
+import org.apache.commons.fileupload2.core.DiskFileItemFactory;
+import org.apache.commons.fileupload2.core.FileItemInput;
+import org.apache.commons.fileupload2.core.FileItemInputIterator;
+import org.apache.commons.fileupload2.core.FileUploadException;
+import org.apache.commons.fileupload2.core.FileUploadSizeException;
+import org.apache.commons.fileupload2.jakarta.servlet6.JakartaServletFileUpload;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.multipart.support.MissingServletRequestPartException;
+import ru.hogwarts.school.dto.AvatarInfo;
+import ru.hogwarts.school.dto.AvatarPreview;
+import ru.hogwarts.school.exception.FileIsTooBigException;
+import ru.hogwarts.school.exception.MalformedUploadException;
+import ru.hogwarts.school.exception.PreviewNotAvailableException;
 import ru.hogwarts.school.model.Avatar;
+import ru.hogwarts.school.model.PreviewStatus;
 import ru.hogwarts.school.service.AvatarService;
+import ru.hogwarts.school.utility.FileSender;
 
-import java.io.*;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
 import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/avatars")
 public class AvatarController {
+    private final static String PREVIEW_RETRY_AFTER_SECONDS = "1";
+
+    private final static String AVATAR_PART = "avatar";
+
+    private final static long MAX_MULTIPART_OVERHEAD = 1024 * 16;
+
     private final AvatarService avatarService;
 
+    private final JakartaServletFileUpload<DiskFileItem, DiskFileItemFactory> multipartParser =
+            new JakartaServletFileUpload<>();
+
     public AvatarController(AvatarService avatarService) {
         this.avatarService = avatarService;
+        multipartParser.setMaxFileSize(AvatarService.MAX_AVATAR_SIZE);
+        multipartParser.setMaxSize(AvatarService.MAX_AVATAR_SIZE + MAX_MULTIPART_OVERHEAD);
     }
 
+    /**
+     * The multipart body is parsed as it arrives, the file is handed to the service as a stream
+     * without a temporary file, the service buffers it in memory up to {@link AvatarService#MAX_AVATAR_SIZE}.
+     * A body over the limits isn't read to its end, the connection is closed after the response instead.
+     */
     @PostMapping(value = "/{id}", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<String> uploadStudentAvatar(@PathVariable long id,
-                                                      @RequestParam MultipartFile avatar) throws IOException {
-        avatarService.uploadStudentAvatar(id, avatar);
-        return ResponseEntity.ok().build();
+                                                      HttpServletRequest request,
+                                                      HttpServletResponse response)
+            throws IOException, MissingServletRequestPartException {
+        try {
+            FileItemInputIterator parts = multipartParser.getItemIterator(request);
+            while (parts.hasNext()) {
+                FileItemInput part = parts.next();
+                if (!part.isFormField() && AVATAR_PART.equals(part.getFieldName())) {
+                    InputStream content = part.getInputStream();
+                    avatarService.uploadStudentAvatar(id, content, part.getContentType());
+                    // the part is read to its end already, so closing it doesn't skip anything
+                    content.close();
+                    return ResponseEntity.ok().build();
+                }
+            }
+        } catch (FileUploadSizeException | FileIsTooBigException e) {
+            response.setHeader(HttpHeaders.CONNECTION, "close");
+            throw new FileIsTooBigException();
+        } catch (FileUploadException e) {
+            throw new MalformedUploadException();
+        }
+        throw new MissingServletRequestPartException(AVATAR_PART);
     }
 
+    /**
+     * Without a width the smallest preview is returned, otherwise the preview of the closest width.
+     */
     @GetMapping("/{id}/preview")
-    public ResponseEntity<byte[]> getStudentAvatarPreview(@PathVariable long id) {
-        Avatar avatar = avatarService.findAvatarOrThrow(id);
+    public ResponseEntity<byte[]> getStudentAvatarPreview(@PathVariable long id,
+                                                          @RequestParam(required = false) Integer w) {
+        AvatarPreview preview = w == null ? avatarService.getPreview(id) : avatarService.getPreview(id, w);
+        if (preview.previewStatus() == PreviewStatus.PENDING) {
+            return ResponseEntity.accepted()
+                    .header(HttpHeaders.RETRY_AFTER, PREVIEW_RETRY_AFTER_SECONDS)
+                    .build();
+        }
+        if (preview.preview() == null) {
+            throw new PreviewNotAvailableException();
+        }
         HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.parseMediaType(avatar.getMediaType()));
-        headers.setContentLength(avatar.getPreview().length);
-        return ResponseEntity.ok().headers(headers).body(avatar.getPreview());
+        headers.setContentType(MediaType.parseMediaType(preview.mediaType()));
+        headers.setContentLength(preview.preview().length);
+        return ResponseEntity.ok().headers(headers).body(preview.preview());
+    }
+
+    @GetMapping("/previews")
+    public Collection<AvatarPreview> getStudentAvatarPreviews(@RequestParam List<Long> studentIds) {
+        return avatarService.getPreviews(studentIds);
     }
 
     @GetMapping("/{id}/real")
     public void getStudentAvatarInRealSize(@PathVariable long id,
+                                           HttpServletRequest request,
                                            HttpServletResponse response) throws IOException {
         Avatar avatar = avatarService.findAvatarOrThrow(id);
-        try (
-                InputStream is = Files.newInputStream(Path.of(avatar.getFilePath()));
-                BufferedInputStream bis = new BufferedInputStream(is, 1024);
-                BufferedOutputStream bos = new BufferedOutputStream(response.getOutputStream())
-        ) {
-            response.setContentType(avatar.getMediaType());
-            response.setContentLength(avatar.getFileSize().intValue());
-            response.setStatus(HttpServletResponse.SC_OK);
-            bis.transferTo(bos);
+        Optional<URI> downloadUrl = avatarService.getDownloadUrl(avatar);
+        if (downloadUrl.isPresent()) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noStore().getHeaderValue());
+            response.sendRedirect(downloadUrl.get().toString());
+            return;
         }
+        String etag = avatar.getBlobHash() == null ? null : "\"" + avatar.getBlobHash() + "\"";
+        FileSender.send(avatarService.getFileRegion(avatar), etag, avatar.getMediaType(), request, response);
     }
 
     @GetMapping
-    public Collection<Avatar> getAllAvatarsPerPage(@RequestParam int page,
-                                                   @RequestParam int limit) {
+    public Collection<AvatarInfo> getAllAvatarsPerPage(@RequestParam int page,
+                                                       @RequestParam int limit) {
         return avatarService.getAvatarsPerPage(page, limit);
     }
 }
@@ -0,0 +1,24 @@
+package ru.hogwarts.school.controller;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.hogwarts.school.dto.CacheStatistics;
+import ru.hogwarts.school.service.CacheService;
+
+import java.util.Collection;
+
+@RestController
+@RequestMapping("/caches")
+public class CacheController {
+    private final CacheService cacheService;
+
+    public CacheController(CacheService cacheService) {
+        this.cacheService = cacheService;
+    }
+
+    @GetMapping("/statistics")
+    public Collection<CacheStatistics> getStatistics() {
+        return cacheService.getStatistics();
+    }
+}
@@ -1,21 +1,59 @@
 package ru.hogwarts.school.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.hogwarts.school.dto.FacultyDeletion;
+import ru.hogwarts.school.dto.ImportReport;
+import ru.hogwarts.school.dto.StudentStatistics;
 import ru.hogwarts.school.model.Faculty;
 import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.service.AnalyticsService;
+import ru.hogwarts.school.service.FacultyDeletionService;
 import ru.hogwarts.school.service.FacultyService;
 import ru.hogwarts.school.service.FacultyServiceImpl;
+import ru.hogwarts.school.service.FacultyStatsService;
+import ru.hogwarts.school.service.ImportService;
+import ru.hogwarts.school.utility.ImportFormat;
 
+import java.io.InputStream;
+import java.net.URI;
 import java.util.Collection;
 
+import static ru.hogwarts.school.utility.ImportFormat.CSV_VALUE;
+import static ru.hogwarts.school.utility.ImportFormat.NDJSON_VALUE;
+import static ru.hogwarts.school.utility.JsonArrayStreamer.stream;
+
 @RestController
 @RequestMapping("/faculties")
 public class FacultyController {
     private final FacultyService facultyService;
 
-    public FacultyController(FacultyServiceImpl facultyService) {
+    private final AnalyticsService analyticsService;
+
+    private final FacultyStatsService facultyStatsService;
+
+    private final ImportService importService;
+
+    private final FacultyDeletionService facultyDeletionService;
+
+    private final ObjectMapper objectMapper;
+
+    public FacultyController(FacultyServiceImpl facultyService,
+                             AnalyticsService analyticsService,
+                             FacultyStatsService facultyStatsService,
+                             ImportService importService,
+                             FacultyDeletionService facultyDeletionService,
+                             ObjectMapper objectMapper) {
         this.facultyService = facultyService;
+        this.analyticsService = analyticsService;
+        this.facultyStatsService = facultyStatsService;
+        this.importService = importService;
+        this.facultyDeletionService = facultyDeletionService;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
@@ -23,6 +61,12 @@ public class FacultyController {
         return facultyService.createFaculty(faculty);
     }
 
+    @PostMapping(value = "/import", consumes = {CSV_VALUE, NDJSON_VALUE})
+    public ImportReport importFaculties(InputStream body,
+                                        @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType) {
+        return importService.importFaculties(body, ImportFormat.of(contentType));
+    }
+
     @GetMapping("/{id}")
     public Faculty getFaculty(@PathVariable long id) {
         return facultyService.getFaculty(id);
@@ -39,6 +83,18 @@ public class FacultyController {
         return ResponseEntity.ok().build();
     }
 
+    @DeleteMapping(value = "/{id}", params = "async=true")
+    public ResponseEntity<FacultyDeletion> deleteFacultyInBackground(@PathVariable long id) {
+        return ResponseEntity.accepted()
+                .location(URI.create("/faculties/" + id + "/deletion"))
+                .body(facultyDeletionService.startDeletion(id));
+    }
+
+    @GetMapping("/{id}/deletion")
+    public FacultyDeletion getFacultyDeletion(@PathVariable long id) {
+        return facultyDeletionService.getDeletion(id);
+    }
+
     @GetMapping("/search")
     public Collection<Faculty> getFacultiesOfColor(@RequestParam String color) {
         return facultyService.getFacultiesOfColor(color);
@@ -55,13 +111,31 @@ public class FacultyController {
         return facultyService.getStudents(id);
     }
 
+    @GetMapping("/{id}/stats")
+    public StudentStatistics getFacultyStatistics(@PathVariable long id) {
+        return facultyStatsService.getFacultyStatistics(id);
+    }
+
     @GetMapping
     public Collection<Faculty> getAll() {
         return facultyService.getAll();
     }
 
+    @GetMapping(params = "limit")
+    public Collection<Faculty> getPage(@RequestParam(defaultValue = "0") long after,
+                                       @RequestParam int limit) {
+        return facultyService.getPage(after, limit);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(stream(objectMapper, facultyService::forEachFaculty));
+    }
+
     @GetMapping("/longest-name")
     public String getLongestFacultyName() {
-        return facultyService.getLongestFacultyName();
+        return analyticsService.getLongestFacultyName();
     }
 }
@@ -1,21 +1,53 @@
 package ru.hogwarts.school.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.hogwarts.school.dto.ImportReport;
+import ru.hogwarts.school.dto.StudentStatistics;
 import ru.hogwarts.school.model.Faculty;
 import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.service.AnalyticsService;
+import ru.hogwarts.school.service.FacultyStatsService;
+import ru.hogwarts.school.service.ImportService;
 import ru.hogwarts.school.service.StudentService;
 import ru.hogwarts.school.service.StudentServiceImpl;
+import ru.hogwarts.school.utility.ImportFormat;
 
+import java.io.InputStream;
 import java.util.Collection;
+import java.util.List;
+
+import static ru.hogwarts.school.utility.ImportFormat.CSV_VALUE;
+import static ru.hogwarts.school.utility.ImportFormat.NDJSON_VALUE;
+import static ru.hogwarts.school.utility.JsonArrayStreamer.stream;
 
 @RestController
 @RequestMapping("/students")
 public class StudentController {
     private final StudentService studentService;
 
-    public StudentController(StudentServiceImpl studentService) {
+    private final AnalyticsService analyticsService;
+
+    private final FacultyStatsService facultyStatsService;
+
+    private final ImportService importService;
+
+    private final ObjectMapper objectMapper;
+
+    public StudentController(StudentServiceImpl studentService,
+                             AnalyticsService analyticsService,
+                             FacultyStatsService facultyStatsService,
+                             ImportService importService,
+                             ObjectMapper objectMapper) {
         this.studentService = studentService;
+        this.analyticsService = analyticsService;
+        this.facultyStatsService = facultyStatsService;
+        this.importService = importService;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping("/{facultyId}")
@@ -24,6 +56,13 @@ public class StudentController {
         return studentService.createStudent(student, facultyId);
     }
 
+    @PostMapping(value = "/import", consumes = {CSV_VALUE, NDJSON_VALUE})
+    public ImportReport importStudents(InputStream body,
+                                       @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                       @RequestParam(required = false) Long facultyId) {
+        return importService.importStudents(body, ImportFormat.of(contentType), facultyId);
+    }
+
     @GetMapping("/{id}")
     public Student getStudent(@PathVariable long id) {
         return studentService.getStudent(id);
@@ -40,6 +79,12 @@ public class StudentController {
         return ResponseEntity.ok().build();
     }
 
+    @DeleteMapping(params = "ids")
+    public ResponseEntity<Student> deleteStudents(@RequestParam List<Long> ids) {
+        studentService.deleteStudents(ids);
+        return ResponseEntity.ok().build();
+    }
+
     @GetMapping("/search")
     public Collection<Student> getStudentsOfAge(@RequestParam int age) {
         return studentService.getStudentsOfAge(age);
@@ -61,6 +106,19 @@ public class StudentController {
         return studentService.getAll();
     }
 
+    @GetMapping(params = "limit")
+    public Collection<Student> getPage(@RequestParam(defaultValue = "0") long after,
+                                       @RequestParam int limit) {
+        return studentService.getPage(after, limit);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(stream(objectMapper, studentService::forEachStudent));
+    }
+
     @GetMapping("/count")
     public long getNumberOfStudents() {
         return studentService.getNumberOfStudents();
@@ -71,6 +129,11 @@ public class StudentController {
         return studentService.getAverageAge();
     }
 
+    @GetMapping("/stats")
+    public StudentStatistics getStatistics() {
+        return facultyStatsService.getStatistics();
+    }
+
     @GetMapping("/last-five")
     public Collection<Student> getLastFiveStudents() {
         return studentService.getLastFiveStudents();
@@ -78,12 +141,17 @@ public class StudentController {
 
     @GetMapping("/starts-with-a")
     public Collection<String> getStudentNamesThatStartsWithA() {
-        return studentService.getStudentsNamesThatStartsWithA();
+        return analyticsService.getStudentNamesStartingWith("A");
+    }
+
+    @GetMapping("/starts-with")
+    public Collection<String> getStudentNamesStartingWith(@RequestParam String prefix) {
+        return analyticsService.getStudentNamesStartingWith(prefix);
     }
 
     @GetMapping("/average-age-v2")
     public double getAverageAge() {
-        return studentService.computeAverageAge();
+        return analyticsService.computeAverageAge();
     }
 
     @GetMapping("/print-names-in-console")
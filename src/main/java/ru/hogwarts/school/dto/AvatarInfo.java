@@ -0,0 +1,14 @@
+package ru.hogwarts.school.dto;
+
+import ru.hogwarts.school.model.PreviewStatus;
+
+public record AvatarInfo(long id,
+                         long studentId,
+                         long fileSize,
+                         String mediaType,
+                         PreviewStatus previewStatus,
+                         String previewUrl) {
+    public AvatarInfo(long id, long studentId, long fileSize, String mediaType, PreviewStatus previewStatus) {
+        this(id, studentId, fileSize, mediaType, previewStatus, "/avatars/" + studentId + "/preview");
+    }
+}
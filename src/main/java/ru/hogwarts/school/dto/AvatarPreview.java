@@ -0,0 +1,9 @@
+package ru.hogwarts.school.dto;
+
+import ru.hogwarts.school.model.PreviewStatus;
+
+public record AvatarPreview(long studentId,
+                            String mediaType,
+                            PreviewStatus previewStatus,
+                            byte[] preview) {
+}
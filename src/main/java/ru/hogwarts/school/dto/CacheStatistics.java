@@ -0,0 +1,9 @@
+package ru.hogwarts.school.dto;
+
+public record CacheStatistics(String name,
+                              long size,
+                              long hitCount,
+                              long missCount,
+                              double hitRate,
+                              long evictionCount) {
+}
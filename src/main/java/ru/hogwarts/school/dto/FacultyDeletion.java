@@ -0,0 +1,21 @@
+package ru.hogwarts.school.dto;
+
+/**
+ * Progress of a faculty deleted in background, students are moved to the heir faculty by chunks,
+ * 'students' is their number when the deletion has started. Heir faculty 0 means no faculty.
+ */
+public record FacultyDeletion(long facultyId,
+                              long heirFacultyId,
+                              Status status,
+                              long students,
+                              long movedStudents) {
+    public enum Status {
+        RUNNING,
+        DONE,
+        FAILED
+    }
+
+    public FacultyDeletion withProgress(Status status, long movedStudents) {
+        return new FacultyDeletion(facultyId, heirFacultyId, status, students, movedStudents);
+    }
+}
@@ -0,0 +1,5 @@
+package ru.hogwarts.school.dto;
+
+public record ImportError(long line,
+                          String message) {
+}
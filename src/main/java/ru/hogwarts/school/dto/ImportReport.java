@@ -0,0 +1,8 @@
+package ru.hogwarts.school.dto;
+
+import java.util.List;
+
+public record ImportReport(long imported,
+                           long failed,
+                           List<ImportError> errors) {
+}
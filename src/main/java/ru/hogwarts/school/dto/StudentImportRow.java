@@ -0,0 +1,6 @@
+package ru.hogwarts.school.dto;
+
+public record StudentImportRow(String name,
+                               Integer age,
+                               Long facultyId) {
+}
@@ -0,0 +1,11 @@
+package ru.hogwarts.school.dto;
+
+import java.util.Map;
+
+public record StudentStatistics(long studentCount,
+                                long ageSum,
+                                double averageAge,
+                                Integer minAge,
+                                Integer maxAge,
+                                Map<Integer, Long> ageHistogram) {
+}
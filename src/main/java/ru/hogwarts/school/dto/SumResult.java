@@ -0,0 +1,10 @@
+package ru.hogwarts.school.dto;
+
+import ru.hogwarts.school.utility.SumStrategy;
+
+public record SumResult(long n,
+                        SumStrategy strategy,
+                        int parallelism,
+                        long sum,
+                        long elapsedMicros) {
+}
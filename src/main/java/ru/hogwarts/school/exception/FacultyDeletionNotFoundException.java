@@ -0,0 +1,9 @@
+package ru.hogwarts.school.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.NOT_FOUND,
+                reason = "This faculty hasn't been deleted in background")
+public class FacultyDeletionNotFoundException extends RuntimeException {
+}
@@ -0,0 +1,11 @@
+package ru.hogwarts.school.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.BAD_REQUEST,
+                reason = "Requirements for compute params: " +
+                "1. 'n' should be in range of 1 to 'compute.max-n', " +
+                "2. 'parallelism' should be in range of 1 to 'compute.max-parallelism'")
+public class InvalidComputeParamsException extends RuntimeException {
+}
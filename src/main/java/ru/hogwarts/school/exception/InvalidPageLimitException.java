@@ -0,0 +1,9 @@
+package ru.hogwarts.school.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.BAD_REQUEST,
+                reason = "'limit' should be in range of 1 to 1000")
+public class InvalidPageLimitException extends RuntimeException {
+}
@@ -0,0 +1,9 @@
+package ru.hogwarts.school.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.BAD_REQUEST,
+                reason = "Upload is not a valid multipart request")
+public class MalformedUploadException extends RuntimeException {
+}
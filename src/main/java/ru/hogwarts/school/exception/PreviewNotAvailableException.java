@@ -0,0 +1,9 @@
+package ru.hogwarts.school.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.NOT_FOUND,
+                reason = "Preview couldn't be generated for this avatar")
+public class PreviewNotAvailableException extends RuntimeException {
+}
@@ -0,0 +1,9 @@
+package ru.hogwarts.school.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.TOO_MANY_REQUESTS,
+                reason = "Too many avatars are being processed, try again later")
+public class PreviewQueueIsFullException extends RuntimeException {
+}
@@ -0,0 +1,9 @@
+package ru.hogwarts.school.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.UNSUPPORTED_MEDIA_TYPE,
+                reason = "Import accepts 'text/csv' with a header line or 'application/x-ndjson'")
+public class UnsupportedImportFormatException extends RuntimeException {
+}
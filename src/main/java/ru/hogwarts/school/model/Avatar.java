@@ -2,6 +2,7 @@ package ru.hogwarts.school.model;
 
 import jakarta.persistence.*;
 
+import java.time.Instant;
 import java.util.Objects;
 
 @Entity(name = "avatars")
@@ -11,15 +12,25 @@ public class Avatar {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @Column(length = 64)
+    private String blobHash;
+
     private String filePath;
 
     private long fileSize;
 
     private String mediaType;
 
+    @Basic(fetch = FetchType.LAZY)
+    @Column(length = 1024 * 1024)
     private byte[] preview;
 
-    @OneToOne
+    @Enumerated(EnumType.STRING)
+    private PreviewStatus previewStatus;
+
+    private Instant previewRequestedAt;
+
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "student_id")
     private Student student;
 
@@ -34,6 +45,14 @@ public class Avatar {
         this.id = id;
     }
 
+    public String getBlobHash() {
+        return blobHash;
+    }
+
+    public void setBlobHash(String blobHash) {
+        this.blobHash = blobHash;
+    }
+
     public String getFilePath() {
         return filePath;
     }
@@ -66,6 +85,22 @@ public class Avatar {
         this.preview = preview;
     }
 
+    public PreviewStatus getPreviewStatus() {
+        return previewStatus;
+    }
+
+    public void setPreviewStatus(PreviewStatus previewStatus) {
+        this.previewStatus = previewStatus;
+    }
+
+    public Instant getPreviewRequestedAt() {
+        return previewRequestedAt;
+    }
+
+    public void setPreviewRequestedAt(Instant previewRequestedAt) {
+        this.previewRequestedAt = previewRequestedAt;
+    }
+
     public Student getStudent() {
         return student;
     }
@@ -0,0 +1,70 @@
+package ru.hogwarts.school.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Content of an avatar stored once under the SHA-256 of its bytes.
+ * Reference count is the number of avatars pointing to the content,
+ * a blob which has had no references for the grace period is removed by the garbage collector.
+ */
+@Entity(name = "avatar_blobs")
+public class AvatarBlob {
+    @Id
+    @Column(length = 64)
+    private String hash;
+
+    private long size;
+
+    private long refCount;
+
+    private Instant unreferencedAt;
+
+    public AvatarBlob(String hash, long size, long refCount) {
+        this.hash = hash;
+        this.size = size;
+        this.refCount = refCount;
+    }
+
+    public AvatarBlob() {
+
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getRefCount() {
+        return refCount;
+    }
+
+    public Instant getUnreferencedAt() {
+        return unreferencedAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        AvatarBlob that = (AvatarBlob) o;
+        return Objects.equals(hash, that.hash);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(hash);
+    }
+
+    @Override
+    public String toString() {
+        return "AvatarBlob: " + "hash = " + hash + ", size = " + size + ", refCount = " + refCount;
+    }
+}
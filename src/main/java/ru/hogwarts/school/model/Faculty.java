@@ -10,7 +10,8 @@ import java.util.Set;
 @Entity(name = "faculties")
 public class Faculty {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "faculties_seq")
+    @SequenceGenerator(name = "faculties_seq", allocationSize = 50)
     private long id;
 
     @Column(unique = true)
@@ -0,0 +1,101 @@
+package ru.hogwarts.school.model;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * One bucket of the age histogram of a faculty: number of students of given age.
+ * Count, age sum, min and max age of a faculty are derived from its buckets,
+ * students without faculty are kept under {@link #NO_FACULTY}.
+ */
+@Entity(name = "faculty_stats")
+@IdClass(FacultyStats.Key.class)
+public class FacultyStats {
+    public static final long NO_FACULTY = 0;
+
+    @Id
+    private long facultyId;
+
+    @Id
+    private int age;
+
+    private long studentCount;
+
+    public FacultyStats(long facultyId, int age, long studentCount) {
+        this.facultyId = facultyId;
+        this.age = age;
+        this.studentCount = studentCount;
+    }
+
+    public FacultyStats() {
+
+    }
+
+    public long getFacultyId() {
+        return facultyId;
+    }
+
+    public int getAge() {
+        return age;
+    }
+
+    public long getStudentCount() {
+        return studentCount;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        FacultyStats that = (FacultyStats) o;
+        return facultyId == that.facultyId && age == that.age;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(facultyId, age);
+    }
+
+    @Override
+    public String toString() {
+        return "FacultyStats: " + "facultyId = " + facultyId + ", age = " + age + ", studentCount = " + studentCount;
+    }
+
+    public static class Key implements Serializable {
+        private long facultyId;
+
+        private int age;
+
+        public Key(long facultyId, int age) {
+            this.facultyId = facultyId;
+            this.age = age;
+        }
+
+        public Key() {
+
+        }
+
+        public long getFacultyId() {
+            return facultyId;
+        }
+
+        public int getAge() {
+            return age;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return facultyId == key.facultyId && age == key.age;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(facultyId, age);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package ru.hogwarts.school.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.util.Objects;
+
+/**
+ * One size of the preview of an avatar. Rows are removed by the database together with their avatar.
+ */
+@Entity(name = "avatar_previews")
+public class PreviewImage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "avatar_id")
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Avatar avatar;
+
+    private int width;
+
+    @Column(length = 1024 * 1024)
+    private byte[] data;
+
+    public PreviewImage() {
+    }
+
+    public PreviewImage(Avatar avatar, int width, byte[] data) {
+        this.avatar = avatar;
+        this.width = width;
+        this.data = data;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Avatar getAvatar() {
+        return avatar;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PreviewImage that = (PreviewImage) o;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+}
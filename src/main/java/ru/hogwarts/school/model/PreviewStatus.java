@@ -0,0 +1,10 @@
+package ru.hogwarts.school.model;
+
+/**
+ * State of preview of an avatar, previews are generated in background after the avatar is uploaded.
+ */
+public enum PreviewStatus {
+    PENDING,
+    READY,
+    FAILED
+}
@@ -7,7 +7,8 @@ import java.util.Objects;
 @Entity(name = "students")
 public class Student {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "students_seq")
+    @SequenceGenerator(name = "students_seq", allocationSize = 50)
     private long id;
 
     @Column(unique = true)
@@ -15,7 +16,7 @@ public class Student {
 
     private int age;
 
-    @ManyToOne(cascade = CascadeType.ALL)
+    @ManyToOne
     @JoinColumn(name = "faculty_id")
     private Faculty faculty;
 
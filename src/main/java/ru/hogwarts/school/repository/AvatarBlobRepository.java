@@ -0,0 +1,35 @@
+package ru.hogwarts.school.repository;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import ru.hogwarts.school.model.AvatarBlob;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface AvatarBlobRepository extends JpaRepository<AvatarBlob, String>, AvatarBlobRepositoryCustom {
+    @Modifying
+    @Query("UPDATE avatar_blobs b SET b.refCount = b.refCount - 1, " +
+            "b.unreferencedAt = CASE WHEN b.refCount = 1 THEN :now ELSE b.unreferencedAt END " +
+            "WHERE b.hash = :hash AND b.refCount > 0")
+    int removeReference(String hash, Instant now);
+
+    @Modifying
+    @Query("UPDATE avatar_blobs b SET b.refCount = b.refCount - :count, " +
+            "b.unreferencedAt = CASE WHEN b.refCount = :count THEN :now ELSE b.unreferencedAt END " +
+            "WHERE b.hash IN :hashes AND b.refCount >= :count")
+    int removeReferences(Collection<String> hashes, long count, Instant now);
+
+    @Query("SELECT b.hash FROM avatar_blobs b WHERE b.refCount = 0 AND b.unreferencedAt < :before")
+    List<String> findUnreferencedHashes(Instant before, Pageable pageable);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM avatar_blobs b WHERE b.hash = :hash AND b.refCount = 0")
+    Optional<AvatarBlob> lockUnreferenced(String hash);
+}
@@ -0,0 +1,8 @@
+package ru.hogwarts.school.repository;
+
+public interface AvatarBlobRepositoryCustom {
+    /**
+     * Adds a reference to the blob, creating it if needed, without failing when a concurrent upload creates it too.
+     */
+    void addReferenceOrInsert(String hash, long size);
+}
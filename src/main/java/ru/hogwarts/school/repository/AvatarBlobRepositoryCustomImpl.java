@@ -0,0 +1,45 @@
+package ru.hogwarts.school.repository;
+
+import jakarta.persistence.EntityManager;
+
+public class AvatarBlobRepositoryCustomImpl implements AvatarBlobRepositoryCustom {
+    private final static String UPSERT = "INSERT INTO avatar_blobs (hash, size, ref_count) VALUES (:hash, :size, 1) " +
+            "ON CONFLICT (hash) DO UPDATE SET ref_count = avatar_blobs.ref_count + 1, unreferenced_at = NULL";
+
+    private final static String INSERT_IF_ABSENT = "INSERT INTO avatar_blobs (hash, size, ref_count) " +
+            "VALUES (:hash, :size, 1) ON CONFLICT DO NOTHING";
+
+    private final static String ADD_REFERENCE = "UPDATE avatar_blobs SET ref_count = ref_count + 1, " +
+            "unreferenced_at = NULL WHERE hash = :hash";
+
+    private final EntityManager entityManager;
+
+    private final boolean postgres;
+
+    public AvatarBlobRepositoryCustomImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+        this.postgres = Dialects.isPostgres(entityManager);
+    }
+
+    @Override
+    public void addReferenceOrInsert(String hash, long size) {
+        if (postgres) {
+            entityManager.createNativeQuery(UPSERT)
+                    .setParameter("hash", hash)
+                    .setParameter("size", size)
+                    .executeUpdate();
+            return;
+        }
+        // same steps as for buckets of faculty statistics, see FacultyStatsRepositoryCustomImpl
+        if (addReference(hash) == 0 && entityManager.createNativeQuery(INSERT_IF_ABSENT)
+                .setParameter("hash", hash)
+                .setParameter("size", size)
+                .executeUpdate() == 0) {
+            addReference(hash);
+        }
+    }
+
+    private int addReference(String hash) {
+        return entityManager.createNativeQuery(ADD_REFERENCE).setParameter("hash", hash).executeUpdate();
+    }
+}
@@ -1,10 +1,74 @@
 package ru.hogwarts.school.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+import ru.hogwarts.school.dto.AvatarInfo;
+import ru.hogwarts.school.dto.AvatarPreview;
 import ru.hogwarts.school.model.Avatar;
+import ru.hogwarts.school.model.PreviewStatus;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface AvatarRepository extends JpaRepository<Avatar, Long> {
     Optional<Avatar> findByStudentId(long studentId);
+
+    @Query("SELECT new ru.hogwarts.school.dto.AvatarInfo(a.id, a.student.id, a.fileSize, a.mediaType, a.previewStatus) " +
+            "FROM avatars a ORDER BY a.id")
+    List<AvatarInfo> findAllInfo(Pageable pageable);
+
+    @Query("SELECT new ru.hogwarts.school.dto.AvatarPreview(a.student.id, a.mediaType, a.previewStatus, a.preview) " +
+            "FROM avatars a WHERE a.student.id = :studentId")
+    Optional<AvatarPreview> findPreviewByStudentId(long studentId);
+
+    /**
+     * Returns the preview of the width closest to the given one, the larger of two equally close previews.
+     */
+    @Query("SELECT new ru.hogwarts.school.dto.AvatarPreview(a.student.id, a.mediaType, a.previewStatus, p.data) " +
+            "FROM avatars a LEFT JOIN avatar_previews p ON p.avatar = a WHERE a.student.id = :studentId " +
+            "ORDER BY ABS(p.width - :width), p.width DESC LIMIT 1")
+    Optional<AvatarPreview> findPreviewByStudentIdClosestTo(long studentId, int width);
+
+    @Query("SELECT new ru.hogwarts.school.dto.AvatarPreview(a.student.id, a.mediaType, a.previewStatus, a.preview) " +
+            "FROM avatars a WHERE a.student.id IN :studentIds ORDER BY a.student.id")
+    List<AvatarPreview> findPreviewsByStudentIdIn(Collection<Long> studentIds);
+
+    @Query("SELECT a.blobHash FROM avatars a WHERE a.student.id IN :studentIds AND a.blobHash IS NOT NULL")
+    List<String> findBlobHashesByStudentIdIn(Collection<Long> studentIds);
+
+    /**
+     * Previews of deleted avatars are removed by the database.
+     */
+    @Modifying
+    @Query("DELETE FROM avatars a WHERE a.student.id IN :studentIds")
+    int deleteByStudentIdIn(Collection<Long> studentIds);
+
+    /**
+     * Changes nothing if the avatar has been replaced by one of other content.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE avatars a SET a.preview = :preview, a.previewStatus = :status " +
+            "WHERE a.student.id = :studentId AND a.blobHash = :blobHash")
+    int updatePreview(long studentId, String blobHash, byte[] preview, PreviewStatus status);
+
+    @Query("SELECT a FROM avatars a JOIN FETCH a.student " +
+            "WHERE a.previewStatus = ru.hogwarts.school.model.PreviewStatus.PENDING AND a.blobHash IS NOT NULL " +
+            "AND (a.previewRequestedAt IS NULL OR a.previewRequestedAt < :before) ORDER BY a.id")
+    List<Avatar> findPendingPreviewsRequestedBefore(Instant before, Pageable pageable);
+
+    /**
+     * Changes nothing if the preview has been generated, or claimed by another instance, meanwhile.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE avatars a SET a.previewRequestedAt = :now WHERE a.id = :id AND a.blobHash = :blobHash " +
+            "AND a.previewStatus = ru.hogwarts.school.model.PreviewStatus.PENDING " +
+            "AND (a.previewRequestedAt IS NULL OR a.previewRequestedAt < :before)")
+    int claimPendingPreview(long id, String blobHash, Instant before, Instant now);
 }
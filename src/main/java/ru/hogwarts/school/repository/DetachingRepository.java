@@ -0,0 +1,11 @@
+package ru.hogwarts.school.repository;
+
+/**
+ * Lets services evict entities from the persistence context while streaming,
+ * so memory doesn't grow with the number of rows read.
+ */
+public interface DetachingRepository<T> {
+    void detach(T entity);
+
+    void clear();
+}
@@ -0,0 +1,21 @@
+package ru.hogwarts.school.repository;
+
+import jakarta.persistence.EntityManager;
+
+public class DetachingRepositoryImpl<T> implements DetachingRepository<T> {
+    private final EntityManager entityManager;
+
+    public DetachingRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public void detach(T entity) {
+        entityManager.detach(entity);
+    }
+
+    @Override
+    public void clear() {
+        entityManager.clear();
+    }
+}
@@ -1,12 +1,30 @@
 package ru.hogwarts.school.repository;
 
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import ru.hogwarts.school.model.Faculty;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface FacultyRepository extends JpaRepository<Faculty, Long> {
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
+public interface FacultyRepository extends JpaRepository<Faculty, Long>, DetachingRepository<Faculty> {
     List<Faculty> findByColorIgnoreCase(String color);
 
     List<Faculty> findByColorIgnoreCaseOrNameIgnoreCase(String Color, String name);
+
+    @Query(value = "SELECT name FROM faculties ORDER BY LENGTH(name) DESC, id LIMIT 1", nativeQuery = true)
+    Optional<String> findLongestName();
+
+    List<Faculty> findByIdGreaterThanOrderById(long id, Pageable pageable);
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("SELECT f FROM faculties f ORDER BY f.id")
+    Stream<Faculty> streamAll();
 }
@@ -0,0 +1,49 @@
+package ru.hogwarts.school.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import ru.hogwarts.school.model.FacultyStats;
+
+import java.util.List;
+
+public interface FacultyStatsRepository extends JpaRepository<FacultyStats, FacultyStats.Key>,
+        FacultyStatsRepositoryCustom {
+    List<FacultyStats> findByFacultyId(long facultyId);
+
+    @Query("SELECT new ru.hogwarts.school.model.FacultyStats(0L, s.age, SUM(s.studentCount)) " +
+            "FROM faculty_stats s GROUP BY s.age")
+    List<FacultyStats> sumByAge();
+
+    @Modifying
+    @Query("UPDATE faculty_stats s SET s.studentCount = s.studentCount + :delta " +
+            "WHERE s.facultyId = :facultyId AND s.age = :age")
+    int addToCount(long facultyId, int age, long delta);
+
+    @Modifying
+    @Query(value = "UPDATE faculty_stats SET student_count = student_count + " +
+            "(SELECT s.student_count FROM faculty_stats s WHERE s.faculty_id = :fromId AND s.age = faculty_stats.age) " +
+            "WHERE faculty_id = :toId AND age IN (SELECT age FROM faculty_stats WHERE faculty_id = :fromId)",
+            nativeQuery = true)
+    int mergeCounts(long fromId, long toId);
+
+    @Modifying
+    @Query(value = "UPDATE faculty_stats SET faculty_id = :toId " +
+            "WHERE faculty_id = :fromId AND age NOT IN (SELECT age FROM faculty_stats WHERE faculty_id = :toId)",
+            nativeQuery = true)
+    int moveBuckets(long fromId, long toId);
+
+    @Modifying
+    @Query("DELETE FROM faculty_stats s WHERE s.facultyId = :facultyId")
+    int deleteByFacultyId(long facultyId);
+
+    @Modifying
+    @Query("DELETE FROM faculty_stats")
+    int deleteAllBuckets();
+
+    @Modifying
+    @Query(value = "INSERT INTO faculty_stats (faculty_id, age, student_count) " +
+            "SELECT COALESCE(faculty_id, 0), age, COUNT(*) FROM students GROUP BY COALESCE(faculty_id, 0), age",
+            nativeQuery = true)
+    int rebuildFromStudents();
+}
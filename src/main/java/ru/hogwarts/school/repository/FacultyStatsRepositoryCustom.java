@@ -0,0 +1,8 @@
+package ru.hogwarts.school.repository;
+
+public interface FacultyStatsRepositoryCustom {
+    /**
+     * Adds to the bucket, creating it if needed, without failing when a concurrent transaction creates it too.
+     */
+    void addToCountOrInsert(long facultyId, int age, long delta);
+}
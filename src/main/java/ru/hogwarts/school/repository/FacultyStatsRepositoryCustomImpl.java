@@ -0,0 +1,44 @@
+package ru.hogwarts.school.repository;
+
+import jakarta.persistence.EntityManager;
+
+public class FacultyStatsRepositoryCustomImpl implements FacultyStatsRepositoryCustom {
+    private final static String UPSERT = "INSERT INTO faculty_stats (faculty_id, age, student_count) " +
+            "VALUES (:facultyId, :age, :delta) ON CONFLICT (faculty_id, age) " +
+            "DO UPDATE SET student_count = faculty_stats.student_count + EXCLUDED.student_count";
+
+    private final static String INSERT_IF_ABSENT = "INSERT INTO faculty_stats (faculty_id, age, student_count) " +
+            "VALUES (:facultyId, :age, :delta) ON CONFLICT DO NOTHING";
+
+    private final static String ADD_TO_COUNT = "UPDATE faculty_stats SET student_count = student_count + :delta " +
+            "WHERE faculty_id = :facultyId AND age = :age";
+
+    private final EntityManager entityManager;
+
+    private final boolean postgres;
+
+    public FacultyStatsRepositoryCustomImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+        this.postgres = Dialects.isPostgres(entityManager);
+    }
+
+    @Override
+    public void addToCountOrInsert(long facultyId, int age, long delta) {
+        if (postgres) {
+            execute(UPSERT, facultyId, age, delta);
+            return;
+        }
+        // H2 has no upsert which adds to the row, but its ON CONFLICT DO NOTHING waits for the concurrent insert
+        if (execute(ADD_TO_COUNT, facultyId, age, delta) == 0 && execute(INSERT_IF_ABSENT, facultyId, age, delta) == 0) {
+            execute(ADD_TO_COUNT, facultyId, age, delta);
+        }
+    }
+
+    private int execute(String sql, long facultyId, int age, long delta) {
+        return entityManager.createNativeQuery(sql)
+                .setParameter("facultyId", facultyId)
+                .setParameter("age", age)
+                .setParameter("delta", delta)
+                .executeUpdate();
+    }
+}
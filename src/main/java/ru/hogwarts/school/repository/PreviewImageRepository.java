@@ -0,0 +1,12 @@
+package ru.hogwarts.school.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import ru.hogwarts.school.model.PreviewImage;
+
+public interface PreviewImageRepository extends JpaRepository<PreviewImage, Long> {
+    @Modifying
+    @Query("DELETE FROM avatar_previews p WHERE p.avatar.id = :avatarId")
+    int deleteByAvatarId(long avatarId);
+}
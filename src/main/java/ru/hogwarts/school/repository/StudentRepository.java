@@ -1,24 +1,80 @@
 package ru.hogwarts.school.repository;
 
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import ru.hogwarts.school.model.Student;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
-public interface StudentRepository extends JpaRepository<Student, Long> {
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
+public interface StudentRepository extends JpaRepository<Student, Long>, DetachingRepository<Student> {
+    @Override
+    @EntityGraph(attributePaths = "faculty")
+    List<Student> findAll();
+
+    @EntityGraph(attributePaths = "faculty")
     List<Student> findByAge(int age);
 
+    @EntityGraph(attributePaths = "faculty")
     List<Student> findByAgeBetween(int from, int to);
 
     List<Student> findStudentsByFacultyId(long facultyId);
 
+    long countByFacultyId(long facultyId);
+
+    /**
+     * Moves all students of a faculty to another one, or out of any faculty if 'toFacultyId' is 0.
+     */
+    @Modifying
+    @Query(value = "UPDATE students SET faculty_id = NULLIF(:toFacultyId, 0) WHERE faculty_id = :fromFacultyId",
+            nativeQuery = true)
+    int moveAllToFaculty(long fromFacultyId, long toFacultyId);
+
+    /**
+     * Moves given students like {@link #moveAllToFaculty(long, long)}.
+     */
+    @Modifying
+    @Query(value = "UPDATE students SET faculty_id = NULLIF(:toFacultyId, 0) WHERE id IN :ids", nativeQuery = true)
+    int moveToFaculty(Collection<Long> ids, long toFacultyId);
+
     @Query(value = "SELECT COUNT(*) FROM students", nativeQuery = true)
     long countAllStudents();
 
     @Query(value = "SELECT AVG(age) FROM students", nativeQuery = true)
     long getAverageAge();
 
-    @Query(value = "SELECT * FROM students ORDER BY id DESC LIMIT 5", nativeQuery = true)
+    @Query("SELECT s FROM students s LEFT JOIN FETCH s.faculty ORDER BY s.id DESC LIMIT 5")
     List<Student> findLastFiveStudents();
+
+    @Query("SELECT AVG(s.age) FROM students s")
+    Double computeAverageAge();
+
+    @Query("SELECT UPPER(s.name) FROM students s WHERE s.name LIKE :pattern ESCAPE '\\' ORDER BY UPPER(s.name)")
+    List<String> findUpperCaseNamesByPattern(String pattern);
+
+    @Query("SELECT s FROM students s LEFT JOIN FETCH s.faculty WHERE s.id IN :ids ORDER BY s.id")
+    List<Student> findAllWithFacultyByIdIn(Collection<Long> ids);
+
+    @Query("SELECT s FROM students s JOIN FETCH s.faculty f WHERE f.id = :facultyId ORDER BY s.id")
+    List<Student> findWithFacultyByFacultyId(long facultyId, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM students s WHERE s.id IN :ids")
+    int deleteByIdIn(Collection<Long> ids);
+
+    @EntityGraph(attributePaths = "faculty")
+    List<Student> findByIdGreaterThanOrderById(long id, Pageable pageable);
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("SELECT s FROM students s LEFT JOIN FETCH s.faculty ORDER BY s.id")
+    Stream<Student> streamAll();
 }
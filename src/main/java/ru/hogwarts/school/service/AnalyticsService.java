@@ -0,0 +1,11 @@
+package ru.hogwarts.school.service;
+
+import java.util.Collection;
+
+public interface AnalyticsService {
+    double computeAverageAge();
+
+    Collection<String> getStudentNamesStartingWith(String prefix);
+
+    String getLongestFacultyName();
+}
@@ -0,0 +1,71 @@
+package ru.hogwarts.school.service;
+
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.hogwarts.school.exception.FacultyNotFoundException;
+import ru.hogwarts.school.exception.InvalidStudentPropsException;
+import ru.hogwarts.school.repository.FacultyRepository;
+import ru.hogwarts.school.repository.StudentRepository;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collection;
+
+import static ru.hogwarts.school.configuration.MetricsConfig.SERVICE_TIMER;
+
+/**
+ * Answers aggregate questions about students and faculties with SQL aggregates and projections,
+ * so no call hydrates whole tables into entities.
+ */
+@Service
+@Timed(SERVICE_TIMER)
+@Transactional(readOnly = true)
+public class AnalyticsServiceImpl implements AnalyticsService {
+    private final StudentRepository studentRepository;
+
+    private final FacultyRepository facultyRepository;
+
+    private final Logger logger = LoggerFactory.getLogger(AnalyticsServiceImpl.class);
+
+    public AnalyticsServiceImpl(StudentRepository studentRepository,
+                                FacultyRepository facultyRepository) {
+        this.studentRepository = studentRepository;
+        this.facultyRepository = facultyRepository;
+    }
+
+    @Override
+    public double computeAverageAge() {
+        Double result = studentRepository.computeAverageAge();
+
+        if (result == null) {
+            return 0;
+        }
+        return BigDecimal.valueOf(result)
+                .setScale(2, RoundingMode.HALF_UP)
+                .doubleValue();
+    }
+
+    @Override
+    public Collection<String> getStudentNamesStartingWith(String prefix) {
+        if (prefix == null || prefix.isEmpty()) {
+            logger.error("Prefix of student name must contain characters");
+            throw new InvalidStudentPropsException();
+        }
+        return studentRepository.findUpperCaseNamesByPattern(escapeLikePattern(prefix) + "%");
+    }
+
+    @Override
+    public String getLongestFacultyName() {
+        return facultyRepository.findLongestName()
+                .orElseThrow(() -> new FacultyNotFoundException());
+    }
+
+    private String escapeLikePattern(String value) {
+        return value.replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+    }
+}
@@ -1,44 +1,100 @@
 package ru.hogwarts.school.service;
 
+import io.micrometer.core.annotation.Timed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.hogwarts.school.exception.StudentNotFoundException;
+import ru.hogwarts.school.model.Faculty;
 import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.repository.StudentRepository;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+
+import static ru.hogwarts.school.configuration.CacheConfig.STUDENTS;
+import static ru.hogwarts.school.configuration.CacheConfig.STUDENT_FACULTIES;
+import static ru.hogwarts.school.configuration.MetricsConfig.SERVICE_TIMER;
 
 @Service
+@Timed(SERVICE_TIMER)
 public class AssociationServiceImpl implements AssociationService {
+    private final static int ID_CHUNK_SIZE = 1000;
+
     private final StudentService studentService;
 
     private final FacultyService facultyService;
 
+    private final StudentRepository studentRepository;
+
+    private final FacultyStatsService facultyStatsService;
+
     private final Logger logger = LoggerFactory.getLogger(AssociationServiceImpl.class);
 
-    public AssociationServiceImpl(StudentService studentService, FacultyService facultyService) {
+    public AssociationServiceImpl(StudentService studentService,
+                                  FacultyService facultyService,
+                                  StudentRepository studentRepository,
+                                  FacultyStatsService facultyStatsService) {
         this.studentService = studentService;
         this.facultyService = facultyService;
+        this.studentRepository = studentRepository;
+        this.facultyStatsService = facultyStatsService;
     }
 
+    /**
+     * Changes faculty of the student loaded in the same transaction, the instance kept in cache is never changed.
+     */
     @Override
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = STUDENTS, key = "#studentId"),
+            @CacheEvict(cacheNames = STUDENT_FACULTIES, key = "#studentId")
+    })
     public Student changeFacultyForStudent(long studentId, long facultyId) {
-        logWhenMethodInvoked("changeFacultyForStudent");
-        Student student = studentService.getStudent(studentId);
+        Student student = studentRepository.findById(studentId).orElseThrow(() -> {
+            logger.error("Student with id = {} doesn't exist", studentId);
+            return new StudentNotFoundException();
+        });
         return studentService.createStudent(student, facultyId);
     }
 
+    /**
+     * Moves all given students to the faculty in one transaction.
+     * Students are loaded with their faculties by chunks of ids, changed faculties are written
+     * by JDBC batches on commit, so the number of statements doesn't grow with every student.
+     * Nothing is changed if any of students doesn't exist.
+     */
     @Override
+    @Transactional
+    @CacheEvict(cacheNames = {STUDENTS, STUDENT_FACULTIES}, allEntries = true)
     public Collection<Student> changeStudentsInFaculty(long facultyId, List<Long> idList) {
-        logWhenMethodInvoked("changeStudentsInFaculty");
-        for (Long id : idList) {
-            Student student = studentService.getStudent(id);
-            studentService.createStudent(student, facultyId);
+        Faculty faculty = facultyService.checkIfExist(facultyId);
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(idList));
+
+        List<Student> students = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += ID_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + ID_CHUNK_SIZE, ids.size()));
+            students.addAll(studentRepository.findAllWithFacultyByIdIn(chunk));
+        }
+
+        if (students.size() < ids.size()) {
+            Set<Long> missing = new LinkedHashSet<>(ids);
+            students.forEach(student -> missing.remove(student.getId()));
+            logger.error("Students with ids = {} don't exist", missing);
+            throw new StudentNotFoundException();
         }
-        return facultyService.getStudents(facultyId);
-    }
 
-    private void logWhenMethodInvoked(String methodName) {
-        logger.info("Method {} was invoked", methodName);
+        facultyStatsService.moveStudents(students, facultyId);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Moving {} students to faculty '{}'", students.size(), faculty);
+        }
+        students.forEach(student -> student.setFaculty(faculty));
+        return students;
     }
 }
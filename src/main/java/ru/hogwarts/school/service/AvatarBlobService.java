@@ -0,0 +1,25 @@
+package ru.hogwarts.school.service;
+
+import ru.hogwarts.school.storage.FileRegion;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Collection;
+import java.util.Optional;
+
+public interface AvatarBlobService {
+    String store(InputStream content) throws IOException;
+
+    void release(String hash);
+
+    void releaseAll(Collection<String> hashes);
+
+    InputStream open(String hash) throws IOException;
+
+    Optional<FileRegion> getFileRegion(String hash) throws IOException;
+
+    Optional<URI> getDownloadUrl(String hash, String mediaType);
+
+    void collectGarbage();
+}
@@ -0,0 +1,184 @@
+package ru.hogwarts.school.service;
+
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.hogwarts.school.repository.AvatarBlobRepository;
+import ru.hogwarts.school.storage.AvatarStorage;
+import ru.hogwarts.school.storage.FileRegion;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static ru.hogwarts.school.configuration.MetricsConfig.SERVICE_TIMER;
+
+/**
+ * Content-addressed store of avatar files on top of {@link AvatarStorage}.
+ * Every file is kept once under the SHA-256 of its bytes, avatars referencing a file are counted in avatar_blobs.
+ * The garbage collector removes files unreferenced for longer than 'avatars.gc.grace-period',
+ * abandoned uploads and files left without any row.
+ */
+@Service
+@Timed(SERVICE_TIMER)
+public class AvatarBlobServiceImpl implements AvatarBlobService {
+    private final static int GC_BATCH_SIZE = 1000;
+
+    private final AvatarBlobRepository avatarBlobRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final AvatarStorage avatarStorage;
+
+    private final Duration gracePeriod;
+
+    private final Logger logger = LoggerFactory.getLogger(AvatarBlobServiceImpl.class);
+
+    public AvatarBlobServiceImpl(AvatarBlobRepository avatarBlobRepository,
+                                 PlatformTransactionManager transactionManager,
+                                 AvatarStorage avatarStorage,
+                                 @Value("${avatars.gc.grace-period:PT1H}") Duration gracePeriod) {
+        this.avatarBlobRepository = avatarBlobRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.avatarStorage = avatarStorage;
+        this.gracePeriod = gracePeriod;
+    }
+
+    /**
+     * Hashes the content while it is uploaded, then adds a reference to the blob and commits the upload.
+     * The reference is added first, so the garbage collector, which locks the row of a blob
+     * before deleting its file, can't delete the file after it is committed.
+     */
+    @Override
+    @Transactional
+    public String store(InputStream content) throws IOException {
+        try (AvatarStorage.Upload upload = avatarStorage.create()) {
+            MessageDigest digest = newDigest();
+            long size;
+            try (DigestInputStream in = new DigestInputStream(content, digest)) {
+                size = in.transferTo(upload.getOutputStream());
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+
+            avatarBlobRepository.addReferenceOrInsert(hash, size);
+            upload.commit(hash);
+            if (logger.isDebugEnabled()) {
+                logger.debug("Stored blob {} of {} bytes", hash, size);
+            }
+            return hash;
+        }
+    }
+
+    @Override
+    @Transactional
+    public void release(String hash) {
+        if (avatarBlobRepository.removeReference(hash, Instant.now()) == 0) {
+            logger.warn("Blob {} has no references to release", hash);
+        }
+    }
+
+    /**
+     * Every occurrence of a hash releases one reference. Blobs losing the same number of references
+     * are released by a single update, so usually there is one update whatever the number of hashes.
+     */
+    @Override
+    @Transactional
+    public void releaseAll(Collection<String> hashes) {
+        Instant now = Instant.now();
+        hashes.stream()
+                .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()))
+                .entrySet().stream()
+                .collect(Collectors.groupingBy(Map.Entry::getValue,
+                        Collectors.mapping(Map.Entry::getKey, Collectors.toList())))
+                .forEach((count, released) -> {
+                    if (avatarBlobRepository.removeReferences(released, count, now) < released.size()) {
+                        logger.warn("Some of blobs {} have less than {} references to release", released, count);
+                    }
+                });
+    }
+
+    @Override
+    public InputStream open(String hash) throws IOException {
+        return avatarStorage.open(hash);
+    }
+
+    @Override
+    public Optional<FileRegion> getFileRegion(String hash) throws IOException {
+        return avatarStorage.getFileRegion(hash);
+    }
+
+    @Override
+    public Optional<URI> getDownloadUrl(String hash, String mediaType) {
+        return avatarStorage.getDownloadUrl(hash, mediaType);
+    }
+
+    @Override
+    @Scheduled(initialDelayString = "${avatars.gc.interval:PT1H}", fixedDelayString = "${avatars.gc.interval:PT1H}")
+    public void collectGarbage() {
+        Instant before = Instant.now().minus(gracePeriod);
+        long blobs = 0;
+        List<String> hashes;
+        do {
+            hashes = avatarBlobRepository.findUnreferencedHashes(before, PageRequest.ofSize(GC_BATCH_SIZE));
+            for (String hash : hashes) {
+                if (Boolean.TRUE.equals(transactionTemplate.execute(status -> deleteIfUnreferenced(hash)))) {
+                    blobs++;
+                }
+            }
+        } while (hashes.size() == GC_BATCH_SIZE);
+
+        long orphans;
+        try {
+            orphans = avatarStorage.deleteIf(before, hash -> !avatarBlobRepository.existsById(hash));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        logger.info("Garbage collection removed {} unreferenced blobs and {} orphan files", blobs, orphans);
+    }
+
+    private boolean deleteIfUnreferenced(String hash) {
+        return avatarBlobRepository.lockUnreferenced(hash)
+                .map(blob -> {
+                    deleteObject(hash);
+                    avatarBlobRepository.delete(blob);
+                    return true;
+                })
+                .orElse(false);
+    }
+
+    private void deleteObject(String hash) {
+        try {
+            avatarStorage.delete(hash);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
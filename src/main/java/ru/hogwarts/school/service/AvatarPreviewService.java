@@ -0,0 +1,7 @@
+package ru.hogwarts.school.service;
+
+public interface AvatarPreviewService {
+    void requestPreview(long studentId, String blobHash, byte[] image);
+
+    void retryPendingPreviews();
+}
@@ -0,0 +1,201 @@
+package ru.hogwarts.school.service;
+
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.hogwarts.school.exception.PreviewQueueIsFullException;
+import ru.hogwarts.school.model.Avatar;
+import ru.hogwarts.school.model.PreviewImage;
+import ru.hogwarts.school.model.PreviewStatus;
+import ru.hogwarts.school.repository.AvatarRepository;
+import ru.hogwarts.school.repository.PreviewImageRepository;
+import ru.hogwarts.school.utility.PreviewPyramid;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.SortedMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+
+import static ru.hogwarts.school.configuration.AvatarPreviewConfig.PREVIEW_EXECUTOR;
+import static ru.hogwarts.school.configuration.MetricsConfig.SERVICE_TIMER;
+
+/**
+ * Generates avatar previews of 'avatars.preview.widths' on the preview executor.
+ * Every requested preview takes one of 'avatars.preview.max-pending' permits until it is generated,
+ * when no permit is left the upload is rejected. Previews are generated from the uploaded bytes
+ * kept in memory until then, so the permits also bound the memory taken by pending previews.
+ * Generation starts only after the transaction saving the avatar commits,
+ * a rejected upload rolls back and leaves its stored file to the garbage collector of blobs.
+ * Previews still pending after 'avatars.preview.timeout', lost on a restart or failed to be saved,
+ * are generated again from the stored file.
+ */
+@Service
+@Timed(SERVICE_TIMER)
+public class AvatarPreviewServiceImpl implements AvatarPreviewService {
+    private final AvatarRepository avatarRepository;
+
+    private final PreviewImageRepository previewImageRepository;
+
+    private final AvatarBlobService avatarBlobService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Executor previewExecutor;
+
+    private final Semaphore permits;
+
+    private final int maxPending;
+
+    private final int[] widths;
+
+    private final float jpegQuality;
+
+    private final Duration timeout;
+
+    private final Logger logger = LoggerFactory.getLogger(AvatarPreviewServiceImpl.class);
+
+    public AvatarPreviewServiceImpl(AvatarRepository avatarRepository,
+                                    PreviewImageRepository previewImageRepository,
+                                    AvatarBlobService avatarBlobService,
+                                    PlatformTransactionManager transactionManager,
+                                    @Qualifier(PREVIEW_EXECUTOR) Executor previewExecutor,
+                                    @Value("${avatars.preview.max-pending:64}") int maxPending,
+                                    @Value("${avatars.preview.widths:64,128,256}") int[] widths,
+                                    @Value("${avatars.preview.jpeg-quality:0.85}") float jpegQuality,
+                                    @Value("${avatars.preview.timeout:PT10M}") Duration timeout) {
+        this.avatarRepository = avatarRepository;
+        this.previewImageRepository = previewImageRepository;
+        this.avatarBlobService = avatarBlobService;
+        // previews of a rejected task are saved after the transaction of the upload has completed
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.previewExecutor = previewExecutor;
+        this.permits = new Semaphore(maxPending);
+        this.maxPending = maxPending;
+        this.widths = widths;
+        this.jpegQuality = jpegQuality;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public void requestPreview(long studentId, String blobHash, byte[] image) {
+        if (!permits.tryAcquire()) {
+            logger.warn("Preview queue is full, avatar of student with id = {} is rejected", studentId);
+            throw new PreviewQueueIsFullException();
+        }
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            submit(studentId, blobHash, image);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    submit(studentId, blobHash, image);
+                } else {
+                    permits.release();
+                }
+            }
+        });
+    }
+
+    @Override
+    @Scheduled(initialDelayString = "${avatars.preview.timeout:PT10M}",
+            fixedDelayString = "${avatars.preview.timeout:PT10M}")
+    public void retryPendingPreviews() {
+        Instant now = Instant.now();
+        Instant before = now.minus(timeout);
+        for (Avatar avatar : avatarRepository.findPendingPreviewsRequestedBefore(before, PageRequest.of(0, maxPending))) {
+            long studentId = avatar.getStudent().getId();
+            String blobHash = avatar.getBlobHash();
+            if (!permits.tryAcquire()) {
+                return;
+            }
+            if (avatarRepository.claimPendingPreview(avatar.getId(), blobHash, before, now) == 0) {
+                permits.release();
+                continue;
+            }
+
+            byte[] image;
+            try (InputStream content = avatarBlobService.open(blobHash)) {
+                image = content.readAllBytes();
+            } catch (IOException | RuntimeException e) {
+                logger.error("Avatar of student with id = {} couldn't be read for its preview", studentId, e);
+                permits.release();
+                markFailed(studentId, blobHash);
+                continue;
+            }
+            logger.warn("Preview of avatar of student with id = {} is still pending, generating it again", studentId);
+            submit(studentId, blobHash, image);
+        }
+    }
+
+    private void submit(long studentId, String blobHash, byte[] image) {
+        try {
+            previewExecutor.execute(() -> generate(studentId, blobHash, image));
+        } catch (TaskRejectedException e) {
+            logger.error("Preview of avatar of student with id = {} wasn't scheduled", studentId, e);
+            permits.release();
+            markFailed(studentId, blobHash);
+        }
+    }
+
+    private void generate(long studentId, String blobHash, byte[] image) {
+        try {
+            SortedMap<Integer, byte[]> previews = PreviewPyramid.generate(image, widths, jpegQuality);
+            savePreviews(studentId, blobHash, previews, PreviewStatus.READY);
+            logger.debug("Previews of avatar of student with id = {} are ready, widths = {}", studentId, previews.keySet());
+        } catch (IOException | RuntimeException e) {
+            logger.error("Preview of avatar of student with id = {} couldn't be generated", studentId, e);
+            markFailed(studentId, blobHash);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * An avatar left pending is generated again by {@link #retryPendingPreviews()}.
+     */
+    private void markFailed(long studentId, String blobHash) {
+        try {
+            savePreviews(studentId, blobHash, Collections.emptySortedMap(), PreviewStatus.FAILED);
+        } catch (RuntimeException e) {
+            logger.error("Preview of avatar of student with id = {} couldn't be marked as failed", studentId, e);
+        }
+    }
+
+    /**
+     * Replaces all previews of the avatar. The smallest one is also kept in the avatar itself for listings.
+     * Previews of an avatar replaced by a newer upload meanwhile are dropped, the newer one has a task of its own.
+     */
+    private void savePreviews(long studentId, String blobHash, SortedMap<Integer, byte[]> previews,
+                              PreviewStatus status) {
+        byte[] smallest = previews.isEmpty() ? null : previews.get(previews.firstKey());
+        transactionTemplate.executeWithoutResult(transaction -> {
+            if (avatarRepository.updatePreview(studentId, blobHash, smallest, status) == 0) {
+                logger.debug("Avatar of student with id = {} has been replaced, its previews are dropped", studentId);
+                return;
+            }
+            avatarRepository.findByStudentId(studentId).ifPresent(avatar -> {
+                previewImageRepository.deleteByAvatarId(avatar.getId());
+                previews.forEach((width, data) -> previewImageRepository.save(new PreviewImage(avatar, width, data)));
+            });
+        });
+    }
+}
@@ -1,17 +1,34 @@
 package ru.hogwarts.school.service;
 
-import org.springframework.web.multipart.MultipartFile;
+import ru.hogwarts.school.dto.AvatarInfo;
+import ru.hogwarts.school.dto.AvatarPreview;
 import ru.hogwarts.school.model.Avatar;
+import ru.hogwarts.school.storage.FileRegion;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
 import java.util.Collection;
+import java.util.Optional;
 
 public interface AvatarService {
-    void uploadStudentAvatar(long studentId, MultipartFile avatar) throws IOException;
+    int MAX_AVATAR_SIZE = 1024 * 300;
+
+    void uploadStudentAvatar(long studentId, InputStream content, String mediaType) throws IOException;
 
     Avatar findAvatar(long studentId);
 
     Avatar findAvatarOrThrow(long studentId);
 
-    Collection<Avatar> getAvatarsPerPage(int page, int limit);
+    Optional<URI> getDownloadUrl(Avatar avatar);
+
+    FileRegion getFileRegion(Avatar avatar) throws IOException;
+
+    AvatarPreview getPreview(long studentId);
+
+    AvatarPreview getPreview(long studentId, int width);
+
+    Collection<AvatarPreview> getPreviews(Collection<Long> studentIds);
+
+    Collection<AvatarInfo> getAvatarsPerPage(int page, int limit);
 }
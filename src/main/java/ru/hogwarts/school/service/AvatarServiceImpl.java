@@ -1,88 +1,93 @@
 package ru.hogwarts.school.service;
 
+import io.micrometer.core.annotation.Timed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.hogwarts.school.dto.AvatarInfo;
+import ru.hogwarts.school.dto.AvatarPreview;
 import ru.hogwarts.school.exception.AvatarNotFoundException;
 import ru.hogwarts.school.exception.FileIsTooBigException;
 import ru.hogwarts.school.model.Avatar;
+import ru.hogwarts.school.model.PreviewStatus;
 import ru.hogwarts.school.model.Student;
 import ru.hogwarts.school.repository.AvatarRepository;
+import ru.hogwarts.school.storage.FileRegion;
 
-import javax.imageio.ImageIO;
-import java.awt.*;
-import java.awt.image.BufferedImage;
-import java.io.*;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Instant;
 import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Optional;
+import java.util.Set;
 
-import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static ru.hogwarts.school.configuration.MetricsConfig.SERVICE_TIMER;
+import static ru.hogwarts.school.utility.InputValidator.validatePageLimit;
 
 @Service
 @Transactional
+@Timed(SERVICE_TIMER)
 public class AvatarServiceImpl implements AvatarService {
 
-    @Value("${students.avatars.dir.path}")
-    private String avatarsDir;
-
     private final AvatarRepository avatarRepository;
 
     private final StudentService studentService;
 
+    private final AvatarPreviewService avatarPreviewService;
+
+    private final AvatarBlobService avatarBlobService;
+
+    private final TransactionTemplate transactionTemplate;
+
     private final Logger logger = LoggerFactory.getLogger(AvatarServiceImpl.class);
 
-    public AvatarServiceImpl(AvatarRepository avatarRepository, StudentService studentService) {
+    public AvatarServiceImpl(AvatarRepository avatarRepository,
+                             StudentService studentService,
+                             AvatarPreviewService avatarPreviewService,
+                             AvatarBlobService avatarBlobService,
+                             PlatformTransactionManager transactionManager) {
         this.avatarRepository = avatarRepository;
         this.studentService = studentService;
+        this.avatarPreviewService = avatarPreviewService;
+        this.avatarBlobService = avatarBlobService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
+    /**
+     * The avatar is received into memory before the transaction starts, so a slow client doesn't hold a connection
+     * to the database. At most one byte over the limit is read, so the buffer never exceeds 300 KB and a too big
+     * upload is rejected without receiving the rest of it. The buffered bytes are hashed and written to the storage
+     * in one pass and given to the preview generator as they are, so the stored file is never read back.
+     */
     @Override
-    public void uploadStudentAvatar(long studentId, MultipartFile avatarFile) throws IOException {
-        logWhenMethodInvoked("uploadStudentAvatar");
-        long imageSize = avatarFile.getSize();
-        if (imageSize > (1024 * 300)) {
-            logger.error("Upload image is too big for avatar. Size = {}", imageSize);
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void uploadStudentAvatar(long studentId, InputStream content, String mediaType) throws IOException {
+        byte[] image = content.readNBytes(MAX_AVATAR_SIZE + 1);
+        if (image.length > MAX_AVATAR_SIZE) {
+            logger.error("Upload image is too big for avatar. Size > {}", MAX_AVATAR_SIZE);
             throw new FileIsTooBigException();
         }
-
-        Student student = studentService.getStudent(studentId);
-        logger.debug("Creating directory if absent, deleting image if already exists");
-        Path filePath = Path.of(avatarsDir, studentId + "." +
-                getExtension(avatarFile.getOriginalFilename()));
-        Files.createDirectories(filePath.getParent());
-        Files.deleteIfExists(filePath);
-        try (
-                InputStream is = avatarFile.getInputStream();
-                OutputStream os = Files.newOutputStream(filePath, CREATE_NEW);
-                BufferedInputStream bis = new BufferedInputStream(is, 1024);
-                BufferedOutputStream bos = new BufferedOutputStream(os, 1024)
-        ) {
-            bis.transferTo(bos);
-        }
-        logger.debug("Filling avatar object with values and saving in repo");
-        Avatar avatar = findAvatar(studentId);
-        avatar.setFilePath(filePath.toString());
-        avatar.setFileSize(avatarFile.getSize());
-        avatar.setMediaType(avatarFile.getContentType());
-        avatar.setPreview(generateImagePreview(filePath));
-        avatar.setStudent(student);
-        avatarRepository.save(avatar);
+        transactionTemplate.executeWithoutResult(status -> saveAvatar(studentId, image, mediaType));
     }
 
     @Override
     public Avatar findAvatar(long studentId) {
-        logWhenMethodInvoked("findAvatar");
         return avatarRepository.findByStudentId(studentId).orElse(new Avatar());
     }
 
     @Override
     public Avatar findAvatarOrThrow(long studentId) {
-        logWhenMethodInvoked("FindAvatarOrThrow");
         Avatar avatar = avatarRepository.findByStudentId(studentId).orElse(null);
 
         if (avatar == null) {
@@ -93,36 +98,92 @@ public class AvatarServiceImpl implements AvatarService {
     }
 
     @Override
-    public Collection<Avatar> getAvatarsPerPage(int page, int limit) {
-        logWhenMethodInvoked("getAvatarsPerPage");
-        return avatarRepository.findAll(PageRequest.of(page - 1, limit)).getContent();
+    public Optional<URI> getDownloadUrl(Avatar avatar) {
+        if (avatar.getBlobHash() == null) {
+            return Optional.empty();
+        }
+        return avatarBlobService.getDownloadUrl(avatar.getBlobHash(), avatar.getMediaType());
+    }
+
+    /**
+     * Avatars uploaded before content-addressed storage keep the path of their own file.
+     */
+    @Override
+    public FileRegion getFileRegion(Avatar avatar) throws IOException {
+        if (avatar.getBlobHash() == null) {
+            Path path = Path.of(avatar.getFilePath());
+            return new FileRegion(path, 0, Files.size(path), Files.getLastModifiedTime(path).toInstant());
+        }
+        return avatarBlobService.getFileRegion(avatar.getBlobHash())
+                .orElseThrow(() -> new IllegalStateException("Avatar storage has no local files"));
+    }
+
+    @Override
+    public AvatarPreview getPreview(long studentId) {
+        AvatarPreview preview = avatarRepository.findPreviewByStudentId(studentId).orElse(null);
+
+        if (preview == null) {
+            logger.error("User with id = {} has no avatar", studentId);
+            throw new AvatarNotFoundException();
+        }
+        return preview;
     }
 
-    private byte[] generateImagePreview(Path filePath) throws IOException {
-        logWhenMethodInvoked("generateImagePreview");
-        try (
-                InputStream is = Files.newInputStream(filePath);
-                BufferedInputStream bis = new BufferedInputStream(is, 1024);
-                ByteArrayOutputStream baos = new ByteArrayOutputStream()
-            ) {
-            BufferedImage image = ImageIO.read(bis);
-
-            logger.debug("Creating avatar preview and return result of it as byte array");
-            int height = image.getHeight() / (image.getWidth() / 100);
-            BufferedImage preview = new BufferedImage(100, height, image.getType());
-            Graphics2D graphics = preview.createGraphics();
-            graphics.drawImage(image, 0, 0, 100, height, null);
-            graphics.dispose();
-            ImageIO.write(preview, getExtension(filePath.getFileName().toString()), baos);
-            return baos.toByteArray();
+    /**
+     * Avatars which got their preview before previews of several widths have only the one kept in the avatar.
+     */
+    @Override
+    public AvatarPreview getPreview(long studentId, int width) {
+        AvatarPreview preview = avatarRepository.findPreviewByStudentIdClosestTo(studentId, width).orElse(null);
+
+        if (preview == null) {
+            logger.error("User with id = {} has no avatar", studentId);
+            throw new AvatarNotFoundException();
+        }
+        if (preview.previewStatus() == PreviewStatus.READY && preview.preview() == null) {
+            return getPreview(studentId);
         }
+        return preview;
+    }
+
+    @Override
+    public Collection<AvatarPreview> getPreviews(Collection<Long> studentIds) {
+        Set<Long> ids = new LinkedHashSet<>(studentIds);
+        validatePageLimit(ids.size());
+        return avatarRepository.findPreviewsByStudentIdIn(ids);
     }
 
-    private String getExtension(String filename) {
-        return filename.substring(filename.lastIndexOf(".") + 1);
+    @Override
+    public Collection<AvatarInfo> getAvatarsPerPage(int page, int limit) {
+        validatePageLimit(limit);
+        return avatarRepository.findAllInfo(PageRequest.of(page - 1, limit));
     }
 
-    private void logWhenMethodInvoked(String methodName) {
-        logger.info("Method '{}' has been invoked", methodName);
+    private void saveAvatar(long studentId, byte[] image, String mediaType) {
+        Student student = studentService.getStudent(studentId);
+        Avatar avatar = findAvatar(studentId);
+        String previousHash = avatar.getBlobHash();
+        logger.debug("Storing avatar content by its hash");
+        String hash;
+        try {
+            hash = avatarBlobService.store(new ByteArrayInputStream(image));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        avatarPreviewService.requestPreview(studentId, hash, image);
+        if (previousHash != null) {
+            avatarBlobService.release(previousHash);
+        }
+
+        logger.debug("Filling avatar object with values and saving in repo");
+        avatar.setBlobHash(hash);
+        avatar.setFilePath(null);
+        avatar.setFileSize(image.length);
+        avatar.setMediaType(mediaType);
+        avatar.setPreview(null);
+        avatar.setPreviewStatus(PreviewStatus.PENDING);
+        avatar.setPreviewRequestedAt(Instant.now());
+        avatar.setStudent(student);
+        avatarRepository.save(avatar);
     }
 }
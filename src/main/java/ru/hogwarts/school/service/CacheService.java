@@ -0,0 +1,9 @@
+package ru.hogwarts.school.service;
+
+import ru.hogwarts.school.dto.CacheStatistics;
+
+import java.util.Collection;
+
+public interface CacheService {
+    Collection<CacheStatistics> getStatistics();
+}
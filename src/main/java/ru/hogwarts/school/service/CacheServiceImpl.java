@@ -0,0 +1,41 @@
+package ru.hogwarts.school.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import ru.hogwarts.school.dto.CacheStatistics;
+
+import java.util.Collection;
+
+import static ru.hogwarts.school.configuration.MetricsConfig.SERVICE_TIMER;
+
+@Service
+@Timed(SERVICE_TIMER)
+public class CacheServiceImpl implements CacheService {
+    private final CacheManager cacheManager;
+
+    public CacheServiceImpl(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    @Override
+    public Collection<CacheStatistics> getStatistics() {
+        return cacheManager.getCacheNames().stream()
+                .sorted()
+                .map(name -> toStatistics(name, getNativeCache(name)))
+                .toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Cache<Object, Object> getNativeCache(String name) {
+        return (Cache<Object, Object>) cacheManager.getCache(name).getNativeCache();
+    }
+
+    private CacheStatistics toStatistics(String name, Cache<Object, Object> cache) {
+        CacheStats stats = cache.stats();
+        return new CacheStatistics(name, cache.estimatedSize(), stats.hitCount(),
+                stats.missCount(), stats.hitRate(), stats.evictionCount());
+    }
+}
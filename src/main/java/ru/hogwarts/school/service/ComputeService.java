@@ -0,0 +1,10 @@
+package ru.hogwarts.school.service;
+
+import ru.hogwarts.school.dto.SumResult;
+import ru.hogwarts.school.utility.SumStrategy;
+
+public interface ComputeService {
+    SumResult sum(long n, SumStrategy strategy, int parallelism);
+
+    int getMaxParallelism();
+}
@@ -0,0 +1,127 @@
+package ru.hogwarts.school.service;
+
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.hogwarts.school.dto.SumResult;
+import ru.hogwarts.school.exception.InvalidComputeParamsException;
+import ru.hogwarts.school.utility.SumStrategy;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static ru.hogwarts.school.configuration.MetricsConfig.SERVICE_TIMER;
+
+/**
+ * Sums numbers from 1 to n by the given strategy, to probe how computations scale with cores of a node.
+ * Parallel strategies run on a dedicated fork-join pool of the requested parallelism, never on the common pool,
+ * so probes neither compete with parallel streams of the application nor are limited by its size.
+ * Pools are created on first use, one per parallelism level, and kept until shutdown.
+ */
+@Service
+@Timed(SERVICE_TIMER)
+public class ComputeServiceImpl implements ComputeService {
+    /**
+     * Ranges this short are summed by a fork-join task itself instead of being split further.
+     */
+    private final static long MIN_SPLIT_SIZE = 10_000;
+
+    private final Map<Integer, ForkJoinPool> pools = new ConcurrentHashMap<>();
+
+    private final long maxN;
+
+    private final int maxParallelism;
+
+    private final Logger logger = LoggerFactory.getLogger(ComputeServiceImpl.class);
+
+    public ComputeServiceImpl(@Value("${compute.max-n:1000000000}") long maxN,
+                              @Value("${compute.max-parallelism:0}") int maxParallelism) {
+        this.maxN = maxN;
+        this.maxParallelism = maxParallelism > 0 ? maxParallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    @Override
+    public SumResult sum(long n, SumStrategy strategy, int parallelism) {
+        if (n < 1 || n > maxN || parallelism < 1 || parallelism > maxParallelism) {
+            logger.error("Invalid compute params: n = {}, parallelism = {}", n, parallelism);
+            throw new InvalidComputeParamsException();
+        }
+
+        long start = System.nanoTime();
+        long sum = switch (strategy) {
+            case SEQUENTIAL -> sumSequentially(n);
+            case RANGE -> LongStream.rangeClosed(1, n).sum();
+            case PARALLEL -> getPool(parallelism).submit(() -> LongStream.rangeClosed(1, n).parallel().sum()).join();
+            case FORK_JOIN -> getPool(parallelism).invoke(
+                    new RangeSumTask(1, n, Math.max(MIN_SPLIT_SIZE, n / (parallelism * 4L))));
+            case CLOSED_FORM -> n % 2 == 0 ? n / 2 * (n + 1) : (n + 1) / 2 * n;
+        };
+        long elapsedMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Sum of {} numbers by {} with parallelism {} took {} us", n, strategy, parallelism, elapsedMicros);
+        }
+        return new SumResult(n, strategy, parallelism, sum, elapsedMicros);
+    }
+
+    @Override
+    public int getMaxParallelism() {
+        return maxParallelism;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pools.values().forEach(ForkJoinPool::shutdownNow);
+    }
+
+    private ForkJoinPool getPool(int parallelism) {
+        return pools.computeIfAbsent(parallelism, ForkJoinPool::new);
+    }
+
+    private static long sumSequentially(long n) {
+        long sum = 0;
+        for (long i = 1; i <= n; i++) {
+            sum += i;
+        }
+        return sum;
+    }
+
+    /**
+     * Sums numbers from 'from' to 'to' inclusive, ranges longer than the threshold are split in halves.
+     */
+    private static class RangeSumTask extends RecursiveTask<Long> {
+        private final long from;
+
+        private final long to;
+
+        private final long threshold;
+
+        private RangeSumTask(long from, long to, long threshold) {
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected Long compute() {
+            if (to - from < threshold) {
+                long sum = 0;
+                for (long i = from; i <= to; i++) {
+                    sum += i;
+                }
+                return sum;
+            }
+            long middle = from + (to - from) / 2;
+            RangeSumTask left = new RangeSumTask(from, middle, threshold);
+            left.fork();
+            long right = new RangeSumTask(middle + 1, to, threshold).compute();
+            return left.join() + right;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package ru.hogwarts.school.service;
+
+import ru.hogwarts.school.dto.FacultyDeletion;
+
+public interface FacultyDeletionService {
+    FacultyDeletion startDeletion(long facultyId);
+
+    FacultyDeletion getDeletion(long facultyId);
+
+    void expireDeletions();
+}
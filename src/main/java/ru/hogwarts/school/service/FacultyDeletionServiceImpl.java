@@ -0,0 +1,159 @@
+package ru.hogwarts.school.service;
+
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.hogwarts.school.dto.FacultyDeletion;
+import ru.hogwarts.school.exception.FacultyDeletionNotFoundException;
+import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.repository.StudentRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+import static ru.hogwarts.school.configuration.CacheConfig.STUDENTS;
+import static ru.hogwarts.school.configuration.CacheConfig.STUDENT_FACULTIES;
+import static ru.hogwarts.school.configuration.FacultyDeletionConfig.DELETION_EXECUTOR;
+import static ru.hogwarts.school.configuration.MetricsConfig.SERVICE_TIMER;
+import static ru.hogwarts.school.dto.FacultyDeletion.Status.*;
+
+/**
+ * Deletes faculties too large for one transaction on the deletion executor. Students are moved
+ * to the heir faculty by chunks of 'faculties.delete.chunk-size', each chunk in its own transaction
+ * together with statistics of its students, so locks are held shortly and progress can be watched.
+ * Cached students of a chunk are evicted when its transaction commits.
+ * Then the faculty is deleted by {@link FacultyService#deleteFaculty(long)}, which also moves students
+ * added meanwhile and evicts caches. Progress is kept in memory of the instance which has started
+ * the deletion, finished ones for at least 'faculties.delete.retention'.
+ */
+@Service
+@Timed(SERVICE_TIMER)
+public class FacultyDeletionServiceImpl implements FacultyDeletionService {
+    private final Map<Long, Progress> deletions = new ConcurrentHashMap<>();
+
+    private final FacultyService facultyService;
+
+    private final FacultyStatsService facultyStatsService;
+
+    private final StudentRepository studentRepository;
+
+    private final CacheManager cacheManager;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Executor deletionExecutor;
+
+    private final int chunkSize;
+
+    private final Duration retention;
+
+    private final Logger logger = LoggerFactory.getLogger(FacultyDeletionServiceImpl.class);
+
+    public FacultyDeletionServiceImpl(FacultyService facultyService,
+                                      FacultyStatsService facultyStatsService,
+                                      StudentRepository studentRepository,
+                                      CacheManager cacheManager,
+                                      PlatformTransactionManager transactionManager,
+                                      @Qualifier(DELETION_EXECUTOR) Executor deletionExecutor,
+                                      @Value("${faculties.delete.chunk-size:1000}") int chunkSize,
+                                      @Value("${faculties.delete.retention:PT1H}") Duration retention) {
+        this.facultyService = facultyService;
+        this.facultyStatsService = facultyStatsService;
+        this.studentRepository = studentRepository;
+        this.cacheManager = cacheManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.deletionExecutor = deletionExecutor;
+        this.chunkSize = chunkSize;
+        this.retention = retention;
+    }
+
+    /**
+     * Starts deletion of the faculty, or returns the running one if the faculty is already being deleted.
+     */
+    @Override
+    public FacultyDeletion startDeletion(long facultyId) {
+        facultyService.checkIfExist(facultyId);
+        Progress started = new Progress(new FacultyDeletion(facultyId, facultyService.getHeirFacultyId(facultyId),
+                RUNNING, studentRepository.countByFacultyId(facultyId), 0), null);
+        Progress progress = deletions.compute(facultyId,
+                (id, previous) -> previous != null && previous.deletion().status() == RUNNING ? previous : started);
+        if (progress == started) {
+            deletionExecutor.execute(() -> delete(started.deletion()));
+        }
+        return progress.deletion();
+    }
+
+    @Override
+    public FacultyDeletion getDeletion(long facultyId) {
+        Progress progress = deletions.get(facultyId);
+        if (progress == null) {
+            logger.error("Faculty with id = {} hasn't been deleted in background", facultyId);
+            throw new FacultyDeletionNotFoundException();
+        }
+        return progress.deletion();
+    }
+
+    @Override
+    @Scheduled(initialDelayString = "${faculties.delete.retention:PT1H}",
+            fixedDelayString = "${faculties.delete.retention:PT1H}")
+    public void expireDeletions() {
+        Instant before = Instant.now().minus(retention);
+        deletions.values().removeIf(progress -> progress.finishedAt() != null && progress.finishedAt().isBefore(before));
+    }
+
+    private void delete(FacultyDeletion deletion) {
+        long facultyId = deletion.facultyId();
+        long moved = 0;
+        try {
+            int chunk;
+            do {
+                chunk = transactionTemplate.execute(status -> moveChunk(facultyId, deletion.heirFacultyId()));
+                moved += chunk;
+                deletions.put(facultyId, new Progress(deletion.withProgress(RUNNING, moved), null));
+            } while (chunk == chunkSize);
+
+            facultyService.deleteFaculty(facultyId);
+            deletions.put(facultyId, new Progress(deletion.withProgress(DONE, moved), Instant.now()));
+        } catch (RuntimeException e) {
+            logger.error("Deletion of faculty with id = {} failed after {} students were moved", facultyId, moved, e);
+            deletions.put(facultyId, new Progress(deletion.withProgress(FAILED, moved), Instant.now()));
+        }
+    }
+
+    private int moveChunk(long facultyId, long heirFacultyId) {
+        List<Student> students = studentRepository.findWithFacultyByFacultyId(facultyId, PageRequest.of(0, chunkSize));
+        if (students.isEmpty()) {
+            return 0;
+        }
+        facultyStatsService.moveStudents(students, heirFacultyId);
+        List<Long> ids = students.stream().map(Student::getId).toList();
+        int moved = studentRepository.moveToFaculty(ids, heirFacultyId);
+        evictStudents(ids);
+        return moved;
+    }
+
+    private void evictStudents(List<Long> ids) {
+        for (String name : List.of(STUDENTS, STUDENT_FACULTIES)) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null) {
+                ids.forEach(cache::evict);
+            }
+        }
+    }
+
+    private record Progress(FacultyDeletion deletion, Instant finishedAt) {
+    }
+}
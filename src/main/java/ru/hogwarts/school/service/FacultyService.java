@@ -4,6 +4,7 @@ import ru.hogwarts.school.model.Faculty;
 import ru.hogwarts.school.model.Student;
 
 import java.util.Collection;
+import java.util.function.Consumer;
 
 public interface FacultyService {
 
@@ -13,17 +14,24 @@ public interface FacultyService {
 
     void deleteFaculty(long id);
 
+    /**
+     * Id of the faculty which takes students of the deleted one, 0 if they are left without faculty.
+     */
+    long getHeirFacultyId(long id);
+
     Faculty updateFaculty(Faculty faculty);
 
     Collection<Faculty> getFacultiesOfColor(String color);
 
     Collection<Faculty> getAll();
 
+    Collection<Faculty> getPage(long afterId, int limit);
+
+    void forEachFaculty(Consumer<Faculty> action);
+
     Collection<Faculty> getFacultyByColorOrName(String color, String name);
 
     Collection<Student> getStudents(long id);
 
-    void checkIfExist(long id);
-
-    String getLongestFacultyName();
+    Faculty checkIfExist(long id);
 }
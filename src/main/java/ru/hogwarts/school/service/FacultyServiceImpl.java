@@ -1,8 +1,15 @@
 package ru.hogwarts.school.service;
 
+import io.micrometer.core.annotation.Timed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.hogwarts.school.exception.FacultyAlreadyExistsException;
 import ru.hogwarts.school.exception.FacultyNotFoundException;
 import ru.hogwarts.school.model.Faculty;
@@ -11,31 +18,47 @@ import ru.hogwarts.school.repository.FacultyRepository;
 import ru.hogwarts.school.repository.StudentRepository;
 
 import java.util.Collection;
-import java.util.Comparator;
-import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+import static ru.hogwarts.school.configuration.CacheConfig.*;
+import static ru.hogwarts.school.configuration.MetricsConfig.SERVICE_TIMER;
+import static ru.hogwarts.school.configuration.ReplicaRoutingDataSource.readFromPrimary;
+import static ru.hogwarts.school.model.FacultyStats.NO_FACULTY;
 import static ru.hogwarts.school.utility.InputValidator.validateFacultyProps;
+import static ru.hogwarts.school.utility.InputValidator.validatePageLimit;
 
 @Service
+@Timed(SERVICE_TIMER)
 public class FacultyServiceImpl implements FacultyService {
     private final FacultyRepository facultyRepository;
 
     private final StudentRepository studentRepository;
 
+    private final FacultyStatsService facultyStatsService;
+
+    private final long reassignTo;
+
     private final Logger logger = LoggerFactory.getLogger(FacultyServiceImpl.class);
 
     public FacultyServiceImpl(FacultyRepository facultyRepository,
-                              StudentRepository studentRepository) {
+                              StudentRepository studentRepository,
+                              FacultyStatsService facultyStatsService,
+                              @Value("${faculties.delete.reassign-to:0}") long reassignTo) {
         this.facultyRepository = facultyRepository;
         this.studentRepository = studentRepository;
+        this.facultyStatsService = facultyStatsService;
+        this.reassignTo = reassignTo;
     }
 
     @Override
     public Faculty createFaculty(Faculty faculty) {
-        logThatMethodInvoked("createFaculty");
         validateFacultyProps(faculty);
         try {
-            return facultyRepository.save(faculty);
+            Faculty result = facultyRepository.save(faculty);
+            // violations of constraints surface here, not at commit of an enclosing transaction
+            facultyRepository.flush();
+            return result;
         } catch (Exception e) {
             logger.error("Attempt to create faculty which is already in repo. {}", faculty);
             throw new FacultyAlreadyExistsException();
@@ -43,36 +66,57 @@ public class FacultyServiceImpl implements FacultyService {
     }
 
     @Override
+    @Cacheable(cacheNames = FACULTIES)
     public Faculty getFaculty(long id) {
-        logThatMethodInvoked("getFaculty");
-        checkIfExist(id);
-        return facultyRepository.findById(id).get();
+        // cached for an hour, so it is never read from a lagging replica
+        return readFromPrimary(() -> checkIfExist(id));
     }
 
     @Override
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = FACULTIES, key = "#faculty.id"),
+            @CacheEvict(cacheNames = {STUDENTS, STUDENT_FACULTIES}, allEntries = true)
+    })
     public Faculty updateFaculty(Faculty faculty) {
-        logThatMethodInvoked("updateFaculty");
         checkIfExist(faculty.getId());
         return createFaculty(faculty);
     }
 
+    /**
+     * Moves students of the faculty to the faculty of 'faculties.delete.reassign-to', or out of any faculty
+     * if it is 0 or is the deleted one itself, by one statement, and deletes the faculty in the same transaction.
+     */
     @Override
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = FACULTIES),
+            @CacheEvict(cacheNames = {STUDENTS, STUDENT_FACULTIES}, allEntries = true)
+    })
     public void deleteFaculty(long id) {
-        logThatMethodInvoked("deleteFaculty");
         checkIfExist(id);
-        List<Student> students = studentRepository.findStudentsByFacultyId(id);
+        long heirId = getHeirFacultyId(id);
+        int moved = studentRepository.moveAllToFaculty(id, heirId);
 
-        logger.debug("Set 'faculty' field of students in faculty to null. Faculty id = {}", id);
-        for (Student student : students) {
-            student.setFaculty(null);
-            studentRepository.save(student);
+        // arguments are boxed even when the level is disabled
+        if (logger.isDebugEnabled()) {
+            logger.debug("Moved {} students of faculty with id = {} to faculty with id = {}", moved, id, heirId);
         }
         facultyRepository.deleteById(id);
+        facultyStatsService.removeFaculty(id, heirId);
     }
 
     @Override
+    public long getHeirFacultyId(long id) {
+        if (reassignTo == NO_FACULTY || reassignTo == id) {
+            return NO_FACULTY;
+        }
+        return checkIfExist(reassignTo).getId();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Collection<Faculty> getFacultiesOfColor(String color) {
-        logThatMethodInvoked("getFacultiesOfColor");
         Collection<Faculty> faculties = facultyRepository.findByColorIgnoreCase(color);
 
         if (faculties.isEmpty()) {
@@ -83,8 +127,8 @@ public class FacultyServiceImpl implements FacultyService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Collection<Faculty> getAll() {
-        logThatMethodInvoked("getAll");
         Collection<Faculty> faculties = facultyRepository.findAll();
 
         if (faculties.isEmpty()) {
@@ -95,8 +139,26 @@ public class FacultyServiceImpl implements FacultyService {
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public Collection<Faculty> getPage(long afterId, int limit) {
+        validatePageLimit(limit);
+        return facultyRepository.findByIdGreaterThanOrderById(afterId, PageRequest.ofSize(limit));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachFaculty(Consumer<Faculty> action) {
+        try (Stream<Faculty> faculties = facultyRepository.streamAll()) {
+            faculties.forEach(faculty -> {
+                action.accept(faculty);
+                facultyRepository.detach(faculty);
+            });
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Collection<Faculty> getFacultyByColorOrName(String color, String name) {
-        logThatMethodInvoked("getFacultyByColorOrName");
         Collection<Faculty> result = facultyRepository.findByColorIgnoreCaseOrNameIgnoreCase(color, name);
 
         if (result.isEmpty()) {
@@ -107,30 +169,17 @@ public class FacultyServiceImpl implements FacultyService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Collection<Student> getStudents(long id) {
-        logThatMethodInvoked("getStudents");
         checkIfExist(id);
-        Faculty faculty = facultyRepository.findById(id).get();
-        return faculty.getStudents();
-    }
-
-    @Override
-    public String getLongestFacultyName() {
-        logThatMethodInvoked("getLongestFacultyName");
-        return facultyRepository.findAll().stream()
-                .map(el -> el.getName())
-                .max(Comparator.comparingInt(el -> el.length()))
-                .orElseThrow(() -> new FacultyNotFoundException());
+        // students refer to the faculty loaded above, so it isn't selected again for each of them
+        return studentRepository.findStudentsByFacultyId(id);
     }
 
-    public void checkIfExist(long id) {
-        if (!facultyRepository.existsById(id)) {
+    public Faculty checkIfExist(long id) {
+        return facultyRepository.findById(id).orElseThrow(() -> {
             logger.error("Faculty with id = {} doesn't exist", id);
-            throw new FacultyNotFoundException();
-        }
-    }
-
-    private void logThatMethodInvoked(String methodName) {
-        logger.info("Method {} was invoked", methodName);
+            return new FacultyNotFoundException();
+        });
     }
 }
@@ -0,0 +1,28 @@
+package ru.hogwarts.school.service;
+
+import ru.hogwarts.school.dto.StudentStatistics;
+import ru.hogwarts.school.model.Student;
+
+import java.util.Collection;
+
+public interface FacultyStatsService {
+    void addStudent(long facultyId, int age);
+
+    void addStudents(Collection<Student> students);
+
+    void removeStudent(long facultyId, int age);
+
+    void removeStudents(Collection<Student> students);
+
+    void moveStudent(long fromFacultyId, int fromAge, long toFacultyId, int toAge);
+
+    void moveStudents(Collection<Student> students, long toFacultyId);
+
+    void removeFaculty(long facultyId, long heirFacultyId);
+
+    StudentStatistics getStatistics();
+
+    StudentStatistics getFacultyStatistics(long facultyId);
+
+    void reconcile();
+}
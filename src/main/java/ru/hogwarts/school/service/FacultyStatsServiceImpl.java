@@ -0,0 +1,179 @@
+package ru.hogwarts.school.service;
+
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.hogwarts.school.dto.StudentStatistics;
+import ru.hogwarts.school.exception.FacultyNotFoundException;
+import ru.hogwarts.school.model.FacultyStats;
+import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.repository.FacultyRepository;
+import ru.hogwarts.school.repository.FacultyStatsRepository;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import static ru.hogwarts.school.configuration.MetricsConfig.SERVICE_TIMER;
+import static ru.hogwarts.school.model.FacultyStats.NO_FACULTY;
+
+/**
+ * Keeps the age histogram of every faculty in faculty_stats up to date.
+ * Writers adjust single buckets with atomic increments inside their own transaction,
+ * so readers get count, age sum, min, max and histogram from at most one row per age
+ * regardless of the size of students table. A periodic rebuild from students repairs any drift.
+ */
+@Service
+@Timed(SERVICE_TIMER)
+public class FacultyStatsServiceImpl implements FacultyStatsService {
+    private final FacultyStatsRepository facultyStatsRepository;
+
+    private final FacultyRepository facultyRepository;
+
+    private final Logger logger = LoggerFactory.getLogger(FacultyStatsServiceImpl.class);
+
+    public FacultyStatsServiceImpl(FacultyStatsRepository facultyStatsRepository,
+                                   FacultyRepository facultyRepository) {
+        this.facultyStatsRepository = facultyStatsRepository;
+        this.facultyRepository = facultyRepository;
+    }
+
+    @Override
+    @Transactional
+    public void addStudent(long facultyId, int age) {
+        adjust(facultyId, age, 1);
+    }
+
+    @Override
+    @Transactional
+    public void addStudents(Collection<Student> students) {
+        countByBucket(students).forEach((key, count) -> adjust(key.getFacultyId(), key.getAge(), count));
+    }
+
+    @Override
+    @Transactional
+    public void removeStudent(long facultyId, int age) {
+        adjust(facultyId, age, -1);
+    }
+
+    /**
+     * Students of the same faculty and age are removed with a single decrement of their bucket.
+     */
+    @Override
+    @Transactional
+    public void removeStudents(Collection<Student> students) {
+        countByBucket(students).forEach((key, count) -> adjust(key.getFacultyId(), key.getAge(), -count));
+    }
+
+    @Override
+    @Transactional
+    public void moveStudent(long fromFacultyId, int fromAge, long toFacultyId, int toAge) {
+        if (fromFacultyId == toFacultyId && fromAge == toAge) {
+            return;
+        }
+        adjust(fromFacultyId, fromAge, -1);
+        adjust(toFacultyId, toAge, 1);
+    }
+
+    /**
+     * Must be called before faculties of given students are changed.
+     * Students of the same faculty and age are moved with a single increment of each bucket.
+     */
+    @Override
+    @Transactional
+    public void moveStudents(Collection<Student> students, long toFacultyId) {
+        Map<FacultyStats.Key, Long> moved = students.stream()
+                .filter(student -> getFacultyId(student) != toFacultyId)
+                .collect(Collectors.groupingBy(student -> new FacultyStats.Key(getFacultyId(student), student.getAge()),
+                        Collectors.counting()));
+
+        moved.forEach((key, count) -> adjust(key.getFacultyId(), key.getAge(), -count));
+        moved.entrySet().stream()
+                .collect(Collectors.groupingBy(entry -> entry.getKey().getAge(), Collectors.summingLong(Map.Entry::getValue)))
+                .forEach((age, count) -> adjust(toFacultyId, age, count));
+    }
+
+    @Override
+    @Transactional
+    public void removeFaculty(long facultyId, long heirFacultyId) {
+        logger.debug("Moving statistics of faculty with id = {} to faculty with id = {}", facultyId, heirFacultyId);
+        facultyStatsRepository.mergeCounts(facultyId, heirFacultyId);
+        facultyStatsRepository.moveBuckets(facultyId, heirFacultyId);
+        facultyStatsRepository.deleteByFacultyId(facultyId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public StudentStatistics getStatistics() {
+        return toStatistics(facultyStatsRepository.sumByAge());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public StudentStatistics getFacultyStatistics(long facultyId) {
+        StudentStatistics statistics = toStatistics(facultyStatsRepository.findByFacultyId(facultyId));
+
+        // empty buckets may outlive a faculty until the next reconcile
+        if (statistics.studentCount() == 0 && !facultyRepository.existsById(facultyId)) {
+            logger.error("Faculty with id = {} doesn't exist", facultyId);
+            throw new FacultyNotFoundException();
+        }
+        return statistics;
+    }
+
+    @Override
+    @Transactional
+    @Scheduled(initialDelayString = "${stats.reconcile.interval:PT1H}",
+            fixedDelayString = "${stats.reconcile.interval:PT1H}")
+    public void reconcile() {
+        facultyStatsRepository.deleteAllBuckets();
+        int buckets = facultyStatsRepository.rebuildFromStudents();
+        logger.debug("Faculty statistics rebuilt from students, {} buckets", buckets);
+    }
+
+    private void adjust(long facultyId, int age, long delta) {
+        if (delta > 0) {
+            facultyStatsRepository.addToCountOrInsert(facultyId, age, delta);
+        } else if (facultyStatsRepository.addToCount(facultyId, age, delta) == 0) {
+            logger.warn("No statistics bucket for faculty id = {} and age = {}, left for reconcile", facultyId, age);
+        }
+    }
+
+    private static Map<FacultyStats.Key, Long> countByBucket(Collection<Student> students) {
+        return students.stream()
+                .collect(Collectors.groupingBy(student -> new FacultyStats.Key(getFacultyId(student), student.getAge()),
+                        Collectors.counting()));
+    }
+
+    private static long getFacultyId(Student student) {
+        return student.getFaculty() == null ? NO_FACULTY : student.getFaculty().getId();
+    }
+
+    private StudentStatistics toStatistics(List<FacultyStats> buckets) {
+        TreeMap<Integer, Long> histogram = new TreeMap<>();
+        long count = 0;
+        long ageSum = 0;
+
+        for (FacultyStats bucket : buckets) {
+            if (bucket.getStudentCount() > 0) {
+                histogram.put(bucket.getAge(), bucket.getStudentCount());
+                count += bucket.getStudentCount();
+                ageSum += bucket.getStudentCount() * bucket.getAge();
+            }
+        }
+        if (count == 0) {
+            return new StudentStatistics(0, 0, 0, null, null, histogram);
+        }
+        double averageAge = BigDecimal.valueOf(ageSum)
+                .divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_UP)
+                .doubleValue();
+        return new StudentStatistics(count, ageSum, averageAge, histogram.firstKey(), histogram.lastKey(), histogram);
+    }
+}
@@ -0,0 +1,12 @@
+package ru.hogwarts.school.service;
+
+import ru.hogwarts.school.dto.ImportReport;
+import ru.hogwarts.school.utility.ImportFormat;
+
+import java.io.InputStream;
+
+public interface ImportService {
+    ImportReport importStudents(InputStream input, ImportFormat format, Long facultyId);
+
+    ImportReport importFaculties(InputStream input, ImportFormat format);
+}
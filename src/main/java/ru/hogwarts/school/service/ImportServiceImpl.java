@@ -0,0 +1,262 @@
+package ru.hogwarts.school.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import ru.hogwarts.school.dto.FacultyImportRow;
+import ru.hogwarts.school.dto.ImportError;
+import ru.hogwarts.school.dto.ImportReport;
+import ru.hogwarts.school.dto.StudentImportRow;
+import ru.hogwarts.school.exception.FacultyAlreadyExistsException;
+import ru.hogwarts.school.exception.FacultyNotFoundException;
+import ru.hogwarts.school.exception.StudentAlreadyExistsException;
+import ru.hogwarts.school.model.Faculty;
+import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.repository.FacultyRepository;
+import ru.hogwarts.school.repository.StudentRepository;
+import ru.hogwarts.school.utility.ImportFormat;
+import ru.hogwarts.school.utility.ImportRowReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static ru.hogwarts.school.configuration.MetricsConfig.SERVICE_TIMER;
+import static ru.hogwarts.school.utility.InputValidator.validateFacultyProps;
+import static ru.hogwarts.school.utility.InputValidator.validateStudentProps;
+
+/**
+ * Imports students and faculties from CSV or NDJSON streams.
+ * Rows are parsed and validated one by one and saved by batches of 'import.batch-size' rows,
+ * each batch in its own transaction, so Hibernate sends the inserts as JDBC batches.
+ * If a batch fails, its rows are saved one by one, so only broken rows are reported and skipped.
+ */
+@Service
+@Timed(SERVICE_TIMER)
+public class ImportServiceImpl implements ImportService {
+    private final static int MAX_REPORTED_ERRORS = 1000;
+
+    private final static String UNIQUE_VIOLATION = "23505";
+
+    private final StudentRepository studentRepository;
+
+    private final FacultyRepository facultyRepository;
+
+    private final FacultyStatsService facultyStatsService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    private final int batchSize;
+
+    private final Logger logger = LoggerFactory.getLogger(ImportServiceImpl.class);
+
+    public ImportServiceImpl(StudentRepository studentRepository,
+                             FacultyRepository facultyRepository,
+                             FacultyStatsService facultyStatsService,
+                             PlatformTransactionManager transactionManager,
+                             ObjectMapper objectMapper,
+                             @Value("${import.batch-size:1000}") int batchSize) {
+        this.studentRepository = studentRepository;
+        this.facultyRepository = facultyRepository;
+        this.facultyStatsService = facultyStatsService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public ImportReport importStudents(InputStream input, ImportFormat format, Long facultyId) {
+        Map<Long, Boolean> existingFaculties = new HashMap<>();
+        return importRows(new ImportRowReader<>(input, format, StudentImportRow.class, objectMapper),
+                row -> toStudent(row, facultyId, existingFaculties),
+                this::saveStudents,
+                student -> student.setId(0),
+                new StudentAlreadyExistsException());
+    }
+
+    @Override
+    public ImportReport importFaculties(InputStream input, ImportFormat format) {
+        return importRows(new ImportRowReader<>(input, format, FacultyImportRow.class, objectMapper),
+                this::toFaculty,
+                this::saveFaculties,
+                faculty -> faculty.setId(0),
+                new FacultyAlreadyExistsException());
+    }
+
+    private <R, E> ImportReport importRows(ImportRowReader<R> rows,
+                                           Function<R, E> toEntity,
+                                           Consumer<List<E>> save,
+                                           Consumer<E> resetId,
+                                           RuntimeException saveFailure) {
+        Progress progress = new Progress();
+        List<E> batch = new ArrayList<>(batchSize);
+        List<Long> lines = new ArrayList<>(batchSize);
+
+        try {
+            while (true) {
+                R row;
+                try {
+                    row = rows.next();
+                } catch (JsonProcessingException e) {
+                    progress.fail(rows.getLine(), "Malformed row: " + e.getOriginalMessage());
+                    continue;
+                }
+                if (row == null) {
+                    break;
+                }
+
+                try {
+                    batch.add(toEntity.apply(row));
+                    lines.add(rows.getLine());
+                } catch (RuntimeException e) {
+                    progress.fail(rows.getLine(), describe(e));
+                }
+
+                if (batch.size() == batchSize) {
+                    saveBatch(batch, lines, save, resetId, saveFailure, progress);
+                    batch.clear();
+                    lines.clear();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        if (!batch.isEmpty()) {
+            saveBatch(batch, lines, save, resetId, saveFailure, progress);
+        }
+        logger.debug("Import finished, {} rows imported, {} rows failed", progress.imported, progress.failed);
+        return new ImportReport(progress.imported, progress.failed, progress.errors);
+    }
+
+    private <E> void saveBatch(List<E> batch,
+                               List<Long> lines,
+                               Consumer<List<E>> save,
+                               Consumer<E> resetId,
+                               RuntimeException saveFailure,
+                               Progress progress) {
+        try {
+            save.accept(batch);
+            progress.imported += batch.size();
+            return;
+        } catch (RuntimeException e) {
+            logger.debug("Batch of {} rows failed, saving its rows one by one", batch.size(), e);
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            E entity = batch.get(i);
+            resetId.accept(entity);
+            try {
+                save.accept(List.of(entity));
+                progress.imported++;
+            } catch (RuntimeException e) {
+                progress.fail(lines.get(i), describeSaveFailure(e, saveFailure));
+            }
+        }
+    }
+
+    private Student toStudent(StudentImportRow row, Long defaultFacultyId, Map<Long, Boolean> existingFaculties) {
+        Student student = new Student(0, row.name(), row.age() == null ? 0 : row.age(), null);
+        validateStudentProps(student);
+
+        Long facultyId = row.facultyId() == null ? defaultFacultyId : row.facultyId();
+        if (facultyId == null || !existingFaculties.computeIfAbsent(facultyId, facultyRepository::existsById)) {
+            throw new FacultyNotFoundException();
+        }
+        student.setFaculty(new Faculty(facultyId, null, null));
+        return student;
+    }
+
+    private Faculty toFaculty(FacultyImportRow row) {
+        Faculty faculty = new Faculty(0, row.name(), row.color());
+        validateFacultyProps(faculty);
+        return faculty;
+    }
+
+    private void saveStudents(List<Student> students) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                students.forEach(student ->
+                        student.setFaculty(facultyRepository.getReferenceById(student.getFaculty().getId())));
+                studentRepository.saveAll(students);
+                studentRepository.flush();
+                facultyStatsService.addStudents(students);
+            });
+        } finally {
+            studentRepository.clear();
+        }
+    }
+
+    private void saveFaculties(List<Faculty> faculties) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                facultyRepository.saveAll(faculties);
+                facultyRepository.flush();
+            });
+        } finally {
+            facultyRepository.clear();
+        }
+    }
+
+    /**
+     * Only unique violations mean the row already exists, others, like a faculty deleted meanwhile,
+     * are described by the database.
+     */
+    private String describeSaveFailure(RuntimeException e, RuntimeException saveFailure) {
+        if (!(e instanceof DataIntegrityViolationException violation)) {
+            return describe(e);
+        }
+        return isUniqueViolation(violation) ? describe(saveFailure) : violation.getMostSpecificCause().getMessage();
+    }
+
+    private boolean isUniqueViolation(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException) {
+                for (Throwable chained : sqlException) {
+                    if (chained instanceof SQLException next && UNIQUE_VIOLATION.equals(next.getSQLState())) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private String describe(RuntimeException e) {
+        ResponseStatus status = AnnotatedElementUtils.findMergedAnnotation(e.getClass(), ResponseStatus.class);
+        return status == null ? e.getMessage() : status.reason();
+    }
+
+    private static class Progress {
+        private long imported;
+
+        private long failed;
+
+        private final List<ImportError> errors = new ArrayList<>();
+
+        private void fail(long line, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new ImportError(line, message));
+            }
+        }
+    }
+}
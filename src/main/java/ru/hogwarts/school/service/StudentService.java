@@ -4,6 +4,7 @@ import ru.hogwarts.school.model.Faculty;
 import ru.hogwarts.school.model.Student;
 
 import java.util.Collection;
+import java.util.function.Consumer;
 
 public interface StudentService {
 
@@ -13,12 +14,18 @@ public interface StudentService {
 
     void deleteStudent(long id);
 
+    void deleteStudents(Collection<Long> ids);
+
     Student updateStudent(Student student);
 
     Collection<Student> getStudentsOfAge(int age);
 
     Collection<Student> getAll();
 
+    Collection<Student> getPage(long afterId, int limit);
+
+    void forEachStudent(Consumer<Student> action);
+
     Collection<Student> getByAgeBetween(int from, int to);
 
     void printNamesInConsoleInOrder();
@@ -31,9 +38,5 @@ public interface StudentService {
 
     Collection<Student> getLastFiveStudents();
 
-    Collection<String> getStudentsNamesThatStartsWithA();
-
-    double computeAverageAge();
-
     void printNamesInConsole();
 }
@@ -1,69 +1,120 @@
 package ru.hogwarts.school.service;
 
+import io.micrometer.core.annotation.Timed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.hogwarts.school.exception.EditOrChangeFacultyPermissionException;
 import ru.hogwarts.school.exception.StudentAlreadyExistsException;
 import ru.hogwarts.school.exception.StudentNotFoundException;
-import ru.hogwarts.school.model.Avatar;
 import ru.hogwarts.school.model.Faculty;
 import ru.hogwarts.school.model.Student;
 import ru.hogwarts.school.repository.AvatarRepository;
 import ru.hogwarts.school.repository.StudentRepository;
+import ru.hogwarts.school.utility.ConsolePrinter;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicBoolean;
-
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static ru.hogwarts.school.configuration.CacheConfig.STUDENTS;
+import static ru.hogwarts.school.configuration.CacheConfig.STUDENT_FACULTIES;
+import static ru.hogwarts.school.configuration.MetricsConfig.SERVICE_TIMER;
+import static ru.hogwarts.school.configuration.ReplicaRoutingDataSource.readFromPrimary;
+import static ru.hogwarts.school.model.FacultyStats.NO_FACULTY;
 import static ru.hogwarts.school.utility.InputValidator.validateAge;
+import static ru.hogwarts.school.utility.InputValidator.validatePageLimit;
 import static ru.hogwarts.school.utility.InputValidator.validateStudentProps;
 
 @Service
+@Timed(SERVICE_TIMER)
 public class StudentServiceImpl implements StudentService {
+    private final static int PRINTED_NAMES = 6;
+
+    private final static int ID_CHUNK_SIZE = 1000;
+
     private final StudentRepository studentRepository;
 
     private final AvatarRepository avatarRepository;
 
+    private final AvatarBlobService avatarBlobService;
+
     private final FacultyService facultyService;
 
+    private final FacultyStatsService facultyStatsService;
+
     private final Logger logger = LoggerFactory.getLogger(StudentServiceImpl.class);
 
-    volatile boolean flag = false;
+    private final ConsolePrinter consolePrinter;
 
     public StudentServiceImpl(StudentRepository studentRepository,
                               AvatarRepository avatarRepository,
-                              FacultyService facultyService) {
+                              AvatarBlobService avatarBlobService,
+                              FacultyService facultyService,
+                              FacultyStatsService facultyStatsService,
+                              ConsolePrinter consolePrinter) {
         this.studentRepository = studentRepository;
         this.avatarRepository = avatarRepository;
+        this.avatarBlobService = avatarBlobService;
         this.facultyService = facultyService;
+        this.facultyStatsService = facultyStatsService;
+        this.consolePrinter = consolePrinter;
     }
 
     @Override
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = STUDENTS, key = "#student.id"),
+            @CacheEvict(cacheNames = STUDENT_FACULTIES, key = "#student.id")
+    })
     public Student createStudent(Student student, long facultyId) {
-        logThatMethodInvoked("createStudent");
         validateStudentProps(student);
-        Faculty faculty = facultyService.getFaculty(facultyId);
+        Faculty faculty = facultyService.checkIfExist(facultyId);
+        // captured before the student is changed, it may be the same managed instance
+        Student previous = student.getId() == 0 ? null : studentRepository.findById(student.getId()).orElse(null);
+        long previousFacultyId = previous == null ? NO_FACULTY : getFacultyId(previous);
+        int previousAge = previous == null ? 0 : previous.getAge();
+
         student.setFaculty(faculty);
+        Student result;
         try {
-            return studentRepository.save(student);
+            result = studentRepository.saveAndFlush(student);
         } catch (Exception e) {
             logger.error("Attempt to create student which already in repo. {}", student);
             throw new StudentAlreadyExistsException();
         }
+
+        if (previous == null) {
+            facultyStatsService.addStudent(facultyId, student.getAge());
+        } else {
+            facultyStatsService.moveStudent(previousFacultyId, previousAge, facultyId, student.getAge());
+        }
+        return result;
     }
 
     @Override
+    @Cacheable(cacheNames = STUDENTS)
     public Student getStudent(long id) {
-        logThatMethodInvoked("getStudent");
-        return checkIfExist(id);
+        // cached for minutes, so it is never read from a lagging replica
+        return readFromPrimary(() -> checkIfExist(id));
     }
 
     @Override
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = STUDENTS, key = "#student.id"),
+            @CacheEvict(cacheNames = STUDENT_FACULTIES, key = "#student.id")
+    })
     public Student updateStudent(Student student) {
-        logThatMethodInvoked("updateStudent");
         Student studentInDb = checkIfExist(student.getId());
 
         if (student.getFaculty() != null) {
@@ -75,22 +126,57 @@ public class StudentServiceImpl implements StudentService {
         return createStudent(student, studentInDb.getFaculty().getId());
     }
 
+    /**
+     * Deletes the avatar and the student by direct statements. The student is loaded with its faculty
+     * only to decrement the statistics bucket of its faculty and age.
+     */
     @Override
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = STUDENTS),
+            @CacheEvict(cacheNames = STUDENT_FACULTIES)
+    })
     public void deleteStudent(long id) {
-        logThatMethodInvoked("deleteStudent");
-        Student student = getStudent(id);
-        deleteAvatarIfExist(id);
-        Faculty faculty = student.getFaculty();
-        logger.debug("Expelling student '{}' from faculty '{}'", student, faculty);
-        faculty.expelStudent(student);
-        facultyService.updateFaculty(faculty);
+        Student student = checkIfExist(id);
+        delete(List.of(id));
+        facultyStatsService.removeStudent(getFacultyId(student), student.getAge());
+    }
 
-        studentRepository.deleteById(id);
+    /**
+     * Deletes all given students in one transaction by chunks of ids, so the number of statements
+     * doesn't grow with every student. Nothing is deleted if any of students doesn't exist.
+     */
+    @Override
+    @Transactional
+    @CacheEvict(cacheNames = {STUDENTS, STUDENT_FACULTIES}, allEntries = true)
+    public void deleteStudents(Collection<Long> idList) {
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(idList));
+
+        List<Student> students = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += ID_CHUNK_SIZE) {
+            students.addAll(studentRepository.findAllWithFacultyByIdIn(
+                    ids.subList(from, Math.min(from + ID_CHUNK_SIZE, ids.size()))));
+        }
+
+        if (students.size() < ids.size()) {
+            Set<Long> missing = new LinkedHashSet<>(ids);
+            students.forEach(student -> missing.remove(student.getId()));
+            logger.error("Students with ids = {} don't exist", missing);
+            throw new StudentNotFoundException();
+        }
+
+        for (int from = 0; from < ids.size(); from += ID_CHUNK_SIZE) {
+            delete(ids.subList(from, Math.min(from + ID_CHUNK_SIZE, ids.size())));
+        }
+        facultyStatsService.removeStudents(students);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Deleted {} students", students.size());
+        }
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Collection<Student> getStudentsOfAge(int age) {
-        logThatMethodInvoked("getStudentsOfAge");
         validateAge(age);
         Collection<Student> students = studentRepository.findByAge(age);
 
@@ -102,8 +188,8 @@ public class StudentServiceImpl implements StudentService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Collection<Student> getAll() {
-        logThatMethodInvoked("getAll");
         Collection<Student> students = studentRepository.findAll();
 
         if (students.isEmpty()) {
@@ -114,8 +200,26 @@ public class StudentServiceImpl implements StudentService {
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public Collection<Student> getPage(long afterId, int limit) {
+        validatePageLimit(limit);
+        return studentRepository.findByIdGreaterThanOrderById(afterId, PageRequest.ofSize(limit));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachStudent(Consumer<Student> action) {
+        try (Stream<Student> students = studentRepository.streamAll()) {
+            students.forEach(student -> {
+                action.accept(student);
+                studentRepository.detach(student);
+            });
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Collection<Student> getByAgeBetween(int from, int to) {
-        logThatMethodInvoked("getByAgeBetween");
         validateAge(from);
         validateAge(to);
 
@@ -128,131 +232,88 @@ public class StudentServiceImpl implements StudentService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public long getNumberOfStudents() {
-        logThatMethodInvoked("getNumberOfStudents");
         return studentRepository.countAllStudents();
     }
 
     @Override
+    @Transactional(readOnly = true)
     public long getAverageAge() {
-        logThatMethodInvoked("getAverageAge");
         return studentRepository.getAverageAge();
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Student> getLastFiveStudents() {
-        logThatMethodInvoked("getLastFiveStudents");
         return studentRepository.findLastFiveStudents();
     }
 
-    @Override
-    public Collection<String> getStudentsNamesThatStartsWithA() {
-        logThatMethodInvoked("getStudentsNamesThatStartsWithA");
-        return studentRepository.findAll().stream()
-                .parallel()
-                .filter(el -> el.getName().startsWith("A"))
-                .map(el -> el.getName().toUpperCase())
-                .sorted()
-                .toList();
-    }
-
-    @Override
-    public double computeAverageAge() {
-        logThatMethodInvoked("computeAverageAge");
-        double result = studentRepository.findAll().stream()
-                .mapToInt(el -> el.getAge())
-                .summaryStatistics()
-                .getAverage();
-
-        return new BigDecimal(Double.toString(result))
-                .setScale(2, RoundingMode.HALF_UP)
-                .doubleValue();
-    }
-
+    /**
+     * Prints the list of names, then its pairs by separate tasks in any order.
+     */
     @Override
     public void printNamesInConsole() {
-        logThatMethodInvoked("printNamesInConsole");
-        List<String> names = getAll().stream()
-                .limit(6)
-                .map(el -> el.getName())
-                .toList();
-        Thread thread1 = new Thread(() -> {
-            System.out.println(names.get(2));
-            System.out.println(names.get(3));
-        });
-
-        Thread thread2 = new Thread(() -> {
-            System.out.println(names.get(4));
-            System.out.println(names.get(5));
-        });
-
-        System.out.println(names);
-        System.out.println(names.get(0));
-        System.out.println(names.get(1));
-        thread1.start();
-        thread2.start();
+        List<String> names = getFirstNames();
+        consolePrinter.printInOrder(List.of(List.of(names.toString())))
+                .thenRun(() -> consolePrinter.printConcurrently(pairs(names)));
     }
 
+    /**
+     * Prints the list of names and its pairs by separate tasks one after another,
+     * names of concurrent requests are never mixed.
+     */
     @Override
     public void printNamesInConsoleInOrder() {
-        logThatMethodInvoked("printNamesInConsoleInOrder");
-        List<String> names = getAll().stream()
-                .limit(6)
-                .map(el -> el.getName())
-                .toList();
-        Thread thread1 = new Thread(() -> {
-            printName(names, 2);
-            printName(names, 3);
-            flag = true;
-        });
-
-        Thread thread2 = new Thread(() -> {
-            while (!flag) {
-                try {
-                    Thread.sleep(100);
-                } catch (InterruptedException e) {
-                    throw new RuntimeException(e);
-                }
-            }
-            printName(names, 4);
-            printName(names, 5);
-        });
+        List<String> names = getFirstNames();
+        List<List<String>> groups = new ArrayList<>();
+        groups.add(List.of(names.toString()));
+        groups.addAll(pairs(names));
+        consolePrinter.printInOrder(groups);
+    }
 
-        System.out.println(names);
-        printName(names, 0);
-        printName(names, 1);
-        thread1.start();
-        thread2.start();
+    private List<String> getFirstNames() {
+        return studentRepository.findByIdGreaterThanOrderById(0, PageRequest.ofSize(PRINTED_NAMES)).stream()
+                .map(Student::getName)
+                .toList();
     }
 
-    private synchronized void printName(List<String> names, int index) {
-        System.out.println(names.get(index));
+    private static List<List<String>> pairs(List<String> names) {
+        List<List<String>> pairs = new ArrayList<>();
+        for (int from = 0; from < names.size(); from += 2) {
+            pairs.add(names.subList(from, Math.min(from + 2, names.size())));
+        }
+        return pairs;
     }
 
     @Override
+    @Cacheable(cacheNames = STUDENT_FACULTIES)
     public Faculty getFaculty(long id) {
-        logThatMethodInvoked("getFaculty");
         Student student = getStudent(id);
         return student.getFaculty();
     }
 
     private Student checkIfExist(long id) {
-        if (!studentRepository.existsById(id)) {
+        return studentRepository.findById(id).orElseThrow(() -> {
             logger.error("Student with id = {} doesn't exist", id);
-            throw new StudentNotFoundException();
-        }
-        return studentRepository.findById(id).get();
+            return new StudentNotFoundException();
+        });
     }
 
-    private void deleteAvatarIfExist(long studentId) {
-        logThatMethodInvoked("deleteAvatarIfExist");
-        Avatar avatar = avatarRepository.findByStudentId(studentId).orElse(null);
-        if (!(avatar == null)) {
-            avatarRepository.delete(avatar);
-        }
+    private long getFacultyId(Student student) {
+        return student.getFaculty() == null ? NO_FACULTY : student.getFaculty().getId();
     }
 
-    private void logThatMethodInvoked(String methodName) {
-        logger.info("Method {} was invoked", methodName);
+    /**
+     * Blobs of deleted avatars are only released, their files are removed by the garbage collector
+     * once the release is committed and the grace period is over.
+     */
+    private void delete(List<Long> ids) {
+        List<String> hashes = avatarRepository.findBlobHashesByStudentIdIn(ids);
+        if (!hashes.isEmpty()) {
+            avatarBlobService.releaseAll(hashes);
+        }
+        avatarRepository.deleteByStudentIdIn(ids);
+        studentRepository.deleteByIdIn(ids);
     }
 }
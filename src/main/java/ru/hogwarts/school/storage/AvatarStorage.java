@@ -0,0 +1,50 @@
+package ru.hogwarts.school.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+/**
+ * Place where bytes of avatars are kept, objects are addressed by keys chosen by the caller.
+ * Content is written before its key is known, so a key can be derived from the content itself:
+ * an object becomes visible under its key only when its upload is committed,
+ * an upload closed without commit leaves nothing behind.
+ */
+public interface AvatarStorage {
+    Upload create() throws IOException;
+
+    InputStream open(String key) throws IOException;
+
+    void delete(String key) throws IOException;
+
+    /**
+     * Deletes objects written before the given instant whose keys match the predicate,
+     * together with abandoned uploads. Returns the number of deleted objects.
+     */
+    long deleteIf(Instant writtenBefore, Predicate<String> key) throws IOException;
+
+    /**
+     * Region of a local file holding the object, so it can be sent without copying it through the application.
+     */
+    default Optional<FileRegion> getFileRegion(String key) throws IOException {
+        return Optional.empty();
+    }
+
+    /**
+     * Temporary URL clients can download the object from, without going through the application.
+     */
+    default Optional<URI> getDownloadUrl(String key, String mediaType) {
+        return Optional.empty();
+    }
+
+    interface Upload extends Closeable {
+        OutputStream getOutputStream();
+
+        void commit(String key) throws IOException;
+    }
+}
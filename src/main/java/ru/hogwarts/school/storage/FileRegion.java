@@ -0,0 +1,7 @@
+package ru.hogwarts.school.storage;
+
+import java.nio.file.Path;
+import java.time.Instant;
+
+public record FileRegion(Path file, long offset, long length, Instant lastModified) {
+}
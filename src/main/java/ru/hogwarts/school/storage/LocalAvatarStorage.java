@@ -0,0 +1,126 @@
+package ru.hogwarts.school.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * Keeps every object in its own file of a two-level directory tree, 'ab/cd/abcd...',
+ * so no directory holds more than a few hundred entries.
+ * Uploads are written to a temporary file and renamed into place,
+ * so a crash never leaves a truncated file under a real key.
+ */
+public class LocalAvatarStorage implements AvatarStorage {
+    private final static String TEMP_DIR = "tmp";
+
+    private final Path root;
+
+    private final Logger logger = LoggerFactory.getLogger(LocalAvatarStorage.class);
+
+    public LocalAvatarStorage(Path root) {
+        this.root = root;
+    }
+
+    @Override
+    public Upload create() throws IOException {
+        Path tempFile = Files.createTempFile(Files.createDirectories(root.resolve(TEMP_DIR)), "upload", null);
+        OutputStream out = Files.newOutputStream(tempFile);
+        return new Upload() {
+            @Override
+            public OutputStream getOutputStream() {
+                return out;
+            }
+
+            @Override
+            public void commit(String key) throws IOException {
+                out.close();
+                Path path = getPath(key);
+                Files.createDirectories(path.getParent());
+                Files.move(tempFile, path, ATOMIC_MOVE, REPLACE_EXISTING);
+            }
+
+            @Override
+            public void close() throws IOException {
+                out.close();
+                Files.deleteIfExists(tempFile);
+            }
+        };
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        return Files.newInputStream(getPath(key));
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(getPath(key));
+    }
+
+    @Override
+    public long deleteIf(Instant writtenBefore, Predicate<String> key) throws IOException {
+        if (!Files.isDirectory(root)) {
+            return 0;
+        }
+        try (Stream<Path> files = Files.walk(root, 3)) {
+            return files.filter(Files::isRegularFile)
+                    .filter(file -> isOlderThan(file, writtenBefore))
+                    .filter(file -> isTemporary(file) || isObject(file) && key.test(file.getFileName().toString()))
+                    .filter(this::deleteFile)
+                    .count();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Override
+    public Optional<FileRegion> getFileRegion(String key) throws IOException {
+        Path path = getPath(key);
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        return Optional.of(new FileRegion(path, 0, attributes.size(), attributes.lastModifiedTime().toInstant()));
+    }
+
+    Path getPath(String key) {
+        return root.resolve(key.substring(0, 2)).resolve(key.substring(2, 4)).resolve(key);
+    }
+
+    private boolean isTemporary(Path file) {
+        return file.getParent().equals(root.resolve(TEMP_DIR));
+    }
+
+    private boolean isObject(Path file) {
+        String name = file.getFileName().toString();
+        return name.length() > 4 && file.equals(getPath(name));
+    }
+
+    private boolean isOlderThan(Path file, Instant before) {
+        try {
+            return Files.getLastModifiedTime(file).toInstant().isBefore(before);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private boolean deleteFile(Path file) {
+        try {
+            return Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.error("File {} couldn't be deleted", file, e);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package ru.hogwarts.school.storage;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * Keeps all objects in one append-only pack file mapped into memory, which saves a file, an inode
+ * and a directory entry per avatar, and serves reads straight from the page cache.
+ * A record is the key, the time it was written, the length and the bytes of an object,
+ * a deletion appends a record without bytes. The header holds the end of the last complete record,
+ * it is moved only after the record is forced to disk, so a crash in the middle of a write loses only that record.
+ * The index of keys is rebuilt by reading the records on start. Space of deleted objects is not reclaimed.
+ */
+public class PackFileAvatarStorage implements AvatarStorage, Closeable {
+    private final static long MAGIC = 0x4841565041434B31L;
+
+    private final static int HEADER_SIZE = 16;
+
+    private final static int END_POSITION = 8;
+
+    private final static long MIN_CAPACITY = 16 * 1024 * 1024;
+
+    private final static long DELETED = -1;
+
+    private final Path packFile;
+
+    private final Path tempDir;
+
+    private final FileChannel channel;
+
+    private final Map<String, Entry> index = new ConcurrentHashMap<>();
+
+    private final Lock appendLock = new ReentrantLock();
+
+    private volatile MappedByteBuffer buffer;
+
+    private long end;
+
+    public PackFileAvatarStorage(Path root) throws IOException {
+        this.packFile = Files.createDirectories(root).resolve("avatars.pack");
+        this.tempDir = root.resolve("tmp");
+        this.channel = FileChannel.open(packFile, CREATE, READ, WRITE);
+        boolean created = channel.size() == 0;
+        buffer = map(Math.max(channel.size(), MIN_CAPACITY));
+        if (created) {
+            buffer.putLong(0, MAGIC);
+            buffer.putLong(END_POSITION, HEADER_SIZE);
+            buffer.force(0, HEADER_SIZE);
+        } else if (buffer.getLong(0) != MAGIC) {
+            throw new IOException(packFile + " is not a pack of avatars");
+        }
+        end = buffer.getLong(END_POSITION);
+        loadIndex();
+    }
+
+    @Override
+    public Upload create() throws IOException {
+        Path tempFile = Files.createTempFile(Files.createDirectories(tempDir), "upload", null);
+        OutputStream out = Files.newOutputStream(tempFile);
+        return new Upload() {
+            @Override
+            public OutputStream getOutputStream() {
+                return out;
+            }
+
+            @Override
+            public void commit(String key) throws IOException {
+                out.close();
+                if (!index.containsKey(key)) {
+                    append(key, tempFile, Files.size(tempFile));
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                out.close();
+                Files.deleteIfExists(tempFile);
+            }
+        };
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        Entry entry = getEntry(key);
+        return new BufferInputStream(buffer.slice((int) entry.offset(), (int) entry.length()));
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        if (index.containsKey(key)) {
+            append(key, null, DELETED);
+        }
+    }
+
+    @Override
+    public long deleteIf(Instant writtenBefore, Predicate<String> key) throws IOException {
+        long deleted = 0;
+        for (Map.Entry<String, Entry> entry : index.entrySet()) {
+            if (entry.getValue().writtenAt() < writtenBefore.toEpochMilli() && key.test(entry.getKey())) {
+                delete(entry.getKey());
+                deleted++;
+            }
+        }
+        if (Files.isDirectory(tempDir)) {
+            try (Stream<Path> files = Files.list(tempDir)) {
+                for (Path file : files.toList()) {
+                    if (Files.getLastModifiedTime(file).toInstant().isBefore(writtenBefore) && Files.deleteIfExists(file)) {
+                        deleted++;
+                    }
+                }
+            }
+        }
+        return deleted;
+    }
+
+    @Override
+    public Optional<FileRegion> getFileRegion(String key) throws IOException {
+        Entry entry = getEntry(key);
+        return Optional.of(new FileRegion(packFile, entry.offset(), entry.length(),
+                Instant.ofEpochMilli(entry.writtenAt())));
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private Entry getEntry(String key) throws NoSuchFileException {
+        Entry entry = index.get(key);
+        if (entry == null) {
+            throw new NoSuchFileException(packFile + "!" + key);
+        }
+        return entry;
+    }
+
+    /**
+     * Appends are serialized by a lock rather than a monitor, which would pin a virtual thread
+     * to its carrier while the record is read from the temporary file and forced to disk.
+     */
+    private void append(String key, Path data, long length) throws IOException {
+        appendLock.lock();
+        try {
+            appendRecord(key, data, length);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void appendRecord(String key, Path data, long length) throws IOException {
+        byte[] keyBytes = key.getBytes(UTF_8);
+        long start = end;
+        long dataStart = start + Integer.BYTES + keyBytes.length + 2 * Long.BYTES;
+        long recordEnd = dataStart + Math.max(length, 0);
+        ensureCapacity(recordEnd);
+
+        long writtenAt = System.currentTimeMillis();
+        MappedByteBuffer target = buffer;
+        int position = (int) start;
+        target.putInt(position, keyBytes.length);
+        target.put(position + Integer.BYTES, keyBytes);
+        target.putLong(position + Integer.BYTES + keyBytes.length, writtenAt);
+        target.putLong(position + Integer.BYTES + keyBytes.length + Long.BYTES, length);
+        if (data != null) {
+            ByteBuffer bytes = target.slice((int) dataStart, (int) length);
+            try (FileChannel in = FileChannel.open(data, READ)) {
+                while (bytes.hasRemaining()) {
+                    if (in.read(bytes) < 0) {
+                        throw new EOFException(data + " is shorter than " + length + " bytes");
+                    }
+                }
+            }
+        }
+        target.force(position, (int) (recordEnd - start));
+        target.putLong(END_POSITION, recordEnd);
+        target.force(END_POSITION, Long.BYTES);
+        end = recordEnd;
+
+        if (length == DELETED) {
+            index.remove(key);
+        } else {
+            index.put(key, new Entry(dataStart, length, writtenAt));
+        }
+    }
+
+    private void loadIndex() {
+        MappedByteBuffer source = buffer;
+        int position = HEADER_SIZE;
+        while (position < end) {
+            int keyLength = source.getInt(position);
+            byte[] keyBytes = new byte[keyLength];
+            source.get(position + Integer.BYTES, keyBytes);
+            long writtenAt = source.getLong(position + Integer.BYTES + keyLength);
+            long length = source.getLong(position + Integer.BYTES + keyLength + Long.BYTES);
+            int dataStart = position + Integer.BYTES + keyLength + 2 * Long.BYTES;
+
+            String key = new String(keyBytes, UTF_8);
+            if (length == DELETED) {
+                index.remove(key);
+            } else {
+                index.put(key, new Entry(dataStart, length, writtenAt));
+            }
+            position = dataStart + (int) Math.max(length, 0);
+        }
+    }
+
+    /**
+     * The mapping is doubled when the pack outgrows it. Buffers of previous mappings stay valid,
+     * so readers holding them are not affected. A single mapping is limited to 2 GB.
+     */
+    private void ensureCapacity(long required) throws IOException {
+        long capacity = buffer.capacity();
+        if (required <= capacity) {
+            return;
+        }
+        if (required > Integer.MAX_VALUE) {
+            throw new IOException("Pack of avatars " + packFile + " is full");
+        }
+        buffer = map(Math.min(Math.max(capacity * 2, required), Integer.MAX_VALUE));
+    }
+
+    private MappedByteBuffer map(long capacity) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    }
+
+    private record Entry(long offset, long length, long writtenAt) {
+    }
+
+    private static class BufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        private BufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(len, buffer.remaining());
+            buffer.get(b, off, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package ru.hogwarts.school.storage;
+
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.NoSuchFileException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+/**
+ * Keeps objects in a bucket of S3 or of any S3-compatible store, e.g. MinIO, under 'prefix + key'.
+ * Uploads up to one part are sent with a single PUT straight under their key.
+ * Larger uploads are streamed part by part as a multipart upload under a temporary key,
+ * then copied to their key inside the store, so nothing is buffered beyond one part.
+ * Clients download objects by presigned URLs, so reads don't go through the application.
+ */
+public class S3AvatarStorage implements AvatarStorage {
+    private final static String UPLOADS = "uploads/";
+
+    private final S3Client s3;
+
+    private final S3Presigner presigner;
+
+    private final String bucket;
+
+    private final String prefix;
+
+    private final int partSize;
+
+    private final Duration urlTtl;
+
+    public S3AvatarStorage(S3Client s3, S3Presigner presigner, String bucket, String prefix, int partSize, Duration urlTtl) {
+        this.s3 = s3;
+        this.presigner = presigner;
+        this.bucket = bucket;
+        this.prefix = prefix;
+        this.partSize = partSize;
+        this.urlTtl = urlTtl;
+    }
+
+    @Override
+    public Upload create() {
+        return new MultipartUpload(prefix + UPLOADS + UUID.randomUUID());
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        try {
+            return s3.getObject(GetObjectRequest.builder().bucket(bucket).key(prefix + key).build());
+        } catch (NoSuchKeyException e) {
+            throw new NoSuchFileException(bucket + "/" + prefix + key);
+        }
+    }
+
+    @Override
+    public void delete(String key) {
+        s3.deleteObject(DeleteObjectRequest.builder().bucket(bucket).key(prefix + key).build());
+    }
+
+    @Override
+    public long deleteIf(Instant writtenBefore, Predicate<String> key) {
+        long deleted = 0;
+        ListObjectsV2Request listObjects = ListObjectsV2Request.builder().bucket(bucket).prefix(prefix).build();
+        for (S3Object object : s3.listObjectsV2Paginator(listObjects).contents()) {
+            String name = object.key().substring(prefix.length());
+            boolean abandoned = name.startsWith(UPLOADS) || key.test(name);
+            if (object.lastModified().isBefore(writtenBefore) && abandoned) {
+                s3.deleteObject(DeleteObjectRequest.builder().bucket(bucket).key(object.key()).build());
+                deleted++;
+            }
+        }
+
+        ListMultipartUploadsRequest listUploads = ListMultipartUploadsRequest.builder()
+                .bucket(bucket)
+                .prefix(prefix + UPLOADS)
+                .build();
+        for (software.amazon.awssdk.services.s3.model.MultipartUpload upload : s3.listMultipartUploads(listUploads).uploads()) {
+            if (upload.initiated().isBefore(writtenBefore)) {
+                s3.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                        .bucket(bucket)
+                        .key(upload.key())
+                        .uploadId(upload.uploadId())
+                        .build());
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    @Override
+    public Optional<URI> getDownloadUrl(String key, String mediaType) {
+        GetObjectRequest request = GetObjectRequest.builder()
+                .bucket(bucket)
+                .key(prefix + key)
+                .responseContentType(mediaType)
+                .build();
+        try {
+            return Optional.of(presigner.presignGetObject(GetObjectPresignRequest.builder()
+                    .signatureDuration(urlTtl)
+                    .getObjectRequest(request)
+                    .build()).url().toURI());
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private class MultipartUpload implements Upload {
+        private final String tempKey;
+
+        private final ByteArrayOutputStream part = new ByteArrayOutputStream();
+
+        private final List<CompletedPart> parts = new ArrayList<>();
+
+        private String uploadId;
+
+        private boolean completed;
+
+        private MultipartUpload(String tempKey) {
+            this.tempKey = tempKey;
+        }
+
+        private final OutputStream out = new OutputStream() {
+            @Override
+            public void write(int b) {
+                part.write(b);
+                sendPartIfFull();
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                while (len > 0) {
+                    int count = Math.min(len, partSize - part.size());
+                    part.write(b, off, count);
+                    off += count;
+                    len -= count;
+                    sendPartIfFull();
+                }
+            }
+        };
+
+        @Override
+        public OutputStream getOutputStream() {
+            return out;
+        }
+
+        @Override
+        public void commit(String key) {
+            if (uploadId == null) {
+                s3.putObject(PutObjectRequest.builder().bucket(bucket).key(prefix + key).build(),
+                        RequestBody.fromBytes(part.toByteArray()));
+                return;
+            }
+            if (part.size() > 0) {
+                sendPart();
+            }
+            s3.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(tempKey)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+                    .build());
+            completed = true;
+            s3.copyObject(CopyObjectRequest.builder()
+                    .sourceBucket(bucket)
+                    .sourceKey(tempKey)
+                    .destinationBucket(bucket)
+                    .destinationKey(prefix + key)
+                    .build());
+        }
+
+        @Override
+        public void close() {
+            if (uploadId == null) {
+                return;
+            }
+            if (completed) {
+                s3.deleteObject(DeleteObjectRequest.builder().bucket(bucket).key(tempKey).build());
+            } else {
+                s3.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                        .bucket(bucket)
+                        .key(tempKey)
+                        .uploadId(uploadId)
+                        .build());
+            }
+        }
+
+        private void sendPartIfFull() {
+            if (part.size() >= partSize) {
+                sendPart();
+            }
+        }
+
+        private void sendPart() {
+            if (uploadId == null) {
+                uploadId = s3.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                        .bucket(bucket)
+                        .key(tempKey)
+                        .build()).uploadId();
+            }
+            int partNumber = parts.size() + 1;
+            String eTag = s3.uploadPart(UploadPartRequest.builder()
+                    .bucket(bucket)
+                    .key(tempKey)
+                    .uploadId(uploadId)
+                    .partNumber(partNumber)
+                    .build(), RequestBody.fromBytes(part.toByteArray())).eTag();
+            parts.add(CompletedPart.builder().partNumber(partNumber).eTag(eTag).build());
+            part.reset();
+        }
+    }
+}
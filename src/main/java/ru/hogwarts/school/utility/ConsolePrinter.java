@@ -0,0 +1,65 @@
+package ru.hogwarts.school.utility;
+
+import java.io.PrintStream;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Prints groups of lines by tasks of a shared executor instead of threads started for every call.
+ * Groups printed in order are chained one after another, the next group starts when the previous one
+ * is printed, so lines of concurrent calls never interleave and nobody sleeps waiting for their turn.
+ */
+public class ConsolePrinter {
+    private final Executor executor;
+
+    private final PrintStream out;
+
+    private final Lock tailLock = new ReentrantLock();
+
+    private final Lock printLock = new ReentrantLock();
+
+    private CompletableFuture<Void> tail = CompletableFuture.completedFuture(null);
+
+    public ConsolePrinter(Executor executor, PrintStream out) {
+        this.executor = executor;
+        this.out = out;
+    }
+
+    /**
+     * Prints every group by its own task, groups of all calls are printed in the order of calls.
+     * A group which failed doesn't break the groups chained after it.
+     */
+    public CompletableFuture<Void> printInOrder(List<List<String>> groups) {
+        tailLock.lock();
+        try {
+            for (List<String> group : groups) {
+                tail = tail.exceptionally(e -> null)
+                        .thenRunAsync(() -> print(group), executor);
+            }
+            return tail;
+        } finally {
+            tailLock.unlock();
+        }
+    }
+
+    /**
+     * Prints every group by its own task, groups may be printed in any order, but lines of a group stay together.
+     */
+    public CompletableFuture<Void> printConcurrently(List<List<String>> groups) {
+        return CompletableFuture.allOf(groups.stream()
+                .map(group -> CompletableFuture.runAsync(() -> print(group), executor))
+                .toArray(CompletableFuture[]::new));
+    }
+
+    private void print(List<String> group) {
+        printLock.lock();
+        try {
+            group.forEach(out::println);
+        } finally {
+            printLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package ru.hogwarts.school.utility;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.web.context.request.ServletWebRequest;
+import ru.hogwarts.school.storage.FileRegion;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
+
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * Sends a file as the response body.
+ * When the connector supports sendfile, the file is handed to Tomcat, which writes it to the socket by itself
+ * without copying it through the application. Otherwise it is written with {@link FileChannel#transferTo}
+ * into the output stream of the response, which copies it through a buffer on the heap.
+ * Conditional requests are answered by ETag and Last-Modified, a single byte range is served as partial content.
+ */
+public class FileSender {
+    private final static String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+
+    private final static String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+
+    private final static String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+
+    private final static String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    /**
+     * Sends a region of a file, which may be an object kept inside a larger pack file.
+     * If no ETag is given, it is derived from the length and the modification time of the region.
+     */
+    public static void send(FileRegion region,
+                            String etag,
+                            String mediaType,
+                            HttpServletRequest request,
+                            HttpServletResponse response) throws IOException {
+        long length = region.length();
+        long lastModified = region.lastModified().toEpochMilli();
+        if (etag == null) {
+            etag = "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+        }
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().getHeaderValue());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return;
+        }
+
+        long start = 0;
+        long end = length - 1;
+        HttpRange range = getRange(request, etag, lastModified);
+        if (range == null) {
+            response.setStatus(HttpServletResponse.SC_OK);
+        } else {
+            start = range.getRangeStart(length);
+            end = range.getRangeEnd(length);
+            if (start >= length || start > end) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        }
+        response.setContentType(mediaType);
+        response.setContentLengthLong(end - start + 1);
+
+        if (end < start || HttpMethod.HEAD.matches(request.getMethod())) {
+            return;
+        }
+        long offset = region.offset();
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, region.file().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, offset + start);
+            request.setAttribute(SENDFILE_END, offset + end + 1);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(region.file(), READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while (position <= end) {
+                long sent = channel.transferTo(offset + position, end + 1 - position, out);
+                // the response channel blocks until all is written, so nothing sent means the file has ended
+                if (sent == 0) {
+                    throw new IOException("File " + region.file() + " ended after " + position + " of "
+                            + (end + 1) + " bytes");
+                }
+                position += sent;
+            }
+        }
+    }
+
+    /**
+     * Returns the requested range, or null if the whole file has to be sent:
+     * when there is no range, it is malformed, there are several of them,
+     * or If-Range doesn't match the current version of the file.
+     */
+    private static HttpRange getRange(HttpServletRequest request, String etag, long lastModified) {
+        String header = request.getHeader(HttpHeaders.RANGE);
+        if (header == null || !isCurrentVersion(request, etag, lastModified)) {
+            return null;
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(header);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static boolean isCurrentVersion(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
+        }
+        try {
+            return request.getDateHeader(HttpHeaders.IF_RANGE) / 1000 == lastModified / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
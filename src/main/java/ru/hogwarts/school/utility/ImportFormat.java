@@ -0,0 +1,23 @@
+package ru.hogwarts.school.utility;
+
+import org.springframework.http.MediaType;
+import ru.hogwarts.school.exception.UnsupportedImportFormatException;
+
+public enum ImportFormat {
+    CSV,
+    NDJSON;
+
+    public final static String CSV_VALUE = "text/csv";
+
+    public final static String NDJSON_VALUE = "application/x-ndjson";
+
+    public static ImportFormat of(MediaType mediaType) {
+        if (mediaType.isCompatibleWith(MediaType.valueOf(CSV_VALUE))) {
+            return CSV;
+        }
+        if (mediaType.isCompatibleWith(MediaType.valueOf(NDJSON_VALUE))) {
+            return NDJSON;
+        }
+        throw new UnsupportedImportFormatException();
+    }
+}
@@ -0,0 +1,96 @@
+package ru.hogwarts.school.utility;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads rows of an import file one line at a time, so the file is never held in memory.
+ * CSV input starts with a header line naming the columns, NDJSON input holds one object per line.
+ * Blank lines are skipped, a malformed line fails only its own row.
+ */
+public class ImportRowReader<T> {
+    private final static char BYTE_ORDER_MARK = '\uFEFF';
+
+    private final static CsvMapper CSV_MAPPER = CsvMapper.builder()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    private final BufferedReader reader;
+
+    private final Class<T> type;
+
+    private ObjectReader rowReader;
+
+    private long line;
+
+    public ImportRowReader(InputStream input, ImportFormat format, Class<T> type, ObjectMapper objectMapper) {
+        this.reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        this.type = type;
+        if (format == ImportFormat.NDJSON) {
+            rowReader = objectMapper.readerFor(type);
+        }
+    }
+
+    /**
+     * Returns the next row or null when input is over.
+     * Throws {@link com.fasterxml.jackson.core.JsonProcessingException} if the line can't be parsed,
+     * reading can go on from the next line.
+     */
+    public T next() throws IOException {
+        String text = nextLine();
+        if (text == null) {
+            return null;
+        }
+        if (rowReader == null) {
+            rowReader = CSV_MAPPER.readerFor(type).with(parseHeader(text));
+            text = nextLine();
+            if (text == null) {
+                return null;
+            }
+        }
+        return rowReader.readValue(text);
+    }
+
+    public long getLine() {
+        return line;
+    }
+
+    private String nextLine() throws IOException {
+        String text;
+        do {
+            text = reader.readLine();
+            if (text == null) {
+                return null;
+            }
+            line++;
+        } while (text.isBlank());
+        return text;
+    }
+
+    /**
+     * Columns are read by the CSV parser itself, so quoted names are unquoted. Excel starts its exports with a BOM.
+     */
+    private CsvSchema parseHeader(String header) throws IOException {
+        if (header.charAt(0) == BYTE_ORDER_MARK) {
+            header = header.substring(1);
+        }
+        try (MappingIterator<T> columns = CSV_MAPPER.readerFor(type)
+                .with(CsvSchema.emptySchema().withHeader())
+                .with(CsvParser.Feature.TRIM_SPACES)
+                .readValues(header)) {
+            columns.hasNext();
+            return ((CsvSchema) columns.getParserSchema()).withoutHeader();
+        }
+    }
+}
@@ -1,11 +1,14 @@
 package ru.hogwarts.school.utility;
 
 import ru.hogwarts.school.exception.InvalidFacultyPropsException;
+import ru.hogwarts.school.exception.InvalidPageLimitException;
 import ru.hogwarts.school.exception.InvalidStudentPropsException;
 import ru.hogwarts.school.model.Faculty;
 import ru.hogwarts.school.model.Student;
 
 public class InputValidator {
+    public final static int MAX_PAGE_LIMIT = 1000;
+
     public static void validateAge(int age) {
         if (age < 7 || age > 20) {
             throw new InvalidStudentPropsException();
@@ -30,4 +33,10 @@ public class InputValidator {
             throw new InvalidFacultyPropsException();
         }
     }
+
+    public static void validatePageLimit(int limit) {
+        if (limit < 1 || limit > MAX_PAGE_LIMIT) {
+            throw new InvalidPageLimitException();
+        }
+    }
 }
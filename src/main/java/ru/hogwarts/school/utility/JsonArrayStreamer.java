@@ -0,0 +1,33 @@
+package ru.hogwarts.school.utility;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Writes elements to the response as a JSON array one by one,
+ * so the whole collection is never held in memory.
+ */
+public class JsonArrayStreamer {
+    public static <T> StreamingResponseBody stream(ObjectMapper mapper, Consumer<Consumer<T>> source) {
+        return outputStream -> {
+            try (JsonGenerator generator = mapper.getFactory().createGenerator(outputStream)) {
+                generator.writeStartArray();
+                source.accept(element -> write(generator, element));
+                generator.writeEndArray();
+            }
+        };
+    }
+
+    private static void write(JsonGenerator generator, Object element) {
+        try {
+            generator.writeObject(element);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package ru.hogwarts.school.utility;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Generates previews of several widths from an image decoded once.
+ * Images much larger than the largest preview are subsampled while being decoded. The decoded image is halved
+ * with bilinear interpolation until the next halving would go below the preview, then scaled to it,
+ * and every smaller preview continues from the previous one, so each step averages at most four pixels.
+ * Images are never upscaled, an image narrower than some of the widths gets one preview of its own width instead.
+ * Previews are written in the format of the image, JPEG with the given quality.
+ */
+public class PreviewPyramid {
+    private final static int SUBSAMPLING_MARGIN = 2;
+
+    public static SortedMap<Integer, byte[]> generate(byte[] content, int[] widths, float jpegQuality) throws IOException {
+        int maxWidth = Arrays.stream(widths).max().orElseThrow();
+        BufferedImage image;
+        String format;
+        try (ImageInputStream iis = ImageIO.createImageInputStream(new ByteArrayInputStream(content))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+            if (!readers.hasNext()) {
+                throw new IOException("Unsupported image format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, true, true);
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = Math.max(1, reader.getWidth(0) / (maxWidth * SUBSAMPLING_MARGIN));
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                image = reader.read(0, param);
+                format = reader.getFormatName();
+            } finally {
+                reader.dispose();
+            }
+        }
+
+        SortedMap<Integer, byte[]> previews = new TreeMap<>();
+        int[] previewWidths = Arrays.stream(widths)
+                .map(width -> Math.min(width, image.getWidth()))
+                .distinct()
+                .sorted()
+                .toArray();
+        BufferedImage current = image;
+        for (int i = previewWidths.length - 1; i >= 0; i--) {
+            int width = previewWidths[i];
+            int height = (int) Math.max(1, Math.round((double) image.getHeight() * width / image.getWidth()));
+            current = downscale(current, width, height);
+            previews.put(width, encode(current, format, jpegQuality));
+        }
+        return previews;
+    }
+
+    private static BufferedImage downscale(BufferedImage source, int width, int height) {
+        BufferedImage current = source;
+        do {
+            current = scale(current, Math.max(width, current.getWidth() / 2), Math.max(height, current.getHeight() / 2));
+        } while (current.getWidth() != width || current.getHeight() != height);
+        return current;
+    }
+
+    private static BufferedImage scale(BufferedImage source, int width, int height) {
+        int type = source.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage target = new BufferedImage(width, height, type);
+        Graphics2D graphics = target.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        graphics.drawImage(source, 0, 0, width, height, null);
+        graphics.dispose();
+        return target;
+    }
+
+    private static byte[] encode(BufferedImage image, String format, float jpegQuality) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(format);
+        if (!writers.hasNext()) {
+            throw new IOException("Images of format " + format + " can't be written");
+        }
+        ImageWriter writer = writers.next();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(baos)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (format.equalsIgnoreCase("jpeg") || format.equalsIgnoreCase("jpg")) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(jpegQuality);
+            }
+            writer.setOutput(ios);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return baos.toByteArray();
+    }
+}
@@ -0,0 +1,27 @@
+package ru.hogwarts.school.utility;
+
+/**
+ * Ways to sum numbers from 1 to n, from a plain loop to the closed formula.
+ */
+public enum SumStrategy {
+    /**
+     * Adds numbers one by one in a loop on the calling thread.
+     */
+    SEQUENTIAL,
+    /**
+     * Sums {@code LongStream.rangeClosed} on the calling thread.
+     */
+    RANGE,
+    /**
+     * Sums parallel {@code LongStream.rangeClosed}, which splits evenly, on the compute pool.
+     */
+    PARALLEL,
+    /**
+     * Splits the range in halves by a {@code RecursiveTask} on the compute pool.
+     */
+    FORK_JOIN,
+    /**
+     * Computes n * (n + 1) / 2.
+     */
+    CLOSED_FORM
+}
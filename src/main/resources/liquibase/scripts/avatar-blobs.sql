@@ -0,0 +1,16 @@
+-- liquibase formatted sql
+
+-- changeset rndmi:9
+CREATE TABLE avatar_blobs (
+    hash VARCHAR(64) NOT NULL,
+    size BIGINT NOT NULL,
+    ref_count BIGINT NOT NULL,
+    unreferenced_at TIMESTAMP WITH TIME ZONE,
+    CONSTRAINT avatar_blobs_pk PRIMARY KEY (hash)
+);
+
+-- changeset rndmi:10 dbms:postgresql
+CREATE INDEX avatar_blobs_unreferenced_idx ON avatar_blobs(unreferenced_at) WHERE ref_count = 0;
+
+-- changeset rndmi:11
+ALTER TABLE avatars ADD COLUMN blob_hash VARCHAR(64);
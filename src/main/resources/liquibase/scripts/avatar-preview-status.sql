@@ -0,0 +1,9 @@
+-- liquibase formatted sql
+
+-- changeset rndmi:8
+ALTER TABLE avatars ADD COLUMN preview_status VARCHAR(16);
+UPDATE avatars SET preview_status = 'READY' WHERE preview IS NOT NULL;
+UPDATE avatars SET preview_status = 'FAILED' WHERE preview IS NULL;
+
+-- changeset rndmi:13
+ALTER TABLE avatars ADD COLUMN preview_requested_at TIMESTAMP WITH TIME ZONE;
@@ -0,0 +1,12 @@
+-- liquibase formatted sql
+
+-- changeset rndmi:12
+CREATE TABLE avatar_previews (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    avatar_id BIGINT NOT NULL,
+    width INTEGER NOT NULL,
+    data BYTEA,
+    CONSTRAINT avatar_previews_pk PRIMARY KEY (id),
+    CONSTRAINT avatar_previews_avatar_fk FOREIGN KEY (avatar_id) REFERENCES avatars(id) ON DELETE CASCADE
+);
+CREATE INDEX avatar_previews_avatar_idx ON avatar_previews(avatar_id, width);
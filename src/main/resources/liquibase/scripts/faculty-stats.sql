@@ -0,0 +1,13 @@
+-- liquibase formatted sql
+
+-- changeset rndmi:4
+CREATE TABLE faculty_stats (
+    faculty_id BIGINT NOT NULL,
+    age INTEGER NOT NULL,
+    student_count BIGINT NOT NULL,
+    CONSTRAINT faculty_stats_pk PRIMARY KEY (faculty_id, age)
+);
+
+-- changeset rndmi:5
+INSERT INTO faculty_stats (faculty_id, age, student_count)
+SELECT COALESCE(faculty_id, 0), age, COUNT(*) FROM students GROUP BY COALESCE(faculty_id, 0), age;
@@ -0,0 +1,9 @@
+-- liquibase formatted sql
+
+-- changeset rndmi:6 dbms:postgresql
+CREATE SEQUENCE IF NOT EXISTS students_seq INCREMENT BY 50;
+SELECT setval('students_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM students), false);
+
+-- changeset rndmi:7 dbms:postgresql
+CREATE SEQUENCE IF NOT EXISTS faculties_seq INCREMENT BY 50;
+SELECT setval('faculties_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM faculties), false);
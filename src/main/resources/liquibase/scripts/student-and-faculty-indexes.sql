@@ -5,3 +5,6 @@ CREATE INDEX students_n_idx ON students(name);
 
 -- changeset rndmi:2
 CREATE INDEX faculties_nc_idx ON faculties(name, color);
+
+-- changeset rndmi:3 dbms:postgresql
+CREATE INDEX students_n_pattern_idx ON students(name varchar_pattern_ops);
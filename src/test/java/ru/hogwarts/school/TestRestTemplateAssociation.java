@@ -0,0 +1,131 @@
+package ru.hogwarts.school;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import ru.hogwarts.school.dto.StudentStatistics;
+import ru.hogwarts.school.model.Faculty;
+import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.service.AssociationService;
+import ru.hogwarts.school.service.StudentService;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static ru.hogwarts.school.constants.Constants.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class TestRestTemplateAssociation {
+    private final static int STUDENTS_COUNT = 3;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private StudentService studentService;
+
+    @Autowired
+    private AssociationService associationService;
+
+    private Faculty from;
+
+    private Faculty to;
+
+    private final List<Long> studentIds = new ArrayList<>();
+
+    @BeforeEach
+    public void setup() {
+        from = restTemplate.postForObject(getUrlWithPort() + "/faculties", new Faculty(0, TEST, COLOR), Faculty.class);
+        to = restTemplate.postForObject(getUrlWithPort() + "/faculties", new Faculty(0, TEST2, COLOR), Faculty.class);
+        for (int i = 0; i < STUDENTS_COUNT; i++) {
+            Student student = restTemplate.postForObject(getUrlWithPort() + "/students/" + from.getId(),
+                    new Student(0, TEST3 + i, AGE, null), Student.class);
+            studentIds.add(student.getId());
+        }
+    }
+
+    @AfterEach
+    public void cleanup() {
+        studentIds.forEach(id -> restTemplate.delete(getUrlWithPort() + "/students/" + id));
+        studentIds.clear();
+        restTemplate.delete(getUrlWithPort() + "/faculties/" + from.getId());
+        restTemplate.delete(getUrlWithPort() + "/faculties/" + to.getId());
+    }
+
+    @Test
+    public void testChangeStudentsInFaculty() {
+        ResponseEntity<Student[]> response = changeStudents(to.getId(), studentIds);
+        assertTrue(response.getStatusCode().is2xxSuccessful());
+        Student[] moved = response.getBody();
+
+        assertEquals(STUDENTS_COUNT, moved.length);
+        for (Student student : moved) {
+            assertEquals(to, student.getFaculty());
+            assertEquals(to, restTemplate.getForObject(getUrlWithPort() + "/students/" + student.getId() + "/faculty",
+                    Faculty.class));
+        }
+        assertEquals(STUDENTS_COUNT, getStatistics(to.getId()).studentCount());
+        assertEquals(0, getStatistics(from.getId()).studentCount());
+    }
+
+    @Test
+    public void changeStudentsInFaculty_shouldNotMoveAnyoneIfStudentDoesNotExist() {
+        List<Long> ids = new ArrayList<>(studentIds);
+        ids.add(ID * 1000);
+
+        ResponseEntity<String> response = changeStudentsForAnswer(to.getId(), ids);
+        assertEquals(404, response.getStatusCode().value());
+        for (long id : studentIds) {
+            assertEquals(from, restTemplate.getForObject(getUrlWithPort() + "/students/" + id + "/faculty",
+                    Faculty.class));
+        }
+        assertEquals(STUDENTS_COUNT, getStatistics(from.getId()).studentCount());
+    }
+
+    @Test
+    public void changeFacultyForStudent_shouldNotChangeCachedStudent() {
+        long id = studentIds.get(0);
+        Student cached = studentService.getStudent(id);
+
+        Student changed = associationService.changeFacultyForStudent(id, to.getId());
+        assertEquals(to, changed.getFaculty());
+        assertEquals(from, cached.getFaculty());
+        assertEquals(to, studentService.getStudent(id).getFaculty());
+        assertEquals(to, restTemplate.getForObject(getUrlWithPort() + "/students/" + id + "/faculty", Faculty.class));
+    }
+
+    @Test
+    public void changeStudentsInFaculty_shouldThrowIfFacultyDoesNotExist() {
+        ResponseEntity<String> response = changeStudentsForAnswer(ID * 1000, studentIds);
+        assertEquals(404, response.getStatusCode().value());
+    }
+
+    private ResponseEntity<Student[]> changeStudents(long facultyId, List<Long> ids) {
+        return restTemplate.exchange(getUrlWithPort() + "/associations/faculty/" + facultyId + "/change-students",
+                HttpMethod.PUT, new HttpEntity<>(ids), Student[].class);
+    }
+
+    private ResponseEntity<String> changeStudentsForAnswer(long facultyId, List<Long> ids) {
+        return restTemplate.exchange(getUrlWithPort() + "/associations/faculty/" + facultyId + "/change-students",
+                HttpMethod.PUT, new HttpEntity<>(ids), String.class);
+    }
+
+    private StudentStatistics getStatistics(long facultyId) {
+        return restTemplate.getForObject(getUrlWithPort() + "/faculties/" + facultyId + "/stats", StudentStatistics.class);
+    }
+
+    private String getUrlWithPort() {
+        return "http://localhost:" + port;
+    }
+}
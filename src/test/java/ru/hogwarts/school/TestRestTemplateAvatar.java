@@ -0,0 +1,234 @@
+package ru.hogwarts.school;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import ru.hogwarts.school.dto.AvatarInfo;
+import ru.hogwarts.school.dto.AvatarPreview;
+import ru.hogwarts.school.model.Avatar;
+import ru.hogwarts.school.model.Faculty;
+import ru.hogwarts.school.model.PreviewStatus;
+import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.repository.AvatarRepository;
+import ru.hogwarts.school.service.AvatarPreviewService;
+import ru.hogwarts.school.service.AvatarService;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static ru.hogwarts.school.constants.Constants.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class TestRestTemplateAvatar {
+    private final static byte[] PREVIEW = {1, 2, 3, 4, 5, 6, 7, 8, 9};
+
+    private final static String MEDIA_TYPE = "image/png";
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private AvatarRepository avatarRepository;
+
+    @Autowired
+    private AvatarPreviewService avatarPreviewService;
+
+    private Faculty faculty;
+
+    private Student student;
+
+    private Avatar avatar;
+
+    @BeforeEach
+    public void setup() {
+        faculty = restTemplate.postForObject(getUrlWithPort() + "/faculties", new Faculty(0, TEST, COLOR), Faculty.class);
+        student = restTemplate.postForObject(getUrlWithPort() + "/students/" + faculty.getId(),
+                new Student(0, TEST3, AGE, null), Student.class);
+        avatar = new Avatar();
+        avatar.setFilePath(student.getId() + ".png");
+        avatar.setFileSize(PREVIEW.length * 100);
+        avatar.setMediaType(MEDIA_TYPE);
+        avatar.setPreview(PREVIEW);
+        avatar.setPreviewStatus(PreviewStatus.READY);
+        avatar.setStudent(student);
+        avatar = avatarRepository.save(avatar);
+    }
+
+    @AfterEach
+    public void cleanup() {
+        avatarRepository.deleteById(avatar.getId());
+        restTemplate.delete(getUrlWithPort() + "/students/" + student.getId());
+        restTemplate.delete(getUrlWithPort() + "/faculties/" + faculty.getId());
+    }
+
+    @Test
+    public void testGetAvatarsPerPage() {
+        String body = restTemplate.getForObject(getUrlWithPort() + "/avatars?page=1&limit=10", String.class);
+        assertFalse(body.contains(Base64.getEncoder().encodeToString(PREVIEW)));
+
+        AvatarInfo[] avatars = restTemplate.getForObject(getUrlWithPort() + "/avatars?page=1&limit=10",
+                AvatarInfo[].class);
+        AvatarInfo expected = new AvatarInfo(avatar.getId(), student.getId(), avatar.getFileSize(), MEDIA_TYPE,
+                PreviewStatus.READY);
+        assertTrue(Arrays.asList(avatars).contains(expected));
+        assertEquals("/avatars/" + student.getId() + "/preview", expected.previewUrl());
+    }
+
+    @Test
+    public void testGetPreviews() {
+        AvatarPreview[] previews = restTemplate.getForObject(getUrlWithPort() + "/avatars/previews?studentIds="
+                + student.getId() + "," + (student.getId() + ID * 1000), AvatarPreview[].class);
+
+        assertEquals(1, previews.length);
+        assertEquals(student.getId(), previews[0].studentId());
+        assertArrayEquals(PREVIEW, previews[0].preview());
+
+        ResponseEntity<byte[]> preview = restTemplate.getForEntity(getUrlWithPort() + "/avatars/" + student.getId()
+                + "/preview", byte[].class);
+        assertEquals(HttpStatus.OK, preview.getStatusCode());
+        assertArrayEquals(PREVIEW, preview.getBody());
+        // avatars with a single preview serve it for any width
+        assertArrayEquals(PREVIEW, restTemplate.getForObject(getUrlWithPort() + "/avatars/" + student.getId()
+                + "/preview?w=256", byte[].class));
+    }
+
+    @Test
+    public void getPreview_shouldAnswerAcceptedWhilePreviewIsPending() {
+        avatar.setPreview(null);
+        avatar.setPreviewStatus(PreviewStatus.PENDING);
+        avatar = avatarRepository.save(avatar);
+
+        ResponseEntity<byte[]> preview = restTemplate.getForEntity(getUrlWithPort() + "/avatars/" + student.getId()
+                + "/preview", byte[].class);
+        assertEquals(HttpStatus.ACCEPTED, preview.getStatusCode());
+        assertNotNull(preview.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+
+        avatar.setPreviewStatus(PreviewStatus.FAILED);
+        avatar = avatarRepository.save(avatar);
+        assertEquals(HttpStatus.NOT_FOUND, restTemplate.getForEntity(getUrlWithPort() + "/avatars/" + student.getId()
+                + "/preview", String.class).getStatusCode());
+    }
+
+    @Test
+    public void testUploadAvatar() throws Exception {
+        Student other = restTemplate.postForObject(getUrlWithPort() + "/students/" + faculty.getId(),
+                new Student(0, TEST2, AGE, null), Student.class);
+        byte[] image = createImage();
+
+        assertEquals(HttpStatus.OK, uploadAvatar(student.getId(), image).getStatusCode());
+        assertEquals(HttpStatus.OK, uploadAvatar(other.getId(), image).getStatusCode());
+
+        String hash = avatarRepository.findByStudentId(student.getId()).orElseThrow().getBlobHash();
+        assertNotNull(hash);
+        assertEquals(hash, avatarRepository.findByStudentId(other.getId()).orElseThrow().getBlobHash());
+        assertArrayEquals(image, restTemplate.getForObject(getUrlWithPort() + "/avatars/" + other.getId() + "/real",
+                byte[].class));
+
+        ResponseEntity<byte[]> preview = getPreviewWhenReady(other.getId());
+        assertEquals(HttpStatus.OK, preview.getStatusCode());
+        BufferedImage previewImage = ImageIO.read(new ByteArrayInputStream(preview.getBody()));
+        assertEquals(64, previewImage.getWidth());
+        assertEquals(128, getPreviewWidth(other.getId(), 100));
+        assertEquals(200, getPreviewWidth(other.getId(), 1000));
+
+        restTemplate.delete(getUrlWithPort() + "/students/" + other.getId());
+        getPreviewWhenReady(student.getId());
+    }
+
+    @Test
+    public void retryPendingPreviews_shouldGenerateStalePreviewAgain() throws Exception {
+        assertEquals(HttpStatus.OK, uploadAvatar(student.getId(), createImage()).getStatusCode());
+        assertEquals(HttpStatus.OK, getPreviewWhenReady(student.getId()).getStatusCode());
+        Avatar uploaded = avatarRepository.findByStudentId(student.getId()).orElseThrow();
+        uploaded.setPreview(null);
+        uploaded.setPreviewStatus(PreviewStatus.PENDING);
+        uploaded.setPreviewRequestedAt(Instant.now().minus(Duration.ofHours(1)));
+        avatarRepository.save(uploaded);
+
+        avatarPreviewService.retryPendingPreviews();
+
+        ResponseEntity<byte[]> preview = getPreviewWhenReady(student.getId());
+        assertEquals(HttpStatus.OK, preview.getStatusCode());
+        assertEquals(64, ImageIO.read(new ByteArrayInputStream(preview.getBody())).getWidth());
+    }
+
+    @Test
+    public void testUploadInvalidAvatar() {
+        for (int size : new int[]{AvatarService.MAX_AVATAR_SIZE + 1, 1024 * 400}) {
+            ResponseEntity<String> response = uploadAvatar(student.getId(), new byte[size]);
+            assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+            assertEquals("close", response.getHeaders().getFirst(HttpHeaders.CONNECTION));
+        }
+
+        MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
+        body.add(TEST, TEST);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+        assertEquals(HttpStatus.BAD_REQUEST, restTemplate.postForEntity(getUrlWithPort() + "/avatars/" + student.getId(),
+                new HttpEntity<>(body, headers), String.class).getStatusCode());
+    }
+
+    private ResponseEntity<String> uploadAvatar(long studentId, byte[] image) {
+        HttpHeaders partHeaders = new HttpHeaders();
+        partHeaders.setContentType(MediaType.IMAGE_PNG);
+        partHeaders.setContentDisposition(ContentDisposition.formData().name("avatar").filename("avatar.png").build());
+        MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
+        body.add("avatar", new HttpEntity<>(image, partHeaders));
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+        return restTemplate.postForEntity(getUrlWithPort() + "/avatars/" + studentId, new HttpEntity<>(body, headers),
+                String.class);
+    }
+
+    private int getPreviewWidth(long studentId, int width) throws IOException {
+        byte[] preview = restTemplate.getForObject(getUrlWithPort() + "/avatars/" + studentId + "/preview?w=" + width,
+                byte[].class);
+        return ImageIO.read(new ByteArrayInputStream(preview)).getWidth();
+    }
+
+    private ResponseEntity<byte[]> getPreviewWhenReady(long studentId) throws InterruptedException {
+        ResponseEntity<byte[]> preview;
+        int attempts = 0;
+        do {
+            Thread.sleep(50);
+            preview = restTemplate.getForEntity(getUrlWithPort() + "/avatars/" + studentId + "/preview", byte[].class);
+        } while (preview.getStatusCode() == HttpStatus.ACCEPTED && ++attempts < 100);
+        return preview;
+    }
+
+    private byte[] createImage() throws IOException {
+        BufferedImage image = new BufferedImage(200, 120, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(10, 10, 0xFF0000);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", baos);
+        return baos.toByteArray();
+    }
+
+    private String getUrlWithPort() {
+        return "http://localhost:" + port;
+    }
+}
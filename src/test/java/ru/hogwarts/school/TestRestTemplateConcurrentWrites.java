@@ -0,0 +1,165 @@
+package ru.hogwarts.school;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import ru.hogwarts.school.dto.StudentStatistics;
+import ru.hogwarts.school.model.Faculty;
+import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.repository.AvatarBlobRepository;
+import ru.hogwarts.school.repository.AvatarRepository;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static ru.hogwarts.school.constants.Constants.*;
+
+/**
+ * Sends the same kind of write from many threads at once, so rows created on the first write race each other.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class TestRestTemplateConcurrentWrites {
+    private final static int THREADS = 8;
+
+    private final static int ROUNDS = 10;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private AvatarRepository avatarRepository;
+
+    @Autowired
+    private AvatarBlobRepository avatarBlobRepository;
+
+    @Test
+    public void studentsOfNewBucket_shouldAllBeCreatedAndCounted() throws Exception {
+        Faculty faculty = restTemplate.postForObject(getUrlWithPort() + "/faculties",
+                new Faculty(0, TEST + "-concurrent", COLOR), Faculty.class);
+        List<Long> ids = new ArrayList<>();
+
+        for (int round = 0; round < ROUNDS; round++) {
+            int age = 7 + round;
+            List<ResponseEntity<Student>> responses = concurrently(thread -> restTemplate.postForEntity(
+                    getUrlWithPort() + "/students/" + faculty.getId(),
+                    new Student(0, TEST + "-" + age + "-" + thread, age, null), Student.class));
+            for (ResponseEntity<Student> response : responses) {
+                assertEquals(HttpStatus.OK, response.getStatusCode());
+                ids.add(response.getBody().getId());
+            }
+        }
+
+        StudentStatistics statistics = restTemplate.getForObject(
+                getUrlWithPort() + "/faculties/" + faculty.getId() + "/stats", StudentStatistics.class);
+        assertEquals(THREADS * ROUNDS, statistics.studentCount());
+        Map<Integer, Long> expected = new HashMap<>();
+        for (int round = 0; round < ROUNDS; round++) {
+            expected.put(7 + round, (long) THREADS);
+        }
+        assertEquals(expected, statistics.ageHistogram());
+
+        restTemplate.delete(getUrlWithPort() + "/students?ids=" +
+                ids.stream().map(String::valueOf).collect(Collectors.joining(",")));
+        restTemplate.delete(getUrlWithPort() + "/faculties/" + faculty.getId());
+    }
+
+    @Test
+    public void sameAvatarOfManyStudents_shouldBeStoredOnceAndCounted() throws Exception {
+        Faculty faculty = restTemplate.postForObject(getUrlWithPort() + "/faculties",
+                new Faculty(0, TEST2 + "-concurrent", COLOR), Faculty.class);
+        List<Long> ids = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            ids.add(restTemplate.postForObject(getUrlWithPort() + "/students/" + faculty.getId(),
+                    new Student(0, TEST2 + "-avatar-" + thread, AGE, null), Student.class).getId());
+        }
+
+        String hash = null;
+        for (int round = 0; round < ROUNDS; round++) {
+            byte[] image = createImage(round);
+            List<ResponseEntity<String>> responses = concurrently(thread -> uploadAvatar(ids.get(thread), image));
+            responses.forEach(response -> assertEquals(HttpStatus.OK, response.getStatusCode()));
+            hash = avatarRepository.findByStudentId(ids.get(0)).orElseThrow().getBlobHash();
+        }
+        assertEquals(THREADS, avatarBlobRepository.findById(hash).orElseThrow().getRefCount());
+
+        restTemplate.delete(getUrlWithPort() + "/students?ids=" +
+                ids.stream().map(String::valueOf).collect(Collectors.joining(",")));
+        // all references of the shared blob are released by one update
+        assertEquals(0, avatarBlobRepository.findById(hash).orElseThrow().getRefCount());
+        restTemplate.delete(getUrlWithPort() + "/faculties/" + faculty.getId());
+    }
+
+    private <T> List<T> concurrently(Function<Integer, T> request) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<T>> futures = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                int number = thread;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return request.apply(number);
+                }));
+            }
+            start.countDown();
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private ResponseEntity<String> uploadAvatar(long studentId, byte[] image) {
+        HttpHeaders partHeaders = new HttpHeaders();
+        partHeaders.setContentType(MediaType.IMAGE_PNG);
+        partHeaders.setContentDisposition(ContentDisposition.formData().name("avatar").filename("avatar.png").build());
+        MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
+        body.add("avatar", new HttpEntity<>(image, partHeaders));
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+        return restTemplate.postForEntity(getUrlWithPort() + "/avatars/" + studentId, new HttpEntity<>(body, headers),
+                String.class);
+    }
+
+    private byte[] createImage(int round) throws IOException {
+        BufferedImage image = new BufferedImage(40, 30, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(round, round, 0xFF0000);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", baos);
+        return baos.toByteArray();
+    }
+
+    private String getUrlWithPort() {
+        return "http://localhost:" + port;
+    }
+}
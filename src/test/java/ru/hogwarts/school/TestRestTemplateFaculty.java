@@ -8,11 +8,21 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import ru.hogwarts.school.controller.FacultyController;
+import ru.hogwarts.school.dto.FacultyDeletion;
+import ru.hogwarts.school.dto.ImportReport;
+import ru.hogwarts.school.dto.StudentStatistics;
 import ru.hogwarts.school.model.Faculty;
 import ru.hogwarts.school.model.Student;
 
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static ru.hogwarts.school.constants.Constants.*;
@@ -97,6 +107,31 @@ class TestRestTemplateFaculty {
         assertTrue(answer.contains(NOT_FOUND));
     }
 
+    @Test
+    public void testDeleteFacultyInBackground() throws InterruptedException {
+        Faculty faculty = createTestFaculty(FACULTY);
+        addTestStudent(faculty.getId());
+
+        ResponseEntity<FacultyDeletion> response = restTemplate.exchange(
+                getUrlWithPort() + "/" + faculty.getId() + "?async=true", HttpMethod.DELETE, null, FacultyDeletion.class);
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertEquals(1, response.getBody().students());
+        String location = response.getHeaders().getLocation().toString();
+        assertTrue(location.endsWith("/faculties/" + faculty.getId() + "/deletion"));
+
+        FacultyDeletion deletion = response.getBody();
+        for (int i = 0; i < 100 && deletion.status() == FacultyDeletion.Status.RUNNING; i++) {
+            Thread.sleep(50);
+            deletion = restTemplate.getForObject("http://localhost:" + port + location, FacultyDeletion.class);
+        }
+        assertEquals(FacultyDeletion.Status.DONE, deletion.status());
+        assertEquals(1, deletion.movedStudents());
+        assertTrue(restTemplate.getForObject(getUrlWithPort() + "/" + faculty.getId(), String.class).contains(NOT_FOUND));
+        assertNull(restTemplate.getForObject("http://localhost:" + port + "/students/" + studentId, Student.class)
+                .getFaculty());
+        deleteTestStudent();
+    }
+
     @Test
     public void testGetFacultiesOfColor() {
         Faculty faculty1 = createTestFaculty(FACULTY);
@@ -158,6 +193,7 @@ class TestRestTemplateFaculty {
         assertEquals(AGE, facultyStudents.get(0).getAge());
 
         deleteTestStudent();
+        deleteFaculty(faculty.getId());
     }
 
     @Test
@@ -175,6 +211,77 @@ class TestRestTemplateFaculty {
         deleteFaculty(faculty2.getId());
     }
 
+    @Test
+    public void testGetFacultiesPage() {
+        Faculty faculty = createTestFaculty(FACULTY);
+        Faculty faculty2 = createTestFaculty(FACULTY2);
+
+        String url = getUrlWithPort() + "?after=" + faculty.getId() + "&limit=10";
+        Faculty[] page = restTemplate.getForObject(url, Faculty[].class);
+        assertEquals(1, page.length);
+        assertEquals(faculty2.getId(), page[0].getId());
+
+        deleteFaculty(faculty.getId());
+        deleteFaculty(faculty2.getId());
+    }
+
+    @Test
+    public void testStreamAllFaculties() {
+        Faculty faculty = createTestFaculty(FACULTY);
+        Faculty faculty2 = createTestFaculty(FACULTY2);
+
+        List<Faculty> allFaculties = List.of(restTemplate.getForObject(getUrlWithPort() + "/stream", Faculty[].class));
+        assertTrue(allFaculties.contains(faculty));
+        assertTrue(allFaculties.contains(faculty2));
+
+        deleteFaculty(faculty.getId());
+        deleteFaculty(faculty2.getId());
+    }
+
+    @Test
+    public void testGetFacultyStatistics() {
+        Faculty faculty = createTestFaculty(new Faculty(0, TEST3, COLOR));
+        addTestStudent(faculty.getId());
+        String url = getUrlWithPort() + "/" + faculty.getId() + "/stats";
+
+        StudentStatistics statistics = restTemplate.getForObject(url, StudentStatistics.class);
+        assertEquals(1, statistics.studentCount());
+        assertEquals(AGE, statistics.ageSum());
+        assertEquals(AGE, statistics.averageAge());
+        assertEquals(AGE, statistics.minAge());
+        assertEquals(AGE, statistics.maxAge());
+        assertEquals(Map.of(AGE, 1L), statistics.ageHistogram());
+
+        Student student2 = restTemplate.postForObject("http://localhost:" + port + "/students/" + faculty.getId(),
+                new Student(0, TEST3, AGE2, null), Student.class);
+        deleteTestStudent();
+        assertEquals(Map.of(AGE2, 1L), restTemplate.getForObject(url, StudentStatistics.class).ageHistogram());
+
+        restTemplate.delete("http://localhost:" + port + "/students/" + student2.getId());
+        deleteFaculty(faculty.getId());
+        assertTrue(restTemplate.getForObject(url, String.class).contains(NOT_FOUND));
+    }
+
+    @Test
+    public void testImportFacultiesFromCsv() {
+        String csv = "name,color\n" +
+                TEST3 + "," + COLOR + "\n" +
+                TEST3 + TEST + ",\n" +
+                TEST3 + "," + COLOR + "\n";
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.valueOf("text/csv"));
+
+        ImportReport report = restTemplate.postForObject(getUrlWithPort() + "/import", new HttpEntity<>(csv, headers),
+                ImportReport.class);
+        assertEquals(1, report.imported());
+        assertEquals(2, report.failed());
+        assertEquals(3, report.errors().get(0).line());
+        assertEquals(4, report.errors().get(1).line());
+
+        Faculty[] imported = restTemplate.getForObject(getUrlWithPort() + "/multi-search?name=" + TEST3, Faculty[].class);
+        assertEquals(1, imported.length);
+        deleteFaculty(imported[0].getId());
+    }
 
     private Faculty getFaculty(long id) {
         return restTemplate.getForObject(getUrlWithPort() + "/" + id, Faculty.class);
@@ -0,0 +1,46 @@
+package ru.hogwarts.school;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static ru.hogwarts.school.constants.Constants.ID;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureObservability
+class TestRestTemplateMetrics {
+    private final static long MISSING_ID = ID * 1000;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    public void prometheusEndpointExposesTimersExceptionCountersAndPool() {
+        assertEquals(HttpStatus.NOT_FOUND, restTemplate.getForEntity(
+                getUrlWithPort() + "/students/" + MISSING_ID, String.class).getStatusCode());
+
+        String metrics = restTemplate.getForObject(getUrlWithPort() + "/actuator/prometheus", String.class);
+        assertTrue(metrics.contains("http_server_requests_seconds_bucket"));
+        assertTrue(metrics.contains("uri=\"/students/{id}\""));
+        assertTrue(metrics.contains("school_service_seconds_bucket"));
+        assertTrue(metrics.contains("class=\"ru.hogwarts.school.service.StudentServiceImpl\""));
+        assertTrue(metrics.contains("method=\"getStudent\""));
+        assertTrue(metrics.lines().anyMatch(line -> line.startsWith("school_exceptions_total")
+                && line.contains("exception=\"StudentNotFoundException\"")));
+        assertTrue(metrics.contains("hikaricp_connections_acquire_seconds_bucket{pool=\"school\""));
+        assertTrue(metrics.contains("hikaricp_connections_usage_seconds_bucket{pool=\"school\""));
+        assertTrue(metrics.contains("hikaricp_connections_pending{pool=\"school\""));
+    }
+
+    private String getUrlWithPort() {
+        return "http://localhost:" + port;
+    }
+}
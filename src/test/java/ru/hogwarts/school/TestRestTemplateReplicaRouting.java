@@ -0,0 +1,164 @@
+package ru.hogwarts.school;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import ru.hogwarts.school.configuration.ReplicaRoutingDataSource;
+import ru.hogwarts.school.model.Faculty;
+import ru.hogwarts.school.model.Student;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static ru.hogwarts.school.configuration.ReadYourWritesFilter.PRIMARY_UNTIL_COOKIE;
+import static ru.hogwarts.school.constants.Constants.*;
+
+/**
+ * Runs against two H2 databases, the replica is a copy of the primary taken by a script,
+ * so writes made after the copy show which database has answered a read.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=" + TestRestTemplateReplicaRouting.PRIMARY_URL,
+        "datasource.replicas.urls=" + TestRestTemplateReplicaRouting.REPLICA_URL,
+        "datasource.replicas.lag-query=SELECT COALESCE(MAX(seconds), 0) FROM replica_lag",
+        "datasource.replicas.max-lag=PT5S",
+        "datasource.replicas.lag-check-interval=PT1H"})
+class TestRestTemplateReplicaRouting {
+    final static String PRIMARY_URL = "jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1;MODE=PostgreSQL";
+
+    final static String REPLICA_URL = "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1;MODE=PostgreSQL";
+
+    private final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private HikariDataSource primaryDataSource;
+
+    @Autowired
+    private ReplicaRoutingDataSource routingDataSource;
+
+    private long facultyId;
+
+    private Student copiedStudent;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        facultyId = restTemplate.postForObject(getUrlWithPort() + "/faculties",
+                new Faculty(0, TEST, COLOR), Faculty.class).getId();
+        copiedStudent = createStudent(TEST).getBody();
+        replicate();
+    }
+
+    @AfterEach
+    public void cleanup() {
+        restTemplate.delete(getUrlWithPort() + "/students/" + copiedStudent.getId());
+        restTemplate.delete(getUrlWithPort() + "/faculties/" + facultyId);
+    }
+
+    @Test
+    public void readOnlyRequests_shouldGoToReplica() {
+        Student student = createStudent(TEST2).getBody();
+
+        assertEquals(List.of(copiedStudent.getName()), getNamesOfAge(null));
+        restTemplate.delete(getUrlWithPort() + "/students/" + student.getId());
+    }
+
+    @Test
+    public void readOnlyRequests_shouldStayOnPrimaryAfterWrite() {
+        ResponseEntity<Student> response = createStudent(TEST2);
+        String cookie = response.getHeaders().getFirst(HttpHeaders.SET_COOKIE);
+        assertNotNull(cookie);
+        assertTrue(cookie.startsWith(PRIMARY_UNTIL_COOKIE + "="));
+
+        assertEquals(List.of(TEST, TEST2), getNamesOfAge(cookie.substring(0, cookie.indexOf(';'))));
+        restTemplate.delete(getUrlWithPort() + "/students/" + response.getBody().getId());
+    }
+
+    @Test
+    public void readOnlyRequests_shouldFallBackToPrimaryIfReplicaLags() {
+        Student student = createStudent(TEST2).getBody();
+        replica.update("INSERT INTO replica_lag VALUES (60)");
+        routingDataSource.checkLag();
+
+        assertEquals(List.of(TEST, TEST2), getNamesOfAge(null));
+        restTemplate.delete(getUrlWithPort() + "/students/" + student.getId());
+    }
+
+    @Test
+    public void cachedLookups_shouldGoToPrimary() {
+        Faculty faculty = restTemplate.postForObject(getUrlWithPort() + "/faculties",
+                new Faculty(0, TEST2, COLOR), Faculty.class);
+        Student student = restTemplate.postForObject(getUrlWithPort() + "/students/" + faculty.getId(),
+                new Student(0, TEST2, AGE, null), Student.class);
+
+        for (int i = 0; i < 2; i++) {
+            ResponseEntity<Student> response = restTemplate.getForEntity(
+                    getUrlWithPort() + "/students/" + student.getId(), Student.class);
+            assertEquals(student.getName(), response.getBody().getName());
+            assertNull(response.getHeaders().getFirst(HttpHeaders.SET_COOKIE));
+            assertEquals(faculty, restTemplate.getForObject(
+                    getUrlWithPort() + "/students/" + student.getId() + "/faculty", Faculty.class));
+            assertEquals(faculty, restTemplate.getForObject(
+                    getUrlWithPort() + "/faculties/" + faculty.getId(), Faculty.class));
+        }
+        assertEquals(List.of(copiedStudent.getName()), getNamesOfAge(null));
+
+        restTemplate.delete(getUrlWithPort() + "/students/" + student.getId());
+        restTemplate.delete(getUrlWithPort() + "/faculties/" + faculty.getId());
+    }
+
+    /**
+     * Replaces the replica by a copy of the primary, which has no lag.
+     */
+    private void replicate() throws Exception {
+        Path script = Files.createTempFile("replica", ".sql");
+        try {
+            new JdbcTemplate(primaryDataSource).execute("SCRIPT TO '" + script + "'");
+            replica.execute("DROP ALL OBJECTS");
+            replica.execute("RUNSCRIPT FROM '" + script + "'");
+            replica.execute("CREATE TABLE replica_lag (seconds DOUBLE)");
+        } finally {
+            Files.delete(script);
+        }
+        routingDataSource.checkLag();
+    }
+
+    private ResponseEntity<Student> createStudent(String name) {
+        return restTemplate.postForEntity(getUrlWithPort() + "/students/" + facultyId,
+                new Student(0, name, AGE, null), Student.class);
+    }
+
+    private List<String> getNamesOfAge(String cookie) {
+        HttpHeaders headers = new HttpHeaders();
+        if (cookie != null) {
+            headers.add(HttpHeaders.COOKIE, cookie);
+        }
+        List<Student> students = restTemplate.exchange(getUrlWithPort() + "/students/search?age=" + AGE,
+                HttpMethod.GET, new HttpEntity<>(headers), new ParameterizedTypeReference<List<Student>>() {
+                }).getBody();
+        return students.stream().map(Student::getName).sorted().toList();
+    }
+
+    private String getUrlWithPort() {
+        return "http://localhost:" + port;
+    }
+}
@@ -0,0 +1,281 @@
+package ru.hogwarts.school;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import ru.hogwarts.school.model.Faculty;
+import ru.hogwarts.school.model.Student;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static ru.hogwarts.school.constants.Constants.*;
+
+/**
+ * Counts SQL statements issued by every endpoint of students and faculties resources,
+ * so any extra round trip to the database breaks the build.
+ * Open-in-view is disabled, so an entity is looked up once per transaction, not per request,
+ * and every write endpoint runs its lookups in a single transaction.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class TestRestTemplateStatementCount {
+    private final static long MISSING_ID = ID * 1000;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    private long facultyId;
+
+    private long studentId;
+
+    @BeforeEach
+    public void setup() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Faculty faculty = restTemplate.postForObject(getFacultiesUrl(), new Faculty(0, TEST3, COLOR), Faculty.class);
+        facultyId = faculty.getId();
+        Student student = restTemplate.postForObject(getStudentsUrl() + "/" + facultyId,
+                new Student(0, TEST3, AGE, null), Student.class);
+        studentId = student.getId();
+    }
+
+    @AfterEach
+    public void cleanup() {
+        restTemplate.delete(getStudentsUrl() + "/" + studentId);
+        restTemplate.delete(getFacultiesUrl() + "/" + facultyId);
+    }
+
+    @Test
+    public void studentLookupEndpoints() {
+        assertStatements(1, () -> restTemplate.getForObject(getStudentsUrl() + "/" + studentId, String.class));
+        assertStatements(0, () -> restTemplate.getForObject(getStudentsUrl() + "/" + studentId, String.class));
+        assertStatements(1, () -> restTemplate.getForObject(getStudentsUrl() + "/" + MISSING_ID, String.class));
+        assertStatements(1, () -> restTemplate.getForObject(getStudentsUrl() + "/" + studentId + "/faculty", String.class));
+        assertStatements(0, () -> restTemplate.getForObject(getStudentsUrl() + "/" + studentId + "/faculty", String.class));
+
+        String statistics = restTemplate.getForObject("http://localhost:" + port + "/caches/statistics", String.class);
+        assertTrue(statistics.contains("\"name\":\"students\""));
+        assertTrue(statistics.contains("\"hitCount\""));
+    }
+
+    @Test
+    public void reassignmentLoadsStudentOnce() {
+        Faculty faculty = restTemplate.postForObject(getFacultiesUrl(), new Faculty(0, TEST2, COLOR), Faculty.class);
+        // student, new faculty, update of the student and decrement of the old bucket,
+        // the bucket of the new faculty doesn't exist yet, so it is inserted after a missed update
+        assertStatements(6, () -> restTemplate.put(getAssociationsUrl() + "/student/" + studentId
+                + "/change-faculty/" + faculty.getId(), null));
+
+        restTemplate.put(getAssociationsUrl() + "/student/" + studentId + "/change-faculty/" + facultyId, null);
+        restTemplate.delete(getFacultiesUrl() + "/" + faculty.getId());
+    }
+
+    @Test
+    public void cachedLookupsAreEvictedOnReassignment() {
+        Faculty faculty = restTemplate.postForObject(getFacultiesUrl(), new Faculty(0, TEST2, COLOR), Faculty.class);
+        restTemplate.getForObject(getStudentsUrl() + "/" + studentId + "/faculty", Faculty.class);
+
+        restTemplate.put("http://localhost:" + port + "/associations/student/" + studentId
+                + "/change-faculty/" + faculty.getId(), null);
+        Faculty actual = restTemplate.getForObject(getStudentsUrl() + "/" + studentId + "/faculty", Faculty.class);
+        assertEquals(faculty.getId(), actual.getId());
+
+        restTemplate.put("http://localhost:" + port + "/associations/student/" + studentId
+                + "/change-faculty/" + facultyId, null);
+        restTemplate.delete(getFacultiesUrl() + "/" + faculty.getId());
+    }
+
+    @Test
+    public void bulkReassignmentDoesNotDependOnNumberOfStudents() {
+        Faculty faculty = restTemplate.postForObject(getFacultiesUrl(), new Faculty(0, TEST2, COLOR), Faculty.class);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(restTemplate.postForObject(getStudentsUrl() + "/" + facultyId,
+                    new Student(0, TEST2 + i, AGE, null), Student.class).getId());
+        }
+
+        String url = getAssociationsUrl() + "/faculty/" + faculty.getId() + "/change-students";
+        restTemplate.put(url, ids.subList(0, 1));
+        // faculty, students, decrement of old bucket, increment of new bucket and batched update of students
+        assertStatements(5, () -> restTemplate.put(url, ids.subList(1, 2)));
+        assertStatements(5, () -> restTemplate.put(url, ids.subList(2, 5)));
+
+        ids.forEach(id -> restTemplate.delete(getStudentsUrl() + "/" + id));
+        restTemplate.delete(getFacultiesUrl() + "/" + faculty.getId());
+    }
+
+    @Test
+    public void studentWriteEndpoints() {
+        // every write also adjusts the age buckets of faculty statistics
+        assertStatementsWithIdAllocation(3, () -> restTemplate.postForObject(getStudentsUrl() + "/" + facultyId,
+                new Student(0, TEST2, AGE, null), Student.class));
+        // bucket of the new age doesn't exist yet, so it is inserted after a missed update
+        assertStatements(5, () -> restTemplate.put(getStudentsUrl(), new Student(studentId, TEST2 + TEST, AGE2, null)));
+    }
+
+    @Test
+    public void studentDeleteEndpoint() {
+        Student student = restTemplate.postForObject(getStudentsUrl() + "/" + facultyId,
+                new Student(0, TEST2, AGE, null), Student.class);
+        assertStatements(5, () -> restTemplate.delete(getStudentsUrl() + "/" + student.getId()));
+    }
+
+    @Test
+    public void studentBatchDeleteDoesNotDependOnNumberOfStudents() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            ids.add(restTemplate.postForObject(getStudentsUrl() + "/" + facultyId,
+                    new Student(0, TEST2 + i, AGE, null), Student.class).getId());
+        }
+
+        // students, blobs of avatars, avatars, students and one decrement of the bucket of their faculty and age
+        assertStatements(5, () -> restTemplate.delete(getStudentsUrl() + "?ids=" + ids.get(0)));
+        assertStatements(5, () -> restTemplate.delete(getStudentsUrl() + "?ids="
+                + ids.subList(1, 6).stream().map(String::valueOf).collect(Collectors.joining(","))));
+    }
+
+    @Test
+    public void studentSearchEndpoints() {
+        // lists of students join their faculties
+        assertStatements(1, () -> restTemplate.getForObject(getStudentsUrl(), String.class));
+        assertStatements(1, () -> restTemplate.getForObject(getStudentsUrl() + "/search?age=" + AGE, String.class));
+        assertStatements(1, () -> restTemplate.getForObject(
+                getStudentsUrl() + "/search-between?from=" + AGE2 + "&to=" + AGE, String.class));
+        assertStatements(1, () -> restTemplate.getForObject(getStudentsUrl() + "/count", String.class));
+        assertStatements(1, () -> restTemplate.getForObject(getStudentsUrl() + "/average-age", String.class));
+        assertStatements(1, () -> restTemplate.getForObject(getStudentsUrl() + "/last-five", String.class));
+        assertStatements(1, () -> restTemplate.getForObject(getStudentsUrl() + "/starts-with-a", String.class));
+        assertStatements(1, () -> restTemplate.getForObject(getStudentsUrl() + "/starts-with?prefix=" + TEST, String.class));
+        assertStatements(1, () -> restTemplate.getForObject(getStudentsUrl() + "/average-age-v2", String.class));
+        assertStatements(1, () -> restTemplate.getForObject(getStudentsUrl() + "?limit=10", String.class));
+        assertStatements(1, () -> restTemplate.getForObject(getStudentsUrl() + "/stream", String.class));
+        assertStatements(1, () -> restTemplate.getForObject(getStudentsUrl() + "/stats", String.class));
+    }
+
+    @Test
+    public void studentListsDoNotDependOnNumberOfFaculties() {
+        List<Long> facultyIds = new ArrayList<>();
+        List<Long> studentIds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            long id = restTemplate.postForObject(getFacultiesUrl(), new Faculty(0, TEST2 + i, COLOR), Faculty.class)
+                    .getId();
+            facultyIds.add(id);
+            studentIds.add(restTemplate.postForObject(getStudentsUrl() + "/" + id,
+                    new Student(0, TEST2 + i, AGE, null), Student.class).getId());
+        }
+
+        assertStatements(1, () -> restTemplate.getForObject(getStudentsUrl(), String.class));
+        assertStatements(1, () -> restTemplate.getForObject(getStudentsUrl() + "/search?age=" + AGE, String.class));
+        assertStatements(1, () -> restTemplate.getForObject(getStudentsUrl() + "/last-five", String.class));
+        // the faculty and its students, whose faculty is the one already loaded
+        assertStatements(2, () -> restTemplate.getForObject(
+                getFacultiesUrl() + "/" + facultyIds.get(0) + "/students", String.class));
+
+        studentIds.forEach(id -> restTemplate.delete(getStudentsUrl() + "/" + id));
+        facultyIds.forEach(id -> restTemplate.delete(getFacultiesUrl() + "/" + id));
+    }
+
+    @Test
+    public void facultyLookupEndpoints() {
+        assertStatements(1, () -> restTemplate.getForObject(getFacultiesUrl() + "/" + facultyId, String.class));
+        assertStatements(0, () -> restTemplate.getForObject(getFacultiesUrl() + "/" + facultyId, String.class));
+        assertStatements(1, () -> restTemplate.getForObject(getFacultiesUrl() + "/" + MISSING_ID, String.class));
+        assertStatements(2, () -> restTemplate.getForObject(getFacultiesUrl() + "/" + facultyId + "/students", String.class));
+        assertStatements(1, () -> restTemplate.getForObject(getFacultiesUrl() + "/" + facultyId + "/stats", String.class));
+    }
+
+    @Test
+    public void facultyWriteEndpoints() {
+        Faculty faculty = new Faculty(facultyId, TEST3 + TEST, COLOR);
+        assertStatements(2, () -> restTemplate.put(getFacultiesUrl(), faculty));
+
+        Faculty created = restTemplate.postForObject(getFacultiesUrl(), new Faculty(0, TEST2, COLOR), Faculty.class);
+        // statistics of the faculty are merged into students without faculty
+        assertStatements(6, () -> restTemplate.delete(getFacultiesUrl() + "/" + created.getId()));
+    }
+
+    @Test
+    public void facultyDeleteDoesNotDependOnNumberOfStudents() {
+        Faculty empty = restTemplate.postForObject(getFacultiesUrl(), new Faculty(0, TEST2 + TEST2, COLOR), Faculty.class);
+        Faculty full = restTemplate.postForObject(getFacultiesUrl(), new Faculty(0, TEST3 + TEST3, COLOR), Faculty.class);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(restTemplate.postForObject(getStudentsUrl() + "/" + full.getId(),
+                    new Student(0, TEST2 + i, AGE, null), Student.class).getId());
+        }
+
+        // students are moved out of the faculty by one update, however many there are
+        assertStatements(6, () -> restTemplate.delete(getFacultiesUrl() + "/" + empty.getId()));
+        assertStatements(6, () -> restTemplate.delete(getFacultiesUrl() + "/" + full.getId()));
+
+        ids.forEach(id -> restTemplate.delete(getStudentsUrl() + "/" + id));
+    }
+
+    @Test
+    public void facultySearchEndpoints() {
+        assertStatements(1, () -> restTemplate.getForObject(getFacultiesUrl(), String.class));
+        assertStatements(1, () -> restTemplate.getForObject(getFacultiesUrl() + "/search?color=" + COLOR, String.class));
+        assertStatements(1, () -> restTemplate.getForObject(
+                getFacultiesUrl() + "/multi-search?color=" + COLOR + "&name=" + TEST, String.class));
+        assertStatements(1, () -> restTemplate.getForObject(getFacultiesUrl() + "/longest-name", String.class));
+        assertStatements(1, () -> restTemplate.getForObject(getFacultiesUrl() + "?limit=10", String.class));
+        assertStatements(1, () -> restTemplate.getForObject(getFacultiesUrl() + "/stream", String.class));
+    }
+
+    @Test
+    public void avatarListingEndpoints() {
+        // listing selects only the columns of the projection, without previews, students and faculties
+        assertStatements(1, () -> restTemplate.getForObject(getAvatarsUrl() + "?page=1&limit=10", String.class));
+        assertStatements(1, () -> restTemplate.getForObject(getAvatarsUrl() + "/previews?studentIds=" + studentId,
+                String.class));
+    }
+
+    /**
+     * Ids are taken from a pooled sequence, so one of every 50 inserts also fetches the next block of ids.
+     */
+    private void assertStatementsWithIdAllocation(long expected, Runnable request) {
+        statistics.clear();
+        request.run();
+        long actual = statistics.getPrepareStatementCount();
+        assertTrue(actual == expected || actual == expected + 1, "expected " + expected + " statements, but was " + actual);
+    }
+
+    private void assertStatements(long expected, Runnable request) {
+        statistics.clear();
+        request.run();
+        assertEquals(expected, statistics.getPrepareStatementCount());
+    }
+
+    private String getStudentsUrl() {
+        return "http://localhost:" + port + "/students";
+    }
+
+    private String getAssociationsUrl() {
+        return "http://localhost:" + port + "/associations";
+    }
+
+    private String getAvatarsUrl() {
+        return "http://localhost:" + port + "/avatars";
+    }
+
+    private String getFacultiesUrl() {
+        return "http://localhost:" + port + "/faculties";
+    }
+}
@@ -10,9 +10,17 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import ru.hogwarts.school.controller.StudentController;
+import ru.hogwarts.school.dto.ImportError;
+import ru.hogwarts.school.dto.ImportReport;
+import ru.hogwarts.school.dto.StudentStatistics;
 import ru.hogwarts.school.model.Faculty;
 import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.service.FacultyStatsService;
 
 import java.util.List;
 
@@ -30,6 +38,9 @@ class TestRestTemplateStudent {
     @Autowired
     private TestRestTemplate restTemplate;
 
+    @Autowired
+    private FacultyStatsService facultyStatsService;
+
     private long facultyId;
 
     @BeforeEach
@@ -112,6 +123,15 @@ class TestRestTemplateStudent {
         assertTrue(actual2.contains(NOT_FOUND));
     }
 
+    @Test
+    public void testDeleteStudents() {
+        Student student1 = createTestStudent(STUDENT);
+        Student student2 = createTestStudent(STUDENT2);
+        restTemplate.delete(getUrlWithPort() + "?ids=" + student1.getId() + "," + student2.getId());
+        assertTrue(restTemplate.getForObject(getUrlWithPort() + "/" + student1.getId(), String.class).contains(NOT_FOUND));
+        assertTrue(restTemplate.getForObject(getUrlWithPort() + "/" + student2.getId(), String.class).contains(NOT_FOUND));
+    }
+
     @Test
     public void testGetStudentsOfAge() {
         Student student1 = createTestStudent(STUDENT);
@@ -176,6 +196,48 @@ class TestRestTemplateStudent {
         deleteTestStudent(student2.getId());
     }
 
+    @Test
+    public void testGetStudentsPage() {
+        Student student = createTestStudent(STUDENT);
+        Student student2 = createTestStudent(STUDENT2);
+
+        String url = getUrlWithPort() + "?after=" + (student.getId() - 1) + "&limit=1";
+        Student[] firstPage = restTemplate.getForObject(url, Student[].class);
+        assertEquals(1, firstPage.length);
+        assertEquals(student.getId(), firstPage[0].getId());
+
+        url = getUrlWithPort() + "?after=" + firstPage[0].getId() + "&limit=1";
+        Student[] secondPage = restTemplate.getForObject(url, Student[].class);
+        assertEquals(1, secondPage.length);
+        assertEquals(student2.getId(), secondPage[0].getId());
+        assertEquals(facultyId, secondPage[0].getFaculty().getId());
+
+        url = getUrlWithPort() + "?after=" + secondPage[0].getId() + "&limit=1";
+        assertEquals(0, restTemplate.getForObject(url, Student[].class).length);
+
+        deleteTestStudent(student.getId());
+        deleteTestStudent(student2.getId());
+    }
+
+    @Test
+    public void getStudentsPage_shouldThrowIfGivenInvalidLimit() {
+        String answer = restTemplate.getForObject(getUrlWithPort() + "?limit=0", String.class);
+        assertTrue(answer.contains(BAD_REQUEST));
+    }
+
+    @Test
+    public void testStreamAllStudents() {
+        Student student = createTestStudent(STUDENT);
+        Student student2 = createTestStudent(STUDENT2);
+
+        List<Student> allStudents = List.of(restTemplate.getForObject(getUrlWithPort() + "/stream", Student[].class));
+        assertEquals(List.of(student, student2), allStudents);
+        assertEquals(facultyId, allStudents.get(0).getFaculty().getId());
+
+        deleteTestStudent(student.getId());
+        deleteTestStudent(student2.getId());
+    }
+
     @Test
     public void testGetNumberOfStudents() {
         long id1 = createTestStudent(STUDENT).getId();
@@ -203,6 +265,118 @@ class TestRestTemplateStudent {
         deleteTestStudent(student2.getId());
     }
 
+    @Test
+    public void testGetStudentNamesStartingWith() {
+        Student student1 = createTestStudent(STUDENT);
+        Student student2 = createTestStudent(STUDENT2);
+
+        String[] names = restTemplate.getForObject(getUrlWithPort() + "/starts-with?prefix=" + TEST2, String[].class);
+        assertArrayEquals(new String[]{TEST2.toUpperCase()}, names);
+
+        names = restTemplate.getForObject(getUrlWithPort() + "/starts-with?prefix=" + TEST, String[].class);
+        assertArrayEquals(new String[]{TEST.toUpperCase(), TEST2.toUpperCase()}, names);
+
+        deleteTestStudent(student1.getId());
+        deleteTestStudent(student2.getId());
+    }
+
+    @Test
+    public void testComputeAverageAge() {
+        STUDENT2.setAge(AGE2);
+        Student student1 = createTestStudent(STUDENT);
+        Student student2 = createTestStudent(STUDENT2);
+
+        double expected = (student1.getAge() + student2.getAge()) / 2.0;
+        assertEquals(expected, restTemplate.getForObject(getUrlWithPort() + "/average-age-v2", double.class));
+
+        deleteTestStudent(student1.getId());
+        deleteTestStudent(student2.getId());
+    }
+
+    @Test
+    public void testGetStatistics() {
+        STUDENT2.setAge(AGE2);
+        Student student1 = createTestStudent(STUDENT);
+        Student student2 = createTestStudent(STUDENT2);
+        restTemplate.put(getUrlWithPort(), new Student(student2.getId(), TEST2, AGE, null));
+
+        StudentStatistics statistics = getStatistics();
+        assertEquals(restTemplate.getForObject(getUrlWithPort() + "/count", long.class), statistics.studentCount());
+        assertTrue(statistics.ageHistogram().get(AGE) >= 2);
+
+        facultyStatsService.reconcile();
+        assertEquals(statistics, getStatistics());
+
+        deleteTestStudent(student1.getId());
+        deleteTestStudent(student2.getId());
+        assertEquals(statistics.studentCount() - 2, getStatistics().studentCount());
+    }
+
+    @Test
+    public void testImportStudentsFromCsv() {
+        String csv = "name,age,facultyId\n" +
+                TEST + "," + AGE + "," + facultyId + "\n" +
+                TEST2 + ",abc," + facultyId + "\n" +
+                "," + AGE + "," + facultyId + "\n" +
+                TEST2 + "," + AGE + "," + ID * 1000 + "\n" +
+                "\n" +
+                TEST + "," + AGE2 + "," + facultyId + "\n" +
+                TEST3 + "," + AGE2 + "," + facultyId + "\n";
+
+        ImportReport report = importStudents(csv, "text/csv", "").getBody();
+        assertEquals(2, report.imported());
+        assertEquals(4, report.failed());
+        assertEquals(List.of(3L, 4L, 5L, 7L), report.errors().stream().map(ImportError::line).toList());
+        assertTrue(report.errors().get(3).message().contains("already exists"));
+
+        StudentStatistics statistics = restTemplate.getForObject("http://localhost:" + port + "/faculties/"
+                + facultyId + "/stats", StudentStatistics.class);
+        assertEquals(2, statistics.studentCount());
+        assertEquals(AGE + AGE2, statistics.ageSum());
+
+        deleteImportedStudents();
+    }
+
+    @Test
+    public void testImportStudentsFromNdjson() {
+        String ndjson = "{\"name\":\"" + TEST + "\",\"age\":" + AGE + "}\n" +
+                "{\"name\":\"" + TEST2 + "\",\n" +
+                "{\"name\":\"" + TEST3 + "\",\"age\":" + AGE2 + "}\n";
+
+        ImportReport report = importStudents(ndjson, "application/x-ndjson", "?facultyId=" + facultyId).getBody();
+        assertEquals(2, report.imported());
+        assertEquals(1, report.failed());
+        assertEquals(2, report.errors().get(0).line());
+
+        deleteImportedStudents();
+    }
+
+    @Test
+    public void importStudents_shouldRejectUnsupportedFormat() {
+        ResponseEntity<ImportReport> response = importStudents("name,age", "text/plain", "");
+        assertEquals(415, response.getStatusCode().value());
+    }
+
+    private ResponseEntity<ImportReport> importStudents(String body, String contentType, String query) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.valueOf(contentType));
+        return restTemplate.postForEntity(getUrlWithPort() + "/import" + query, new HttpEntity<>(body, headers),
+                ImportReport.class);
+    }
+
+    private void deleteImportedStudents() {
+        Student[] students = restTemplate.getForObject(getUrlWithPort() + "?limit=1000", Student[].class);
+        for (Student student : students) {
+            if (student.getFaculty() != null && student.getFaculty().getId() == facultyId) {
+                deleteTestStudent(student.getId());
+            }
+        }
+    }
+
+    private StudentStatistics getStatistics() {
+        return restTemplate.getForObject(getUrlWithPort() + "/stats", StudentStatistics.class);
+    }
+
     private Student getStudent(long id) {
         return restTemplate.getForObject(getUrlWithPort() + "/" + id, Student.class);
     }
@@ -15,8 +15,13 @@ import ru.hogwarts.school.controller.FacultyController;
 import ru.hogwarts.school.model.Faculty;
 import ru.hogwarts.school.model.Student;
 import ru.hogwarts.school.repository.FacultyRepository;
+import ru.hogwarts.school.repository.FacultyStatsRepository;
 import ru.hogwarts.school.repository.StudentRepository;
+import ru.hogwarts.school.service.AnalyticsServiceImpl;
+import ru.hogwarts.school.service.FacultyDeletionService;
 import ru.hogwarts.school.service.FacultyServiceImpl;
+import ru.hogwarts.school.service.FacultyStatsServiceImpl;
+import ru.hogwarts.school.service.ImportService;
 
 import java.util.Collections;
 import java.util.List;
@@ -38,12 +43,27 @@ public class WebMvcTestFaculty {
     @MockBean
     private FacultyRepository facultyRepository;
 
+    @MockBean
+    private FacultyStatsRepository facultyStatsRepository;
+
     @MockBean
     private StudentRepository studentRepository;
 
     @SpyBean
     private FacultyServiceImpl facultyService;
 
+    @SpyBean
+    private AnalyticsServiceImpl analyticsService;
+
+    @SpyBean
+    private FacultyStatsServiceImpl facultyStatsService;
+
+    @MockBean
+    private ImportService importService;
+
+    @MockBean
+    private FacultyDeletionService facultyDeletionService;
+
     @InjectMocks
     private FacultyController facultyController;
 
@@ -192,6 +212,7 @@ public class WebMvcTestFaculty {
         Faculty faculty = getTestFaculty(TEST);
 
         whenFacultyIsAccessed(faculty);
+        when(studentRepository.findStudentsByFacultyId(FACULTY_ID)).thenReturn(List.copyOf(faculty.getStudents()));
 
         mockMvc.perform(MockMvcRequestBuilders
                         .get(RESOURCE + "/" + FACULTY_ID + "/students")
@@ -17,9 +17,15 @@ import ru.hogwarts.school.model.Faculty;
 import ru.hogwarts.school.model.Student;
 import ru.hogwarts.school.repository.AvatarRepository;
 import ru.hogwarts.school.repository.FacultyRepository;
+import ru.hogwarts.school.repository.FacultyStatsRepository;
 import ru.hogwarts.school.repository.StudentRepository;
+import ru.hogwarts.school.service.AnalyticsServiceImpl;
+import ru.hogwarts.school.service.AvatarBlobService;
 import ru.hogwarts.school.service.FacultyServiceImpl;
+import ru.hogwarts.school.service.FacultyStatsServiceImpl;
+import ru.hogwarts.school.service.ImportService;
 import ru.hogwarts.school.service.StudentServiceImpl;
+import ru.hogwarts.school.utility.ConsolePrinter;
 
 import java.util.Collections;
 import java.util.List;
@@ -44,12 +50,30 @@ public class WebMvcTestStudent {
     @MockBean
     private FacultyRepository facultyRepository;
 
+    @MockBean
+    private FacultyStatsRepository facultyStatsRepository;
+
     @SpyBean
     private StudentServiceImpl studentService;
 
     @SpyBean
     private FacultyServiceImpl facultyService;
 
+    @SpyBean
+    private AnalyticsServiceImpl analyticsService;
+
+    @SpyBean
+    private FacultyStatsServiceImpl facultyStatsService;
+
+    @MockBean
+    private ImportService importService;
+
+    @MockBean
+    private AvatarBlobService avatarBlobService;
+
+    @MockBean
+    private ConsolePrinter consolePrinter;
+
     @InjectMocks
     private StudentController studentController;
 
@@ -62,7 +86,7 @@ public class WebMvcTestStudent {
         Student student = getTestStudent(TEST);
 
         whenFacultyIsAccessed(FACULTY);
-        when(studentRepository.save(any(Student.class))).thenReturn(student);
+        when(studentRepository.saveAndFlush(any(Student.class))).thenReturn(student);
 
         mockMvc.perform(MockMvcRequestBuilders
                         .post(RESOURCE + "/" + FACULTY_ID)
@@ -107,7 +131,7 @@ public class WebMvcTestStudent {
         JSONObject studentObject = getTestStudentObject();
 
         whenFacultyIsAccessed(FACULTY);
-        doThrow(new RuntimeException()).when(studentRepository).save(any(Student.class));
+        doThrow(new RuntimeException()).when(studentRepository).saveAndFlush(any(Student.class));
 
         mockMvc.perform(MockMvcRequestBuilders
                         .post(RESOURCE + "/" + FACULTY_ID)
@@ -157,7 +181,7 @@ public class WebMvcTestStudent {
         whenStudentIsAccessed(student);
         whenFacultyIsAccessed(FACULTY);
         when(facultyRepository.save(FACULTY)).thenReturn(FACULTY);
-        when(studentRepository.save(any(Student.class))).thenReturn(student);
+        when(studentRepository.saveAndFlush(any(Student.class))).thenReturn(student);
 
         mockMvc.perform(MockMvcRequestBuilders
                         .put(RESOURCE)
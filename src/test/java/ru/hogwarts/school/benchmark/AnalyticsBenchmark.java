@@ -0,0 +1,125 @@
+package ru.hogwarts.school.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.hogwarts.school.HogwartsApplication;
+import ru.hogwarts.school.model.Faculty;
+import ru.hogwarts.school.repository.FacultyRepository;
+import ru.hogwarts.school.repository.StudentRepository;
+import ru.hogwarts.school.service.AnalyticsService;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Compares analytics computed over findAll() in Java streams with the SQL aggregates
+ * of {@link AnalyticsService}, both against embedded H2.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 3, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+public class AnalyticsBenchmark {
+    private final static String[] FIRST_LETTERS = {"A", "B", "C", "D", "E", "F", "G", "H"};
+
+    @Param({"1000", "100000"})
+    private int students;
+
+    private ConfigurableApplicationContext context;
+
+    private StudentRepository studentRepository;
+
+    private FacultyRepository facultyRepository;
+
+    private AnalyticsService analyticsService;
+
+    public static void main(String[] args) throws Exception {
+        org.openjdk.jmh.Main.main(new String[]{AnalyticsBenchmark.class.getName()});
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = new SpringApplicationBuilder(HogwartsApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.datasource.url=jdbc:h2:mem:analytics;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+                        "spring.jpa.show-sql=false",
+                        "logging.level.root=warn",
+                        "logging.level.ru.hogwarts.school=warn",
+                        "server.port=0")
+                .run();
+        studentRepository = context.getBean(StudentRepository.class);
+        facultyRepository = context.getBean(FacultyRepository.class);
+        analyticsService = context.getBean(AnalyticsService.class);
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.batchUpdate("INSERT INTO faculties (id, name, color) VALUES (?, ?, ?)",
+                IntStream.range(0, FIRST_LETTERS.length)
+                        .mapToObj(i -> new Object[]{1 + i, "Faculty " + "x".repeat(i), "color" + i})
+                        .toList());
+        jdbcTemplate.batchUpdate("INSERT INTO students (id, name, age, faculty_id) VALUES (?, ?, ?, ?)",
+                IntStream.range(0, students)
+                        .mapToObj(i -> new Object[]{1 + i,
+                                FIRST_LETTERS[i % FIRST_LETTERS.length] + "student" + i,
+                                7 + i % 14,
+                                1 + i % FIRST_LETTERS.length})
+                        .toList());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public double averageAge_findAll() {
+        double result = studentRepository.findAll().stream()
+                .mapToInt(el -> el.getAge())
+                .summaryStatistics()
+                .getAverage();
+        return new BigDecimal(Double.toString(result))
+                .setScale(2, RoundingMode.HALF_UP)
+                .doubleValue();
+    }
+
+    @Benchmark
+    public double averageAge_sql() {
+        return analyticsService.computeAverageAge();
+    }
+
+    @Benchmark
+    public Collection<String> namesStartingWith_findAll() {
+        return studentRepository.findAll().stream()
+                .parallel()
+                .filter(el -> el.getName().startsWith("A"))
+                .map(el -> el.getName().toUpperCase())
+                .sorted()
+                .toList();
+    }
+
+    @Benchmark
+    public Collection<String> namesStartingWith_sql() {
+        return analyticsService.getStudentNamesStartingWith("A");
+    }
+
+    @Benchmark
+    public String longestFacultyName_findAll() {
+        return facultyRepository.findAll().stream()
+                .map(Faculty::getName)
+                .max(Comparator.comparingInt(String::length))
+                .orElseThrow();
+    }
+
+    @Benchmark
+    public String longestFacultyName_sql() {
+        return analyticsService.getLongestFacultyName();
+    }
+}
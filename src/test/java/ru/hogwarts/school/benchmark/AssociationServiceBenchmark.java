@@ -0,0 +1,60 @@
+package ru.hogwarts.school.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.service.AssociationService;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * Time to move a thousand students to another faculty at once, against embedded H2
+ * seeded with the given number of students. Every call moves them back and forth between two faculties.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+public class AssociationServiceBenchmark {
+    private final static int FACULTIES = 8;
+
+    private final static int MOVED_STUDENTS = 1000;
+
+    @Param({"1000", "100000", "1000000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+
+    private AssociationService associationService;
+
+    private List<Long> ids;
+
+    private long moves;
+
+    public static void main(String[] args) throws Exception {
+        org.openjdk.jmh.Main.main(new String[]{AssociationServiceBenchmark.class.getName()});
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkDatabase.start("associations-" + rows);
+        BenchmarkDatabase.seed(context, FACULTIES, rows);
+        associationService = context.getBean(AssociationService.class);
+        ids = LongStream.rangeClosed(1, Math.min(MOVED_STUDENTS, rows)).boxed().toList();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Collection<Student> changeStudentsInFaculty() {
+        return associationService.changeStudentsInFaculty(1 + moves++ % 2, ids);
+    }
+}
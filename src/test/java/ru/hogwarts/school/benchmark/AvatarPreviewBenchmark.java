@@ -0,0 +1,97 @@
+package ru.hogwarts.school.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.hogwarts.school.repository.AvatarRepository;
+import ru.hogwarts.school.repository.PreviewImageRepository;
+import ru.hogwarts.school.service.AvatarBlobService;
+import ru.hogwarts.school.service.AvatarPreviewService;
+import ru.hogwarts.school.service.AvatarPreviewServiceImpl;
+import ru.hogwarts.school.service.AvatarService;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to generate and save previews of an uploaded avatar by {@link AvatarPreviewService}, against embedded H2.
+ * Previews are generated on the calling thread, so the whole decode, resize and write is measured.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+public class AvatarPreviewBenchmark {
+    private final static long STUDENT_ID = 1;
+
+    private final static int[] WIDTHS = {64, 128, 256};
+
+    @Param({"640", "2048"})
+    private int imageWidth;
+
+    private ConfigurableApplicationContext context;
+
+    private AvatarPreviewService previewService;
+
+    private byte[] image;
+
+    private String blobHash;
+
+    public static void main(String[] args) throws Exception {
+        org.openjdk.jmh.Main.main(new String[]{AvatarPreviewBenchmark.class.getName()});
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        context = BenchmarkDatabase.start("previews-" + imageWidth);
+        BenchmarkDatabase.seed(context, 1, 1);
+        image = createImage();
+        context.getBean(AvatarService.class)
+                .uploadStudentAvatar(STUDENT_ID, new ByteArrayInputStream(image), "image/jpeg");
+        blobHash = context.getBean(AvatarRepository.class).findByStudentId(STUDENT_ID).orElseThrow().getBlobHash();
+        previewService = new AvatarPreviewServiceImpl(context.getBean(AvatarRepository.class),
+                context.getBean(PreviewImageRepository.class),
+                context.getBean(AvatarBlobService.class),
+                context.getBean(PlatformTransactionManager.class),
+                Runnable::run,
+                1,
+                WIDTHS,
+                0.85f,
+                Duration.ofMinutes(10));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void requestPreview() {
+        previewService.requestPreview(STUDENT_ID, blobHash, image);
+    }
+
+    private byte[] createImage() throws IOException {
+        int imageHeight = imageWidth * 3 / 4;
+        BufferedImage source = new BufferedImage(imageWidth, imageHeight, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = source.createGraphics();
+        Random random = new Random(imageWidth);
+        for (int i = 0; i < 200; i++) {
+            graphics.setColor(new Color(random.nextInt(0xFFFFFF)));
+            graphics.fillOval(random.nextInt(imageWidth), random.nextInt(imageHeight),
+                    random.nextInt(imageWidth / 4) + 1, random.nextInt(imageHeight / 4) + 1);
+        }
+        graphics.dispose();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ImageIO.write(source, "jpg", baos);
+        return baos.toByteArray();
+    }
+}
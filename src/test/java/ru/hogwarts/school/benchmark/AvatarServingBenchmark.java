@@ -0,0 +1,99 @@
+package ru.hogwarts.school.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.StandardProtocolFamily;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * Compares ways of writing a 300 KB avatar to a loopback socket:
+ * the former copy through 1 KB buffered streams and {@link FileChannel#transferTo},
+ * which lets the kernel move the file to the socket without copying it into the JVM.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+public class AvatarServingBenchmark {
+    private final static int FILE_SIZE = 300 * 1024;
+
+    private Path file;
+
+    private ServerSocketChannel server;
+
+    private SocketChannel client;
+
+    private Thread drain;
+
+    public static void main(String[] args) throws Exception {
+        org.openjdk.jmh.Main.main(new String[]{AvatarServingBenchmark.class.getName()});
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        byte[] content = new byte[FILE_SIZE];
+        new Random(42).nextBytes(content);
+        file = Files.createTempFile("avatar", ".png");
+        Files.write(file, content);
+
+        server = ServerSocketChannel.open(StandardProtocolFamily.INET).bind(new InetSocketAddress("127.0.0.1", 0));
+        client = SocketChannel.open(server.getLocalAddress());
+        SocketChannel accepted = server.accept();
+        drain = new Thread(() -> {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+            try (accepted) {
+                while (accepted.read(buffer) >= 0) {
+                    buffer.clear();
+                }
+            } catch (IOException ignored) {
+            }
+        });
+        drain.setDaemon(true);
+        drain.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, InterruptedException {
+        client.close();
+        drain.join();
+        server.close();
+        Files.delete(file);
+    }
+
+    @Benchmark
+    public void bufferedStreams() throws IOException {
+        OutputStream socket = Channels.newOutputStream(client);
+        try (
+                InputStream is = Files.newInputStream(file);
+                BufferedInputStream bis = new BufferedInputStream(is, 1024)
+        ) {
+            BufferedOutputStream bos = new BufferedOutputStream(socket);
+            bis.transferTo(bos);
+            bos.flush();
+        }
+    }
+
+    @Benchmark
+    public void transferTo() throws IOException {
+        try (FileChannel channel = FileChannel.open(file, READ)) {
+            long position = 0;
+            while (position < FILE_SIZE) {
+                position += channel.transferTo(position, FILE_SIZE - position, client);
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package ru.hogwarts.school.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.hogwarts.school.HogwartsApplication;
+import ru.hogwarts.school.service.FacultyStatsService;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Starts the application against its own embedded H2 database, without web server unless it is needed,
+ * and seeds it by plain JDBC batches, which is much faster than going through the services.
+ */
+final class BenchmarkDatabase {
+    private final static int SEED_BATCH_SIZE = 10_000;
+
+    private BenchmarkDatabase() {
+    }
+
+    static ConfigurableApplicationContext start(String database) {
+        return start(database, WebApplicationType.NONE);
+    }
+
+    /**
+     * Starts the application with properties overriding the defaults of benchmarks, the web server listens
+     * on a random port if the application type is servlet.
+     */
+    static ConfigurableApplicationContext start(String database, WebApplicationType type, String... properties) {
+        Path avatars;
+        try {
+            avatars = Files.createTempDirectory("avatars-" + database);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        // passed as command line arguments, so they take precedence over application properties of tests
+        Stream<String> defaults = Stream.of("spring.datasource.url=jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+                "spring.jpa.show-sql=false",
+                "spring.jpa.properties.hibernate.generate_statistics=false",
+                "students.avatars.dir.path=" + avatars,
+                "logging.level.root=warn",
+                "logging.level.ru.hogwarts.school=warn",
+                "server.port=0");
+        // repeated arguments would be joined by commas, so later ones replace the earlier instead
+        Map<String, String> arguments = Stream.concat(defaults, Arrays.stream(properties))
+                .collect(Collectors.toMap(property -> property.substring(0, property.indexOf('=')),
+                        property -> "--" + property, (earlier, later) -> later, LinkedHashMap::new));
+        return new SpringApplicationBuilder(HogwartsApplication.class)
+                .web(type)
+                .run(arguments.values().toArray(String[]::new));
+    }
+
+    /**
+     * Inserts faculties with ids 1..faculties and students with ids 1..students spread over them,
+     * ages of students go from 7 to 20. Sequences are moved past the seeded ids,
+     * so entities created later by the services don't collide with them, and statistics of faculties are rebuilt.
+     */
+    static void seed(ConfigurableApplicationContext context, int faculties, int students) {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.batchUpdate("INSERT INTO faculties (id, name, color) VALUES (?, ?, ?)",
+                IntStream.rangeClosed(1, faculties)
+                        .mapToObj(id -> new Object[]{id, "Faculty " + id, "color" + id % 4})
+                        .toList());
+        for (int from = 1; from <= students; from += SEED_BATCH_SIZE) {
+            List<Object[]> rows = IntStream.range(from, Math.min(from + SEED_BATCH_SIZE, students + 1))
+                    .mapToObj(id -> new Object[]{id, "Student" + id, 7 + id % 14, 1 + id % faculties})
+                    .toList();
+            jdbcTemplate.batchUpdate("INSERT INTO students (id, name, age, faculty_id) VALUES (?, ?, ?, ?)", rows);
+        }
+        // pooled ids are allocated below the value taken from a sequence
+        jdbcTemplate.execute("ALTER SEQUENCE faculties_seq RESTART WITH " + (faculties + 100));
+        jdbcTemplate.execute("ALTER SEQUENCE students_seq RESTART WITH " + (students + 100));
+        context.getBean(FacultyStatsService.class).reconcile();
+    }
+}
@@ -0,0 +1,46 @@
+package ru.hogwarts.school.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.hogwarts.school.dto.SumResult;
+import ru.hogwarts.school.service.ComputeServiceImpl;
+import ru.hogwarts.school.utility.SumStrategy;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sums of numbers by every strategy of the compute service, parallel ones on all available processors.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 3, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+public class ComputeServiceBenchmark {
+    @Param({"1000000", "100000000"})
+    private long n;
+
+    @Param({"SEQUENTIAL", "RANGE", "PARALLEL", "FORK_JOIN", "CLOSED_FORM"})
+    private SumStrategy strategy;
+
+    private ComputeServiceImpl out;
+
+    public static void main(String[] args) throws Exception {
+        org.openjdk.jmh.Main.main(new String[]{ComputeServiceBenchmark.class.getName()});
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        out = new ComputeServiceImpl(Long.MAX_VALUE, 0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        out.shutdown();
+    }
+
+    @Benchmark
+    public SumResult sum() {
+        return out.sum(n, strategy, out.getMaxParallelism());
+    }
+}
@@ -0,0 +1,167 @@
+package ru.hogwarts.school.benchmark;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shows how long requests wait for a connection of the pool with 'load.connections' requests in flight,
+ * for every size of the pool in 'load.pool-sizes', 0 stands for the size derived by {@code DataSourceConfig}.
+ * Tomcat gets a thread per request in flight, so all of them compete for connections. Waiting times are taken
+ * from the 'hikaricp.connections.acquire' timer and the number of threads waiting for a connection is sampled
+ * from the pool every 10 ms. As in {@link WebTierLoadHarness}, set 'load.datasource.url'
+ * (and '.username', '.password') to measure against a database over the network.
+ * <p>
+ * java -Dload.pool-sizes=0,5,20 -cp target/test-classes:target/classes:... ru.hogwarts.school.benchmark.ConnectionPoolLoadHarness
+ */
+public class ConnectionPoolLoadHarness {
+    private final static int FACULTIES = 8;
+
+    private final static int STUDENTS = 1000;
+
+    private final static int CONNECTIONS = Integer.getInteger("load.connections", 500);
+
+    private final static int SECONDS = Integer.getInteger("load.seconds", 30);
+
+    private final static int WARMUP_SECONDS = Integer.getInteger("load.warmup-seconds", 10);
+
+    private final static String ACQUIRE_TIMER = "hikaricp.connections.acquire";
+
+    public static void main(String[] args) throws Exception {
+        System.out.printf("%-6s %11s %8s %12s %13s %13s %13s %12s%n", "pool", "requests", "errors", "requests/s",
+                "wait avg, ms", "wait p99, ms", "wait max, ms", "max pending");
+        for (String poolSize : System.getProperty("load.pool-sizes", "0,10,50").split(",")) {
+            ConfigurableApplicationContext context = start(Integer.parseInt(poolSize.trim()));
+            try {
+                BenchmarkDatabase.seed(context, FACULTIES, STUDENTS);
+                run(context);
+            } finally {
+                context.close();
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext start(int poolSize) {
+        String[] properties = {
+                "server.tomcat.threads.max=" + CONNECTIONS,
+                "server.tomcat.accept-count=" + CONNECTIONS,
+                "management.metrics.distribution.percentiles." + ACQUIRE_TIMER + "=0.99",
+                "management.metrics.distribution.expiry." + ACQUIRE_TIMER + "=" + SECONDS + "s",
+                "management.metrics.distribution.buffer-length." + ACQUIRE_TIMER + "=1"};
+        if (System.getProperty("load.datasource.url") != null) {
+            properties = append(properties,
+                    "spring.datasource.url=" + System.getProperty("load.datasource.url"),
+                    "spring.datasource.username=" + System.getProperty("load.datasource.username", ""),
+                    "spring.datasource.password=" + System.getProperty("load.datasource.password", ""));
+        }
+        if (poolSize > 0) {
+            properties = append(properties, "spring.datasource.hikari.maximum-pool-size=" + poolSize);
+        }
+        return BenchmarkDatabase.start("pool-" + poolSize, WebApplicationType.SERVLET, properties);
+    }
+
+    private static void run(ConfigurableApplicationContext context) throws InterruptedException {
+        String url = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+        MeterRegistry registry = context.getBean(MeterRegistry.class);
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+        Semaphore inFlight = new Semaphore(CONNECTIONS);
+        AtomicLong requests = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        long measureFrom = System.nanoTime() + TimeUnit.SECONDS.toNanos(WARMUP_SECONDS);
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(SECONDS);
+
+        long sent = 0;
+        while (System.nanoTime() < measureFrom) {
+            inFlight.acquire();
+            client.sendAsync(request(url, sent++), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, e) -> inFlight.release());
+        }
+        Timer timer = registry.get(ACQUIRE_TIMER).timer();
+        long waitsBefore = timer.count();
+        double waitedBefore = timer.totalTime(TimeUnit.MILLISECONDS);
+        PendingSampler pending = new PendingSampler(context.getBean(HikariDataSource.class));
+        pending.start();
+        while (System.nanoTime() < end) {
+            inFlight.acquire();
+            client.sendAsync(request(url, sent++), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, e) -> {
+                        inFlight.release();
+                        if (e != null || response.statusCode() != 200) {
+                            errors.incrementAndGet();
+                        } else {
+                            requests.incrementAndGet();
+                        }
+                    });
+        }
+        inFlight.acquire(CONNECTIONS);
+        pending.interrupt();
+
+        long waits = timer.count() - waitsBefore;
+        double p99 = Arrays.stream(timer.takeSnapshot().percentileValues())
+                .mapToDouble(value -> value.value(TimeUnit.MILLISECONDS))
+                .findFirst()
+                .orElse(Double.NaN);
+        System.out.printf("%-6d %11d %8d %12.0f %13.2f %13.2f %13.2f %12d%n",
+                context.getBean(HikariDataSource.class).getMaximumPoolSize(),
+                requests.get(),
+                errors.get(),
+                (double) requests.get() / SECONDS,
+                waits == 0 ? Double.NaN : (timer.totalTime(TimeUnit.MILLISECONDS) - waitedBefore) / waits,
+                p99,
+                timer.max(TimeUnit.MILLISECONDS),
+                pending.max);
+    }
+
+    private static HttpRequest request(String url, long sent) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return HttpRequest.newBuilder(URI.create(sent % 2 == 0
+                ? url + "/students/search?age=" + (7 + random.nextInt(14))
+                : url + "/faculties/" + (1 + random.nextInt(FACULTIES)) + "/students")).build();
+    }
+
+    private static String[] append(String[] properties, String... more) {
+        String[] result = Arrays.copyOf(properties, properties.length + more.length);
+        System.arraycopy(more, 0, result, properties.length, more.length);
+        return result;
+    }
+
+    private static class PendingSampler extends Thread {
+        private final HikariDataSource dataSource;
+
+        private volatile int max;
+
+        private PendingSampler(HikariDataSource dataSource) {
+            this.dataSource = dataSource;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!isInterrupted()) {
+                    max = Math.max(max, dataSource.getHikariPoolMXBean().getThreadsAwaitingConnection());
+                    Thread.sleep(10);
+                }
+            } catch (InterruptedException ignored) {
+                // sampling is over
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package ru.hogwarts.school.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.hogwarts.school.service.FacultyService;
+import ru.hogwarts.school.service.FacultyStatsService;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to delete a faculty holding an eighth of all students, against embedded H2.
+ * Before every iteration the faculty is inserted again and students left without faculty are returned to it.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.SingleShotTime)
+@Fork(1)
+public class FacultyDeleteBenchmark {
+    private final static int FACULTIES = 8;
+
+    private final static long DELETED_FACULTY_ID = 1;
+
+    @Param({"1000", "100000", "1000000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private FacultyService facultyService;
+
+    private FacultyStatsService facultyStatsService;
+
+    public static void main(String[] args) throws Exception {
+        org.openjdk.jmh.Main.main(new String[]{FacultyDeleteBenchmark.class.getName()});
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkDatabase.start("faculty-delete-" + rows);
+        BenchmarkDatabase.seed(context, FACULTIES, rows);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        facultyService = context.getBean(FacultyService.class);
+        facultyStatsService = context.getBean(FacultyStatsService.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void restoreFaculty() {
+        if (jdbcTemplate.queryForObject("SELECT COUNT(*) FROM faculties WHERE id = ?", Long.class,
+                DELETED_FACULTY_ID) == 0) {
+            jdbcTemplate.update("INSERT INTO faculties (id, name, color) VALUES (?, ?, ?)",
+                    DELETED_FACULTY_ID, "Faculty " + DELETED_FACULTY_ID, "color" + DELETED_FACULTY_ID);
+            jdbcTemplate.update("UPDATE students SET faculty_id = ? WHERE faculty_id IS NULL", DELETED_FACULTY_ID);
+            facultyStatsService.reconcile();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void deleteFaculty() {
+        facultyService.deleteFaculty(DELETED_FACULTY_ID);
+    }
+}
@@ -0,0 +1,107 @@
+package ru.hogwarts.school.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.hogwarts.school.HogwartsApplication;
+import ru.hogwarts.school.dto.ImportReport;
+import ru.hogwarts.school.model.Faculty;
+import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.service.FacultyService;
+import ru.hogwarts.school.service.ImportService;
+import ru.hogwarts.school.service.StudentService;
+import ru.hogwarts.school.utility.ImportFormat;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to load a file of students through the import endpoint service compared with
+ * creating the same students one by one, against embedded H2.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.SingleShotTime)
+@Fork(1)
+public class ImportBenchmark {
+    @Param({"100000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private ImportService importService;
+
+    private StudentService studentService;
+
+    private long facultyId;
+
+    private byte[] csv;
+
+    private byte[] ndjson;
+
+    public static void main(String[] args) throws Exception {
+        org.openjdk.jmh.Main.main(new String[]{ImportBenchmark.class.getName()});
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = new SpringApplicationBuilder(HogwartsApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.datasource.url=jdbc:h2:mem:import;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+                        "spring.jpa.show-sql=false",
+                        "spring.jpa.properties.hibernate.generate_statistics=false",
+                        "logging.level.root=warn",
+                        "logging.level.ru.hogwarts.school=warn",
+                        "server.port=0")
+                .run();
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        importService = context.getBean(ImportService.class);
+        studentService = context.getBean(StudentService.class);
+        facultyId = context.getBean(FacultyService.class).createFaculty(new Faculty(0, "Import", "blue")).getId();
+
+        StringBuilder csvRows = new StringBuilder("name,age\n");
+        StringBuilder ndjsonRows = new StringBuilder();
+        for (int i = 0; i < rows; i++) {
+            csvRows.append("student").append(i).append(',').append(7 + i % 14).append('\n');
+            ndjsonRows.append("{\"name\":\"student").append(i).append("\",\"age\":").append(7 + i % 14).append("}\n");
+        }
+        csv = csvRows.toString().getBytes(StandardCharsets.UTF_8);
+        ndjson = ndjsonRows.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Setup(Level.Iteration)
+    public void cleanStudents() {
+        jdbcTemplate.update("DELETE FROM students");
+        jdbcTemplate.update("DELETE FROM faculty_stats");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ImportReport importCsv() {
+        return importService.importStudents(new ByteArrayInputStream(csv), ImportFormat.CSV, facultyId);
+    }
+
+    @Benchmark
+    public ImportReport importNdjson() {
+        return importService.importStudents(new ByteArrayInputStream(ndjson), ImportFormat.NDJSON, facultyId);
+    }
+
+    @Benchmark
+    public int createOneByOne() {
+        for (int i = 0; i < rows; i++) {
+            studentService.createStudent(new Student(0, "student" + i, 7 + i % 14, null), facultyId);
+        }
+        return rows;
+    }
+}
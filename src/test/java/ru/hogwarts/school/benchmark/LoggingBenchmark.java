@@ -0,0 +1,82 @@
+package ru.hogwarts.school.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of searches of students through HTTP with logging off, with SQL and service debug lines
+ * written as plain text by the calling threads, and with the same lines written as JSON lines
+ * by the asynchronous appender. Both logging modes write to a file in place of the console.
+ * The JSON mode also limits debug lines per logger and second, so it writes fewer lines under load.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.Throughput)
+@Threads(8)
+@Fork(1)
+public class LoggingBenchmark {
+    private final static int STUDENTS = 1000;
+
+    @Param({"off", "plain", "json"})
+    private String logging;
+
+    private ConfigurableApplicationContext context;
+
+    private HttpClient client;
+
+    private String url;
+
+    private PrintStream console;
+
+    public static void main(String[] args) throws Exception {
+        org.openjdk.jmh.Main.main(new String[]{LoggingBenchmark.class.getName()});
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Path log = Files.createTempFile("logging-benchmark-" + logging, ".log");
+        console = System.out;
+        System.setOut(new PrintStream(new BufferedOutputStream(new FileOutputStream(log.toFile())), true));
+
+        String level = logging.equals("off") ? "warn" : "debug";
+        context = BenchmarkDatabase.start("logging-" + logging, WebApplicationType.SERVLET,
+                "logging.level.ru.hogwarts.school=" + level,
+                "logging.level.org.hibernate.SQL=" + level,
+                "logging.config=" + (logging.equals("json") ? "classpath:logback-json.xml" : ""));
+        BenchmarkDatabase.seed(context, 1, STUDENTS);
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        url = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort()
+                + "/students/search?age=";
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        System.out.flush();
+        System.setOut(console);
+    }
+
+    @Benchmark
+    public int search() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url + (7 + ThreadLocalRandom.current().nextInt(14))))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
@@ -0,0 +1,96 @@
+package ru.hogwarts.school.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.hogwarts.school.utility.PreviewPyramid;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures decoding and resizing of an uploaded JPEG into previews of every single width and into the whole
+ * pyramid at once, against the former single preview drawn with default hints.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 3, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+public class PreviewPyramidBenchmark {
+    private final static float QUALITY = 0.85f;
+
+    @Param({"64", "128", "256", "64,128,256"})
+    private String widths;
+
+    @Param({"640", "2048"})
+    private int imageWidth;
+
+    private int[] previewWidths;
+
+    private byte[] image;
+
+    public static void main(String[] args) throws Exception {
+        org.openjdk.jmh.Main.main(new String[]{PreviewPyramidBenchmark.class.getName()});
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        previewWidths = Arrays.stream(widths.split(",")).mapToInt(Integer::parseInt).toArray();
+        int imageHeight = imageWidth * 3 / 4;
+        BufferedImage source = new BufferedImage(imageWidth, imageHeight, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = source.createGraphics();
+        Random random = new Random(imageWidth);
+        for (int i = 0; i < 200; i++) {
+            graphics.setColor(new Color(random.nextInt(0xFFFFFF)));
+            graphics.fillOval(random.nextInt(imageWidth), random.nextInt(imageHeight),
+                    random.nextInt(imageWidth / 4) + 1, random.nextInt(imageHeight / 4) + 1);
+        }
+        graphics.dispose();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ImageIO.write(source, "jpg", baos);
+        image = baos.toByteArray();
+    }
+
+    @Benchmark
+    public SortedMap<Integer, byte[]> pyramid() throws IOException {
+        return PreviewPyramid.generate(image, previewWidths, QUALITY);
+    }
+
+    /**
+     * Decodes the whole image and draws it with nearest neighbour once per width, as previews were made before.
+     */
+    @Benchmark
+    public int defaultHints() throws IOException {
+        int size = 0;
+        for (int width : previewWidths) {
+            BufferedImage decoded;
+            try (ImageInputStream iis = ImageIO.createImageInputStream(new ByteArrayInputStream(image))) {
+                Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+                ImageReader reader = readers.next();
+                reader.setInput(iis, true, true);
+                decoded = reader.read(0);
+                reader.dispose();
+            }
+            int height = decoded.getHeight() * width / decoded.getWidth();
+            BufferedImage preview = new BufferedImage(width, height, decoded.getType());
+            Graphics2D graphics = preview.createGraphics();
+            graphics.drawImage(decoded, 0, 0, width, height, null);
+            graphics.dispose();
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            ImageIO.write(preview, "jpg", baos);
+            size += baos.size();
+        }
+        return size;
+    }
+}
@@ -0,0 +1,77 @@
+package ru.hogwarts.school.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.service.AnalyticsService;
+import ru.hogwarts.school.service.StudentService;
+
+import java.util.Collection;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hot paths of {@link StudentService} against embedded H2 seeded with the given number of students.
+ * Lookups pick random ids, so with more students than the cache holds most of them go to the database.
+ * Names of students must be unique, so every created student gets its own name.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+public class StudentServiceBenchmark {
+    private final static int FACULTIES = 8;
+
+    @Param({"1000", "100000", "1000000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+
+    private StudentService studentService;
+
+    private AnalyticsService analyticsService;
+
+    private long created;
+
+    public static void main(String[] args) throws Exception {
+        org.openjdk.jmh.Main.main(new String[]{StudentServiceBenchmark.class.getName()});
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkDatabase.start("students-" + rows);
+        BenchmarkDatabase.seed(context, FACULTIES, rows);
+        studentService = context.getBean(StudentService.class);
+        analyticsService = context.getBean(AnalyticsService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Student getStudent() {
+        return studentService.getStudent(1 + ThreadLocalRandom.current().nextInt(rows));
+    }
+
+    @Benchmark
+    public Student createStudent() {
+        long facultyId = 1 + ThreadLocalRandom.current().nextInt(FACULTIES);
+        return studentService.createStudent(new Student(0, "Benchmark" + created++, 15, null), facultyId);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Collection<Student> getStudentsOfAge() {
+        return studentService.getStudentsOfAge(7 + ThreadLocalRandom.current().nextInt(14));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public double computeAverageAge() {
+        return analyticsService.computeAverageAge();
+    }
+}
@@ -0,0 +1,169 @@
+package ru.hogwarts.school.benchmark;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.hogwarts.school.HogwartsApplication;
+import ru.hogwarts.school.model.Faculty;
+import ru.hogwarts.school.repository.FacultyRepository;
+import ru.hogwarts.school.repository.StudentRepository;
+import ru.hogwarts.school.service.AvatarService;
+import ru.hogwarts.school.service.ImportService;
+import ru.hogwarts.school.utility.ImportFormat;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Compares throughput and latency of the web tier running on platform threads and on virtual threads.
+ * The application is started in each mode against its own database, then 'load.connections' requests
+ * are kept in flight for 'load.seconds', mixing searches blocking on JDBC with downloads of an avatar.
+ * Requests of the first 'load.warmup-seconds' are not measured. The embedded H2 answers in microseconds,
+ * set 'load.datasource.url' (and '.username', '.password') to measure against a database over the network.
+ * Virtual threads require Java 21, on older runtimes that mode is skipped.
+ * <p>
+ * java -Dload.connections=2000 -cp target/test-classes:target/classes:... ru.hogwarts.school.benchmark.WebTierLoadHarness
+ */
+public class WebTierLoadHarness {
+    private final static int STUDENTS = 1000;
+
+    private final static int CONNECTIONS = Integer.getInteger("load.connections", 1000);
+
+    private final static int SECONDS = Integer.getInteger("load.seconds", 30);
+
+    private final static int WARMUP_SECONDS = Integer.getInteger("load.warmup-seconds", 10);
+
+    public static void main(String[] args) throws Exception {
+        System.out.printf("%-9s %11s %8s %12s %9s %9s %9s%n",
+                "threads", "requests", "errors", "requests/s", "p50, ms", "p99, ms", "max, ms");
+        for (boolean virtual : new boolean[]{false, true}) {
+            if (virtual && Runtime.version().feature() < 21) {
+                System.out.printf("%-9s skipped, requires Java 21, but it is %s%n", mode(virtual), Runtime.version());
+                continue;
+            }
+            ConfigurableApplicationContext context = start(virtual);
+            try {
+                run(virtual, seed(context));
+            } finally {
+                context.close();
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext start(boolean virtual) throws Exception {
+        String mode = mode(virtual);
+        return new SpringApplicationBuilder(HogwartsApplication.class)
+                .properties("server.port=0",
+                        "server.tomcat.accept-count=" + CONNECTIONS,
+                        "spring.threads.virtual.enabled=" + virtual,
+                        "spring.datasource.url=" + System.getProperty("load.datasource.url",
+                                "jdbc:h2:mem:load-" + mode + ";DB_CLOSE_DELAY=-1;MODE=PostgreSQL"),
+                        "spring.datasource.username=" + System.getProperty("load.datasource.username", ""),
+                        "spring.datasource.password=" + System.getProperty("load.datasource.password", ""),
+                        "spring.liquibase.enabled=false",
+                        "spring.jpa.show-sql=false",
+                        "students.avatars.dir.path=" + Files.createTempDirectory("avatars-" + mode),
+                        "logging.level.root=warn",
+                        "logging.level.ru.hogwarts.school=warn")
+                .run();
+    }
+
+    /**
+     * Imports students of every age into one faculty and uploads an avatar of the first of them.
+     */
+    private static List<String> seed(ConfigurableApplicationContext context) throws Exception {
+        long facultyId = context.getBean(FacultyRepository.class).save(new Faculty(0, "Load", "grey")).getId();
+        String rows = IntStream.range(0, STUDENTS)
+                .mapToObj(i -> "Student" + i + "," + (7 + i % 14))
+                .collect(Collectors.joining("\n", "name,age\n", "\n"));
+        context.getBean(ImportService.class)
+                .importStudents(new ByteArrayInputStream(rows.getBytes()), ImportFormat.CSV, facultyId);
+        long studentId = context.getBean(StudentRepository.class).findAll().iterator().next().getId();
+
+        BufferedImage image = new BufferedImage(400, 300, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream avatar = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", avatar);
+        context.getBean(AvatarService.class)
+                .uploadStudentAvatar(studentId, new ByteArrayInputStream(avatar.toByteArray()), "image/png");
+
+        String url = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+        return List.of(url + "/students/search?age=",
+                url + "/faculties/" + facultyId + "/students",
+                url + "/avatars/" + studentId + "/real");
+    }
+
+    private static void run(boolean virtual, List<String> urls) throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+        Semaphore inFlight = new Semaphore(CONNECTIONS);
+        Queue<Long> latencies = new ConcurrentLinkedQueue<>();
+        AtomicLong errors = new AtomicLong();
+        long measureFrom = System.nanoTime() + TimeUnit.SECONDS.toNanos(WARMUP_SECONDS);
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(SECONDS);
+
+        long sent = 0;
+        while (System.nanoTime() < end) {
+            inFlight.acquire();
+            String url = urls.get((int) (sent++ % urls.size()));
+            if (url.endsWith("=")) {
+                url += 7 + ThreadLocalRandom.current().nextInt(14);
+            }
+            long start = System.nanoTime();
+            client.sendAsync(HttpRequest.newBuilder(URI.create(url)).build(), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, e) -> {
+                        long finish = System.nanoTime();
+                        inFlight.release();
+                        if (start < measureFrom || finish > end) {
+                            return;
+                        }
+                        if (e != null || response.statusCode() != 200) {
+                            errors.incrementAndGet();
+                        } else {
+                            latencies.add(finish - start);
+                        }
+                    });
+        }
+        inFlight.acquire(CONNECTIONS);
+
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        System.out.printf("%-9s %11d %8d %12.0f %9.1f %9.1f %9.1f%n",
+                mode(virtual),
+                sorted.length,
+                errors.get(),
+                (double) sorted.length / SECONDS,
+                percentile(sorted, 0.5),
+                percentile(sorted, 0.99),
+                percentile(sorted, 1));
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return Double.NaN;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1);
+        return sorted[Math.max(index, 0)] / 1_000_000.0;
+    }
+
+    private static String mode(boolean virtual) {
+        return virtual ? "virtual" : "platform";
+    }
+}
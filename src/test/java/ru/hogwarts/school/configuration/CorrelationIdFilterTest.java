@@ -0,0 +1,52 @@
+package ru.hogwarts.school.configuration;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static ru.hogwarts.school.configuration.CorrelationIdFilter.REQUEST_ID;
+import static ru.hogwarts.school.configuration.CorrelationIdFilter.REQUEST_ID_HEADER;
+import static ru.hogwarts.school.constants.Constants.TEST;
+
+public class CorrelationIdFilterTest {
+    private final CorrelationIdFilter out = new CorrelationIdFilter();
+
+    @Test
+    public void doFilter_shouldUseRequestIdOfHeader() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/students");
+        request.addHeader(REQUEST_ID_HEADER, TEST);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AtomicReference<String> logged = new AtomicReference<>();
+
+        out.doFilter(request, response, new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req,
+                                   HttpServletResponse resp) {
+                logged.set(MDC.get(REQUEST_ID));
+            }
+        }));
+
+        assertEquals(TEST, logged.get());
+        assertEquals(TEST, response.getHeader(REQUEST_ID_HEADER));
+        assertNull(MDC.get(REQUEST_ID));
+    }
+
+    @Test
+    public void doFilter_shouldGenerateRequestIdIfHeaderIsMissing() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        out.doFilter(new MockHttpServletRequest("GET", "/students"), response, new MockFilterChain());
+
+        String requestId = response.getHeader(REQUEST_ID_HEADER);
+        assertNotNull(requestId);
+        assertFalse(requestId.isBlank());
+        assertNull(MDC.get(REQUEST_ID));
+    }
+}
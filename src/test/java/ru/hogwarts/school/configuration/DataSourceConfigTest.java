@@ -0,0 +1,43 @@
+package ru.hogwarts.school.configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DataSourceConfigTest {
+    @Test
+    public void getPoolSize_shouldFollowCoresOfDatabase() {
+        assertEquals(9, DataSourceConfig.getPoolSize(4, 90, 1));
+        assertEquals(3, DataSourceConfig.getPoolSize(1, 90, 1));
+    }
+
+    @Test
+    public void getPoolSize_shouldNotExceedShareOfConnections() {
+        assertEquals(30, DataSourceConfig.getPoolSize(32, 90, 3));
+        assertEquals(1, DataSourceConfig.getPoolSize(4, 10, 20));
+        assertEquals(1, DataSourceConfig.getPoolSize(4, 0, 0));
+    }
+
+    @Test
+    public void dataSource_shouldKeepDefaultSizeIfCoresOfDatabaseAreNotSet() {
+        assertEquals(10, createDataSource(0).getMaximumPoolSize());
+        assertEquals(9, createDataSource(4).getMaximumPoolSize());
+    }
+
+    private HikariDataSource createDataSource(int databaseCores) {
+        DataSourceConfig config = new DataSourceConfig();
+        ReflectionTestUtils.setField(config, "databaseCores", databaseCores);
+        ReflectionTestUtils.setField(config, "maxConnections", 100);
+        ReflectionTestUtils.setField(config, "reservedConnections", 10);
+        ReflectionTestUtils.setField(config, "instances", 1);
+        DataSourceProperties properties = new DataSourceProperties();
+        properties.setUrl("jdbc:h2:mem:pool");
+        HikariDataSource dataSource = config.dataSource(properties);
+        // the default size is applied when the pool starts
+        dataSource.validate();
+        return dataSource;
+    }
+}
@@ -0,0 +1,63 @@
+package ru.hogwarts.school.configuration;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static ru.hogwarts.school.constants.Constants.TEST;
+import static ru.hogwarts.school.constants.Constants.TEST2;
+
+public class LogRateLimitFilterTest {
+    private final static int EVENTS_PER_SECOND = 3;
+
+    private Logger logger;
+
+    private LogRateLimitFilter out;
+
+    @BeforeEach
+    public void setup() {
+        LoggerContext context = new LoggerContext();
+        logger = context.getLogger(TEST);
+        logger.setLevel(Level.DEBUG);
+        out = new LogRateLimitFilter();
+        out.setLevel("INFO");
+        out.setEventsPerSecond(EVENTS_PER_SECOND);
+    }
+
+    @Test
+    public void decide_shouldDropEventsOverLimitOfLogger() {
+        for (int i = 0; i < EVENTS_PER_SECOND; i++) {
+            assertEquals(FilterReply.NEUTRAL, decide(logger, Level.DEBUG));
+        }
+        FilterReply reply = decide(logger, Level.INFO);
+        // the limit is per second, the next second may have started meanwhile
+        assertTrue(reply == FilterReply.DENY || reply == FilterReply.NEUTRAL);
+        assertEquals(FilterReply.NEUTRAL, decide(logger.getLoggerContext().getLogger(TEST2), Level.INFO));
+    }
+
+    @Test
+    public void decide_shouldNotLimitWarningsAndErrors() {
+        for (int i = 0; i < EVENTS_PER_SECOND * 2; i++) {
+            assertEquals(FilterReply.NEUTRAL, decide(logger, Level.WARN));
+            assertEquals(FilterReply.NEUTRAL, decide(logger, Level.ERROR));
+        }
+    }
+
+    @Test
+    public void decide_shouldNotCountLevelChecksAndDisabledEvents() {
+        logger.setLevel(Level.INFO);
+        for (int i = 0; i < EVENTS_PER_SECOND * 2; i++) {
+            assertEquals(FilterReply.NEUTRAL, out.decide(null, logger, Level.INFO, null, null, null));
+            assertEquals(FilterReply.NEUTRAL, decide(logger, Level.DEBUG));
+        }
+        assertEquals(FilterReply.NEUTRAL, decide(logger, Level.INFO));
+    }
+
+    private FilterReply decide(Logger logger, Level level) {
+        return out.decide(null, logger, level, "Message {}", new Object[]{TEST}, null);
+    }
+}
@@ -0,0 +1,74 @@
+package ru.hogwarts.school.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.hogwarts.school.exception.FacultyNotFoundException;
+import ru.hogwarts.school.exception.InvalidStudentPropsException;
+import ru.hogwarts.school.repository.FacultyRepository;
+import ru.hogwarts.school.repository.StudentRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+import static ru.hogwarts.school.constants.Constants.*;
+
+public class AnalyticsServiceImplTest {
+    private StudentRepository studentRepository;
+
+    private FacultyRepository facultyRepository;
+
+    private AnalyticsService out;
+
+    @BeforeEach
+    public void setup() {
+        studentRepository = mock(StudentRepository.class);
+        facultyRepository = mock(FacultyRepository.class);
+        out = new AnalyticsServiceImpl(studentRepository, facultyRepository);
+    }
+
+    @Test
+    public void test_computeAverageAge() {
+        when(studentRepository.computeAverageAge()).thenReturn((AGE + AGE + AGE2) / 3.0);
+        assertEquals(13.67, out.computeAverageAge());
+    }
+
+    @Test
+    public void computeAverageAge_shouldReturnZeroIfRepositoryIsEmpty() {
+        when(studentRepository.computeAverageAge()).thenReturn(null);
+        assertEquals(0, out.computeAverageAge());
+    }
+
+    @Test
+    public void test_getStudentNamesStartingWith() {
+        when(studentRepository.findUpperCaseNamesByPattern("A%")).thenReturn(List.of("ALEX"));
+
+        List<String> actual = out.getStudentNamesStartingWith("A").stream().toList();
+        assertEquals(List.of("ALEX"), actual);
+    }
+
+    @Test
+    public void getStudentNamesStartingWith_shouldEscapeWildcards() {
+        out.getStudentNamesStartingWith("A_%");
+        verify(studentRepository, times(1)).findUpperCaseNamesByPattern("A\\_\\%%");
+    }
+
+    @Test
+    public void getStudentNamesStartingWith_shouldThrowIfPrefixIsEmpty() {
+        assertThrows(InvalidStudentPropsException.class, () -> out.getStudentNamesStartingWith(""));
+    }
+
+    @Test
+    public void test_getLongestFacultyName() {
+        when(facultyRepository.findLongestName()).thenReturn(Optional.of(TEST2));
+        assertEquals(TEST2, out.getLongestFacultyName());
+    }
+
+    @Test
+    public void getLongestFacultyName_shouldThrowIfEmptyRepository() {
+        when(facultyRepository.findLongestName()).thenReturn(Optional.empty());
+        assertThrows(FacultyNotFoundException.class, () -> out.getLongestFacultyName());
+    }
+}
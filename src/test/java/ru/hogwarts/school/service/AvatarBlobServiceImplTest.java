@@ -0,0 +1,122 @@
+package ru.hogwarts.school.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.hogwarts.school.model.AvatarBlob;
+import ru.hogwarts.school.repository.AvatarBlobRepository;
+import ru.hogwarts.school.storage.LocalAvatarStorage;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static ru.hogwarts.school.constants.Constants.TEST;
+import static ru.hogwarts.school.constants.Constants.TEST2;
+
+public class AvatarBlobServiceImplTest {
+    private final static String TEST_HASH = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+
+    private final static Duration GRACE_PERIOD = Duration.ofHours(1);
+
+    @TempDir
+    private Path root;
+
+    private AvatarBlobRepository avatarBlobRepository;
+
+    private AvatarBlobService out;
+
+    @BeforeEach
+    public void setup() {
+        avatarBlobRepository = mock(AvatarBlobRepository.class);
+        out = new AvatarBlobServiceImpl(avatarBlobRepository, mock(PlatformTransactionManager.class),
+                new LocalAvatarStorage(root), GRACE_PERIOD);
+    }
+
+    @Test
+    public void store_shouldKeepSameContentOnce() throws IOException {
+        assertEquals(TEST_HASH, out.store(toStream(TEST)));
+        assertEquals(TEST_HASH, out.store(toStream(TEST)));
+
+        assertEquals(TEST, Files.readString(getPath(TEST_HASH)));
+        verify(avatarBlobRepository, times(2)).addReferenceOrInsert(TEST_HASH, TEST.length());
+        try (var files = Files.list(root.resolve("tmp"))) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    public void releaseAll_shouldReleaseBlobsOfSameCountByOneUpdate() {
+        String other = TEST_HASH.replace('9', 'a');
+        String shared = TEST_HASH.replace('9', 'b');
+        when(avatarBlobRepository.removeReferences(anyCollection(), anyLong(), any(Instant.class))).thenReturn(2, 1);
+
+        out.releaseAll(List.of(TEST_HASH, shared, other, shared));
+        verify(avatarBlobRepository, times(1))
+                .removeReferences(argThat(hashes -> Set.copyOf(hashes).equals(Set.of(TEST_HASH, other))),
+                        eq(1L), any(Instant.class));
+        verify(avatarBlobRepository, times(1)).removeReferences(eq(List.of(shared)), eq(2L), any(Instant.class));
+        verify(avatarBlobRepository, never()).removeReference(anyString(), any(Instant.class));
+    }
+
+    @Test
+    public void collectGarbage_shouldDeleteUnreferencedBlobs() throws IOException {
+        Path path = getPath(TEST_HASH);
+        Files.createDirectories(path.getParent());
+        Files.writeString(path, TEST);
+        AvatarBlob blob = new AvatarBlob(TEST_HASH, TEST.length(), 0);
+        when(avatarBlobRepository.findUnreferencedHashes(any(Instant.class), any(Pageable.class)))
+                .thenReturn(List.of(TEST_HASH));
+        when(avatarBlobRepository.lockUnreferenced(TEST_HASH)).thenReturn(Optional.of(blob));
+        when(avatarBlobRepository.existsById(anyString())).thenReturn(true);
+
+        out.collectGarbage();
+        assertFalse(Files.exists(path));
+        verify(avatarBlobRepository, times(1)).delete(blob);
+    }
+
+    @Test
+    public void collectGarbage_shouldDeleteOnlyOldOrphanFiles() throws IOException {
+        when(avatarBlobRepository.findUnreferencedHashes(any(Instant.class), any(Pageable.class))).thenReturn(List.of());
+        when(avatarBlobRepository.existsById(anyString())).thenReturn(false);
+        Path oldOrphan = write(TEST_HASH, TEST, Instant.now().minus(GRACE_PERIOD.multipliedBy(2)));
+        Path newOrphan = write(TEST_HASH.replace('9', 'a'), TEST2, Instant.now());
+        Path oldTemp = Files.createDirectories(root.resolve("tmp")).resolve("upload1.tmp");
+        Files.writeString(oldTemp, TEST);
+        Files.setLastModifiedTime(oldTemp, FileTime.from(Instant.now().minus(GRACE_PERIOD.multipliedBy(2))));
+
+        out.collectGarbage();
+        assertFalse(Files.exists(oldOrphan));
+        assertFalse(Files.exists(oldTemp));
+        assertTrue(Files.exists(newOrphan));
+    }
+
+    private Path write(String hash, String content, Instant modified) throws IOException {
+        Path path = getPath(hash);
+        Files.createDirectories(path.getParent());
+        Files.writeString(path, content);
+        Files.setLastModifiedTime(path, FileTime.from(modified));
+        return path;
+    }
+
+    private Path getPath(String hash) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    private ByteArrayInputStream toStream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,180 @@
+package ru.hogwarts.school.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import ru.hogwarts.school.exception.PreviewQueueIsFullException;
+import ru.hogwarts.school.model.Avatar;
+import ru.hogwarts.school.model.PreviewImage;
+import ru.hogwarts.school.model.PreviewStatus;
+import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.repository.AvatarRepository;
+import ru.hogwarts.school.repository.PreviewImageRepository;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static ru.hogwarts.school.constants.Constants.ID;
+import static ru.hogwarts.school.constants.Constants.TEST;
+
+public class AvatarPreviewServiceImplTest {
+    private final static int MAX_PENDING = 2;
+
+    private final static String TEST_HASH = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+
+    private final static int[] WIDTHS = {64, 128, 256};
+
+    private AvatarRepository avatarRepository;
+
+    private PreviewImageRepository previewImageRepository;
+
+    private AvatarBlobService avatarBlobService;
+
+    private PlatformTransactionManager transactionManager;
+
+    private Avatar avatar;
+
+    private List<Runnable> queuedTasks;
+
+    private AvatarPreviewService out;
+
+    @BeforeEach
+    public void setup() {
+        avatarRepository = mock(AvatarRepository.class);
+        previewImageRepository = mock(PreviewImageRepository.class);
+        avatarBlobService = mock(AvatarBlobService.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        avatar = new Avatar();
+        avatar.setId(ID);
+        avatar.setBlobHash(TEST_HASH);
+        Student student = new Student();
+        student.setId(ID);
+        avatar.setStudent(student);
+        when(avatarRepository.findByStudentId(ID)).thenReturn(Optional.of(avatar));
+        when(avatarRepository.updatePreview(eq(ID), eq(TEST_HASH), any(), any())).thenReturn(1);
+        queuedTasks = new ArrayList<>();
+        out = new AvatarPreviewServiceImpl(avatarRepository, previewImageRepository, avatarBlobService,
+                transactionManager, queuedTasks::add, MAX_PENDING, WIDTHS, 0.85f, Duration.ofMinutes(10));
+    }
+
+    @Test
+    public void requestPreview_shouldSavePreviewWhenGenerated() throws IOException {
+        ByteArrayOutputStream image = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(400, 200, BufferedImage.TYPE_INT_RGB), "png", image);
+
+        out.requestPreview(ID, TEST_HASH, image.toByteArray());
+        verify(previewImageRepository, never()).save(any());
+        queuedTasks.forEach(Runnable::run);
+
+        ArgumentCaptor<PreviewImage> previews = ArgumentCaptor.forClass(PreviewImage.class);
+        verify(previewImageRepository).deleteByAvatarId(ID);
+        verify(previewImageRepository, times(WIDTHS.length)).save(previews.capture());
+        assertEquals(List.of(64, 128, 256), previews.getAllValues().stream().map(PreviewImage::getWidth).toList());
+        ArgumentCaptor<byte[]> smallest = ArgumentCaptor.forClass(byte[].class);
+        verify(avatarRepository).updatePreview(eq(ID), eq(TEST_HASH), smallest.capture(), eq(PreviewStatus.READY));
+        assertEquals(64, ImageIO.read(new ByteArrayInputStream(smallest.getValue())).getWidth());
+    }
+
+    @Test
+    public void requestPreview_shouldDropPreviewsOfReplacedAvatar() throws IOException {
+        ByteArrayOutputStream image = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(400, 200, BufferedImage.TYPE_INT_RGB), "png", image);
+
+        out.requestPreview(ID, TEST_HASH + TEST, image.toByteArray());
+        queuedTasks.forEach(Runnable::run);
+
+        verify(avatarRepository).updatePreview(eq(ID), eq(TEST_HASH + TEST), any(), eq(PreviewStatus.READY));
+        verify(previewImageRepository, never()).deleteByAvatarId(anyLong());
+        verify(previewImageRepository, never()).save(any());
+    }
+
+    @Test
+    public void requestPreview_shouldMarkPreviewFailedIfFileIsNotImage() throws IOException {
+        out.requestPreview(ID, TEST_HASH, TEST.getBytes());
+        queuedTasks.forEach(Runnable::run);
+        verify(previewImageRepository).deleteByAvatarId(ID);
+        verify(previewImageRepository, never()).save(any());
+        verify(avatarRepository).updatePreview(ID, TEST_HASH, null, PreviewStatus.FAILED);
+    }
+
+    @Test
+    public void requestPreview_shouldRejectWhenTooManyPreviewsArePending() {
+        for (int i = 0; i < MAX_PENDING; i++) {
+            out.requestPreview(ID, TEST_HASH, TEST.getBytes());
+        }
+        assertThrows(PreviewQueueIsFullException.class, () -> out.requestPreview(ID, TEST_HASH, TEST.getBytes()));
+
+        queuedTasks.get(0).run();
+        assertDoesNotThrow(() -> out.requestPreview(ID, TEST_HASH, TEST.getBytes()));
+    }
+
+    @Test
+    public void requestPreview_shouldMarkPreviewFailedInNewTransactionWhenTaskIsRejected() {
+        out = new AvatarPreviewServiceImpl(avatarRepository, previewImageRepository, avatarBlobService,
+                transactionManager, task -> {
+            throw new TaskRejectedException(TEST);
+        }, MAX_PENDING, WIDTHS, 0.85f, Duration.ofMinutes(10));
+
+        out.requestPreview(ID, TEST_HASH, TEST.getBytes());
+
+        verify(avatarRepository).updatePreview(ID, TEST_HASH, null, PreviewStatus.FAILED);
+        ArgumentCaptor<TransactionDefinition> definition = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(transactionManager).getTransaction(definition.capture());
+        assertEquals(TransactionDefinition.PROPAGATION_REQUIRES_NEW, definition.getValue().getPropagationBehavior());
+        assertDoesNotThrow(() -> {
+            for (int i = 0; i < MAX_PENDING; i++) {
+                out.requestPreview(ID, TEST_HASH, TEST.getBytes());
+            }
+        });
+    }
+
+    @Test
+    public void retryPendingPreviews_shouldGeneratePreviewAgainFromStoredFile() throws IOException {
+        ByteArrayOutputStream image = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(400, 200, BufferedImage.TYPE_INT_RGB), "png", image);
+        when(avatarRepository.findPendingPreviewsRequestedBefore(any(), any())).thenReturn(List.of(avatar));
+        when(avatarRepository.claimPendingPreview(eq(ID), eq(TEST_HASH), any(), any())).thenReturn(1);
+        when(avatarBlobService.open(TEST_HASH)).thenReturn(new ByteArrayInputStream(image.toByteArray()));
+
+        out.retryPendingPreviews();
+        queuedTasks.forEach(Runnable::run);
+
+        verify(previewImageRepository, times(WIDTHS.length)).save(any());
+        verify(avatarRepository).updatePreview(eq(ID), eq(TEST_HASH), any(), eq(PreviewStatus.READY));
+    }
+
+    @Test
+    public void retryPendingPreviews_shouldSkipPreviewClaimedMeanwhile() throws IOException {
+        when(avatarRepository.findPendingPreviewsRequestedBefore(any(), any())).thenReturn(List.of(avatar));
+
+        out.retryPendingPreviews();
+
+        verify(avatarBlobService, never()).open(any());
+        assertTrue(queuedTasks.isEmpty());
+    }
+
+    @Test
+    public void retryPendingPreviews_shouldMarkPreviewFailedIfFileCantBeRead() throws IOException {
+        when(avatarRepository.findPendingPreviewsRequestedBefore(any(), any())).thenReturn(List.of(avatar));
+        when(avatarRepository.claimPendingPreview(eq(ID), eq(TEST_HASH), any(), any())).thenReturn(1);
+        when(avatarBlobService.open(TEST_HASH)).thenThrow(new IOException(TEST));
+
+        out.retryPendingPreviews();
+
+        assertTrue(queuedTasks.isEmpty());
+        verify(avatarRepository).updatePreview(ID, TEST_HASH, null, PreviewStatus.FAILED);
+    }
+}
@@ -2,28 +2,48 @@ package ru.hogwarts.school.service;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.transaction.PlatformTransactionManager;
 import ru.hogwarts.school.exception.AvatarNotFoundException;
+import ru.hogwarts.school.exception.FileIsTooBigException;
+import ru.hogwarts.school.exception.InvalidPageLimitException;
 import ru.hogwarts.school.model.Avatar;
 import ru.hogwarts.school.repository.AvatarRepository;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
 import static ru.hogwarts.school.constants.Constants.ID;
+import static ru.hogwarts.school.constants.Constants.TEST;
+import static ru.hogwarts.school.utility.InputValidator.MAX_PAGE_LIMIT;
 
 public class AvatarServiceImplTest {
+    private final static String TEST_HASH = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+
     private AvatarRepository avatarRepository;
     private StudentService studentService;
+    private AvatarPreviewService avatarPreviewService;
+    private AvatarBlobService avatarBlobService;
     private AvatarService out;
 
     @BeforeEach
     public void setup() {
         avatarRepository = mock(AvatarRepository.class);
         studentService = mock(StudentService.class);
-        out = new AvatarServiceImpl(avatarRepository, studentService);
+        avatarPreviewService = mock(AvatarPreviewService.class);
+        avatarBlobService = mock(AvatarBlobService.class);
+        out = new AvatarServiceImpl(avatarRepository, studentService, avatarPreviewService, avatarBlobService,
+                mock(PlatformTransactionManager.class));
     }
 
     @Test
@@ -32,9 +52,51 @@ public class AvatarServiceImplTest {
         assertEquals(new Avatar(), out.findAvatar(ID));
     }
 
+    @Test
+    public void uploadStudentAvatar_shouldStoreContentOnceAndGiveSameBytesToPreview() throws IOException {
+        byte[] image = TEST.getBytes();
+        when(avatarRepository.findByStudentId(ID)).thenReturn(Optional.empty());
+        when(avatarBlobService.store(any(InputStream.class))).thenReturn(TEST_HASH);
+
+        out.uploadStudentAvatar(ID, new ByteArrayInputStream(image), MediaType.IMAGE_PNG_VALUE);
+        verify(avatarBlobService, times(1)).store(any(InputStream.class));
+        verify(avatarPreviewService).requestPreview(ID, TEST_HASH, image);
+        verify(avatarRepository).save(argThat(avatar -> TEST_HASH.equals(avatar.getBlobHash())
+                && avatar.getFileSize() == image.length));
+    }
+
+    @Test
+    public void uploadStudentAvatar_shouldRejectTooBigFileWithoutReadingItToEnd() throws IOException {
+        InputStream content = spy(new ByteArrayInputStream(new byte[1024 * 1024]));
+
+        assertThrows(FileIsTooBigException.class,
+                () -> out.uploadStudentAvatar(ID, content, MediaType.IMAGE_PNG_VALUE));
+        assertTrue(content.available() > 0);
+        verify(avatarBlobService, never()).store(any(InputStream.class));
+        verify(avatarRepository, never()).save(any(Avatar.class));
+    }
+
     @Test
     public void findAvatarOrThrow_shouldThrowIfStudentHasNoAvatar() {
         when(avatarRepository.findByStudentId(ID)).thenReturn(Optional.empty());
         assertThrows(AvatarNotFoundException.class, () -> out.findAvatarOrThrow(ID));
     }
+
+    @Test
+    public void getPreview_shouldThrowIfStudentHasNoAvatar() {
+        when(avatarRepository.findPreviewByStudentId(ID)).thenReturn(Optional.empty());
+        assertThrows(AvatarNotFoundException.class, () -> out.getPreview(ID));
+    }
+
+    @Test
+    public void getAvatarsPerPage_shouldThrowIfLimitIsInvalid() {
+        assertThrows(InvalidPageLimitException.class, () -> out.getAvatarsPerPage(1, MAX_PAGE_LIMIT + 1));
+        assertThrows(InvalidPageLimitException.class, () -> out.getAvatarsPerPage(1, 0));
+    }
+
+    @Test
+    public void getPreviews_shouldLoadEveryStudentOnce() {
+        out.getPreviews(List.of(ID, ID, ID + 1));
+        verify(avatarRepository).findPreviewsByStudentIdIn(Set.of(ID, ID + 1));
+    }
 }
@@ -0,0 +1,64 @@
+package ru.hogwarts.school.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import ru.hogwarts.school.dto.SumResult;
+import ru.hogwarts.school.exception.InvalidComputeParamsException;
+import ru.hogwarts.school.utility.SumStrategy;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ComputeServiceImplTest {
+    private final static long MAX_N = 10_000_000;
+
+    private final static int MAX_PARALLELISM = 4;
+
+    private ComputeServiceImpl out;
+
+    @BeforeEach
+    public void setup() {
+        out = new ComputeServiceImpl(MAX_N, MAX_PARALLELISM);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        out.shutdown();
+    }
+
+    @ParameterizedTest
+    @EnumSource(SumStrategy.class)
+    public void sum_shouldNotOverflowInt(SumStrategy strategy) {
+        SumResult result = out.sum(MAX_N, strategy, MAX_PARALLELISM);
+        assertEquals(MAX_N * (MAX_N + 1) / 2, result.sum());
+        assertEquals(strategy, result.strategy());
+        assertEquals(MAX_PARALLELISM, result.parallelism());
+        assertTrue(result.elapsedMicros() >= 0);
+    }
+
+    @ParameterizedTest
+    @EnumSource(SumStrategy.class)
+    public void sum_shouldSumShortRanges(SumStrategy strategy) {
+        assertEquals(1, out.sum(1, strategy, 1).sum());
+        assertEquals(55, out.sum(10, strategy, 2).sum());
+        assertEquals(500_000_500_000L, out.sum(1_000_000, strategy, 3).sum());
+    }
+
+    @Test
+    public void sum_shouldThrowIfParamsAreInvalid() {
+        assertThrows(InvalidComputeParamsException.class, () -> out.sum(0, SumStrategy.RANGE, 1));
+        assertThrows(InvalidComputeParamsException.class, () -> out.sum(MAX_N + 1, SumStrategy.RANGE, 1));
+        assertThrows(InvalidComputeParamsException.class, () -> out.sum(10, SumStrategy.PARALLEL, 0));
+        assertThrows(InvalidComputeParamsException.class,
+                () -> out.sum(10, SumStrategy.PARALLEL, MAX_PARALLELISM + 1));
+    }
+
+    @Test
+    public void getMaxParallelism_shouldDefaultToAvailableProcessors() {
+        ComputeServiceImpl service = new ComputeServiceImpl(MAX_N, 0);
+        assertEquals(Runtime.getRuntime().availableProcessors(), service.getMaxParallelism());
+        service.shutdown();
+    }
+}
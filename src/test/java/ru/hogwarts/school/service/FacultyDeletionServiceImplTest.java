@@ -0,0 +1,147 @@
+package ru.hogwarts.school.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.hogwarts.school.dto.FacultyDeletion;
+import ru.hogwarts.school.exception.FacultyDeletionNotFoundException;
+import ru.hogwarts.school.exception.FacultyNotFoundException;
+import ru.hogwarts.school.model.Faculty;
+import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.repository.StudentRepository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static ru.hogwarts.school.configuration.CacheConfig.STUDENTS;
+import static ru.hogwarts.school.configuration.CacheConfig.STUDENT_FACULTIES;
+import static ru.hogwarts.school.constants.Constants.*;
+import static ru.hogwarts.school.dto.FacultyDeletion.Status.*;
+import static ru.hogwarts.school.model.FacultyStats.NO_FACULTY;
+
+public class FacultyDeletionServiceImplTest {
+    private final static int CHUNK_SIZE = 2;
+
+    private final static Faculty FACULTY = new Faculty(ID, TEST, COLOR);
+
+    private FacultyService facultyService;
+
+    private FacultyStatsService facultyStatsService;
+
+    private StudentRepository studentRepository;
+
+    private CacheManager cacheManager;
+
+    private List<Runnable> queuedTasks;
+
+    private FacultyDeletionService out;
+
+    @BeforeEach
+    public void setup() {
+        facultyService = mock(FacultyService.class);
+        facultyStatsService = mock(FacultyStatsService.class);
+        studentRepository = mock(StudentRepository.class);
+        when(facultyService.checkIfExist(ID)).thenReturn(FACULTY);
+        when(facultyService.getHeirFacultyId(ID)).thenReturn(NO_FACULTY);
+        when(studentRepository.countByFacultyId(ID)).thenReturn(5L);
+        cacheManager = new ConcurrentMapCacheManager(STUDENTS, STUDENT_FACULTIES);
+        queuedTasks = new ArrayList<>();
+        out = new FacultyDeletionServiceImpl(facultyService, facultyStatsService, studentRepository, cacheManager,
+                mock(PlatformTransactionManager.class), queuedTasks::add, CHUNK_SIZE, Duration.ZERO);
+    }
+
+    @Test
+    public void startDeletion_shouldMoveStudentsByChunksThenDeleteFaculty() {
+        List<Student> first = createStudents(1, 2);
+        List<Student> second = createStudents(3, 4);
+        List<Student> last = createStudents(5);
+        when(studentRepository.findWithFacultyByFacultyId(eq(ID), any(Pageable.class)))
+                .thenReturn(first)
+                .thenReturn(second)
+                .thenReturn(last);
+        when(studentRepository.moveToFaculty(anyCollection(), eq(NO_FACULTY))).thenReturn(2, 2, 1);
+        cacheManager.getCache(STUDENTS).put(1L, first.get(0));
+        cacheManager.getCache(STUDENT_FACULTIES).put(5L, FACULTY);
+        cacheManager.getCache(STUDENTS).put(ID * 100, first.get(0));
+
+        FacultyDeletion started = out.startDeletion(ID);
+        assertEquals(new FacultyDeletion(ID, NO_FACULTY, RUNNING, 5, 0), started);
+        verify(facultyService, never()).deleteFaculty(ID);
+
+        queuedTasks.forEach(Runnable::run);
+        verify(studentRepository).moveToFaculty(List.of(1L, 2L), NO_FACULTY);
+        verify(studentRepository).moveToFaculty(List.of(3L, 4L), NO_FACULTY);
+        verify(studentRepository).moveToFaculty(List.of(5L), NO_FACULTY);
+        verify(facultyStatsService).moveStudents(first, NO_FACULTY);
+        verify(facultyStatsService).moveStudents(second, NO_FACULTY);
+        verify(facultyStatsService).moveStudents(last, NO_FACULTY);
+        verify(facultyService).deleteFaculty(ID);
+        assertEquals(new FacultyDeletion(ID, NO_FACULTY, DONE, 5, 5), out.getDeletion(ID));
+        assertNull(cacheManager.getCache(STUDENTS).get(1L));
+        assertNull(cacheManager.getCache(STUDENT_FACULTIES).get(5L));
+        assertNotNull(cacheManager.getCache(STUDENTS).get(ID * 100));
+    }
+
+    @Test
+    public void startDeletion_shouldReturnRunningDeletion() {
+        FacultyDeletion started = out.startDeletion(ID);
+        assertSame(started, out.startDeletion(ID));
+        assertEquals(1, queuedTasks.size());
+    }
+
+    @Test
+    public void startDeletion_shouldReportFailure() {
+        List<Student> first = createStudents(1, 2);
+        when(studentRepository.findWithFacultyByFacultyId(eq(ID), any(Pageable.class)))
+                .thenReturn(first)
+                .thenReturn(List.of());
+        when(studentRepository.moveToFaculty(anyCollection(), eq(NO_FACULTY))).thenReturn(2);
+        doThrow(FacultyNotFoundException.class).when(facultyService).deleteFaculty(ID);
+
+        out.startDeletion(ID);
+        queuedTasks.forEach(Runnable::run);
+        assertEquals(new FacultyDeletion(ID, NO_FACULTY, FAILED, 5, 2), out.getDeletion(ID));
+        // statistics follow the students moved before the failure
+        verify(facultyStatsService).moveStudents(first, NO_FACULTY);
+    }
+
+    @Test
+    public void expireDeletions_shouldForgetOnlyFinishedDeletions() {
+        when(studentRepository.findWithFacultyByFacultyId(eq(ID), any(Pageable.class))).thenReturn(List.of());
+        when(facultyService.checkIfExist(ID2)).thenReturn(new Faculty(ID2, TEST2, COLOR));
+        out.startDeletion(ID);
+        queuedTasks.get(0).run();
+        out.startDeletion(ID2);
+
+        out.expireDeletions();
+        assertThrows(FacultyDeletionNotFoundException.class, () -> out.getDeletion(ID));
+        assertEquals(RUNNING, out.getDeletion(ID2).status());
+    }
+
+    @Test
+    public void startDeletion_shouldThrowIfFacultyDoesntExist() {
+        when(facultyService.checkIfExist(ID2)).thenThrow(FacultyNotFoundException.class);
+        assertThrows(FacultyNotFoundException.class, () -> out.startDeletion(ID2));
+        assertTrue(queuedTasks.isEmpty());
+    }
+
+    @Test
+    public void getDeletion_shouldThrowIfFacultyIsNotBeingDeleted() {
+        assertThrows(FacultyDeletionNotFoundException.class, () -> out.getDeletion(ID));
+    }
+
+    private static List<Student> createStudents(long... ids) {
+        List<Student> students = new ArrayList<>();
+        for (long id : ids) {
+            students.add(new Student(id, TEST + id, AGE, FACULTY));
+        }
+        return students;
+    }
+}
@@ -14,6 +14,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 import static ru.hogwarts.school.constants.Constants.*;
+import static ru.hogwarts.school.model.FacultyStats.NO_FACULTY;
 
 public class
 FacultyServiceImplTest {
@@ -21,13 +22,16 @@ FacultyServiceImplTest {
 
     private StudentRepository studentRepository;
 
+    private FacultyStatsService facultyStatsService;
+
     private FacultyService out;
 
     @BeforeEach
     public void setUp() {
         facultyRepository = mock(FacultyRepository.class);
         studentRepository = mock(StudentRepository.class);
-        out = new FacultyServiceImpl(facultyRepository, studentRepository);
+        facultyStatsService = mock(FacultyStatsService.class);
+        out = new FacultyServiceImpl(facultyRepository, studentRepository, facultyStatsService, NO_FACULTY);
         when(facultyRepository.save(any(Faculty.class))).thenReturn(new Faculty(ID, TEST, TEST));
     }
 
@@ -53,7 +57,6 @@ FacultyServiceImplTest {
     @Test
     public void test_updateFacultyInfo() {
         Faculty test = new Faculty(1, TEST2, TEST2);
-        when(facultyRepository.existsById(test.getId())).thenReturn(true);
         when(facultyRepository.save(test)).thenReturn(test);
         when(facultyRepository.findById(test.getId())).thenReturn(Optional.of(test));
 
@@ -63,21 +66,56 @@ FacultyServiceImplTest {
         out.updateFaculty(test);
 
         verify(facultyRepository, times(1)).save(test);
-        verify(facultyRepository, times(3)).existsById(test.getId());
+        verify(facultyRepository, times(3)).findById(test.getId());
+        verify(facultyRepository, never()).existsById(anyLong());
     }
 
     @Test
     public void updateFacultyInfo_shouldThrowIfFacultyDoesNotExist() {
-        when(facultyRepository.existsById(ID)).thenReturn(false);
+        when(facultyRepository.findById(ID)).thenReturn(Optional.empty());
         assertThrows(FacultyNotFoundException.class, () -> out.updateFaculty(new Faculty(ID, TEST, COLOR)));
     }
 
     @Test
     public void deleteFaculty_shouldThrowIfFacultyDoesntExist() {
-        when(facultyRepository.existsById(ID)).thenReturn(false);
+        when(facultyRepository.findById(ID)).thenReturn(Optional.empty());
         assertThrows(FacultyNotFoundException.class, () -> out.getFaculty(ID));
     }
 
+    @Test
+    public void deleteFaculty_shouldNotMoveStudentsOfMissingFaculty() {
+        when(facultyRepository.findById(ID)).thenReturn(Optional.empty());
+        assertThrows(FacultyNotFoundException.class, () -> out.deleteFaculty(ID));
+        verify(studentRepository, never()).moveAllToFaculty(anyLong(), anyLong());
+    }
+
+    @Test
+    public void deleteFaculty_shouldMoveStudentsOutOfFacultyByOneStatement() {
+        when(facultyRepository.findById(ID)).thenReturn(Optional.of(new Faculty(ID, TEST, COLOR)));
+
+        out.deleteFaculty(ID);
+
+        verify(studentRepository).moveAllToFaculty(ID, NO_FACULTY);
+        verify(studentRepository, never()).save(any());
+        verify(facultyRepository).deleteById(ID);
+        verify(facultyStatsService).removeFaculty(ID, NO_FACULTY);
+    }
+
+    @Test
+    public void deleteFaculty_shouldMoveStudentsToHeirFaculty() {
+        out = new FacultyServiceImpl(facultyRepository, studentRepository, facultyStatsService, ID2);
+        when(facultyRepository.findById(ID)).thenReturn(Optional.of(new Faculty(ID, TEST, COLOR)));
+        when(facultyRepository.findById(ID2)).thenReturn(Optional.of(new Faculty(ID2, TEST2, COLOR)));
+
+        out.deleteFaculty(ID);
+        verify(studentRepository).moveAllToFaculty(ID, ID2);
+        verify(facultyStatsService).removeFaculty(ID, ID2);
+
+        // the heir faculty itself leaves its students without faculty
+        out.deleteFaculty(ID2);
+        verify(studentRepository).moveAllToFaculty(ID2, NO_FACULTY);
+    }
+
     @Test
     public void getFacultiesOfColor_shouldThrowIfDBReturnsEmptyCollection() {
         when(facultyRepository.findByColorIgnoreCase(COLOR)).thenReturn(Collections.emptyList());
@@ -101,17 +139,6 @@ FacultyServiceImplTest {
         assertThrows(FacultyNotFoundException.class, () -> out.getFacultyByColorOrName(TEST, TEST));
     }
 
-    @Test
-    public void test_getLongestFacultyName() {
-        when(facultyRepository.findAll()).thenReturn(getAllFaculties());
-        assertEquals(TEST, out.getLongestFacultyName());
-    }
-
-    @Test
-    public void getLongestFacultyName_shouldThrowIfEmptyRepository() {
-        assertThrows(FacultyNotFoundException.class, () -> out.getLongestFacultyName());
-    }
-
     private List<Faculty> getAllFaculties() {
         List<Faculty> faculties = new ArrayList<>();
         faculties.add(new Faculty(ID, TEST, TEST));
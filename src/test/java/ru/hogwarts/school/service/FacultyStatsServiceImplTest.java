@@ -0,0 +1,140 @@
+package ru.hogwarts.school.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.hogwarts.school.dto.StudentStatistics;
+import ru.hogwarts.school.exception.FacultyNotFoundException;
+import ru.hogwarts.school.model.Faculty;
+import ru.hogwarts.school.model.FacultyStats;
+import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.repository.FacultyRepository;
+import ru.hogwarts.school.repository.FacultyStatsRepository;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static ru.hogwarts.school.constants.Constants.*;
+import static ru.hogwarts.school.model.FacultyStats.NO_FACULTY;
+
+public class FacultyStatsServiceImplTest {
+    private FacultyStatsRepository facultyStatsRepository;
+
+    private FacultyRepository facultyRepository;
+
+    private FacultyStatsService out;
+
+    @BeforeEach
+    public void setup() {
+        facultyStatsRepository = mock(FacultyStatsRepository.class);
+        facultyRepository = mock(FacultyRepository.class);
+        out = new FacultyStatsServiceImpl(facultyStatsRepository, facultyRepository);
+    }
+
+    @Test
+    public void addStudent_shouldIncrementOrInsertBucket() {
+        out.addStudent(FACULTY_ID, AGE);
+        verify(facultyStatsRepository, times(1)).addToCountOrInsert(FACULTY_ID, AGE, 1);
+        verifyNoMoreInteractions(facultyStatsRepository);
+    }
+
+    @Test
+    public void removeStudent_shouldNotInsertNegativeBucket() {
+        out.removeStudent(FACULTY_ID, AGE);
+        verify(facultyStatsRepository, times(1)).addToCount(FACULTY_ID, AGE, -1);
+        verify(facultyStatsRepository, never()).addToCountOrInsert(anyLong(), anyInt(), anyLong());
+    }
+
+    @Test
+    public void removeStudents_shouldDecrementEveryBucketOnce() {
+        when(facultyStatsRepository.addToCount(anyLong(), anyInt(), anyLong())).thenReturn(1);
+        List<Student> students = List.of(
+                new Student(1, TEST, AGE, FACULTY),
+                new Student(2, TEST2, AGE, FACULTY),
+                new Student(3, TEST3, AGE2, null));
+
+        out.removeStudents(students);
+        verify(facultyStatsRepository, times(1)).addToCount(FACULTY_ID, AGE, -2);
+        verify(facultyStatsRepository, times(1)).addToCount(NO_FACULTY, AGE2, -1);
+        verifyNoMoreInteractions(facultyStatsRepository);
+    }
+
+    @Test
+    public void moveStudent_shouldDoNothingIfBucketIsSame() {
+        out.moveStudent(FACULTY_ID, AGE, FACULTY_ID, AGE);
+        verifyNoInteractions(facultyStatsRepository);
+    }
+
+    @Test
+    public void moveStudent_shouldDecrementOldAndIncrementNewBucket() {
+        when(facultyStatsRepository.addToCount(anyLong(), anyInt(), anyLong())).thenReturn(1);
+        out.moveStudent(FACULTY_ID, AGE, ID, AGE2);
+        verify(facultyStatsRepository, times(1)).addToCount(FACULTY_ID, AGE, -1);
+        verify(facultyStatsRepository, times(1)).addToCountOrInsert(ID, AGE2, 1);
+    }
+
+    @Test
+    public void moveStudents_shouldAdjustEveryBucketOnce() {
+        when(facultyStatsRepository.addToCount(anyLong(), anyInt(), anyLong())).thenReturn(1);
+        Faculty other = new Faculty(ID, TEST2, COLOR);
+        List<Student> students = List.of(
+                new Student(1, TEST, AGE, FACULTY),
+                new Student(2, TEST2, AGE, FACULTY),
+                new Student(3, TEST3, AGE, other),
+                new Student(4, TEST + TEST, AGE2, other),
+                new Student(5, TEST + TEST2, AGE, null));
+
+        out.moveStudents(students, ID);
+        verify(facultyStatsRepository, times(1)).addToCount(FACULTY_ID, AGE, -2);
+        verify(facultyStatsRepository, times(1)).addToCount(NO_FACULTY, AGE, -1);
+        verify(facultyStatsRepository, times(1)).addToCountOrInsert(ID, AGE, 3);
+        verifyNoMoreInteractions(facultyStatsRepository);
+    }
+
+    @Test
+    public void test_getFacultyStatistics() {
+        when(facultyStatsRepository.findByFacultyId(FACULTY_ID)).thenReturn(List.of(
+                new FacultyStats(FACULTY_ID, AGE2, 1),
+                new FacultyStats(FACULTY_ID, AGE, 2),
+                new FacultyStats(FACULTY_ID, AGE + 1, 0)));
+
+        StudentStatistics actual = out.getFacultyStatistics(FACULTY_ID);
+        StudentStatistics expected = new StudentStatistics(3, AGE2 + 2 * AGE, 13.67, AGE2, AGE,
+                Map.of(AGE2, 1L, AGE, 2L));
+        assertEquals(expected, actual);
+        verify(facultyRepository, never()).existsById(anyLong());
+    }
+
+    @Test
+    public void getFacultyStatistics_shouldReturnEmptyStatisticsOfEmptyFaculty() {
+        when(facultyStatsRepository.findByFacultyId(FACULTY_ID)).thenReturn(Collections.emptyList());
+        when(facultyRepository.existsById(FACULTY_ID)).thenReturn(true);
+        StudentStatistics actual = out.getFacultyStatistics(FACULTY_ID);
+        assertEquals(0, actual.studentCount());
+        assertNull(actual.minAge());
+    }
+
+    @Test
+    public void getFacultyStatistics_shouldThrowIfOnlyEmptyBucketsLeft() {
+        when(facultyStatsRepository.findByFacultyId(FACULTY_ID)).thenReturn(List.of(new FacultyStats(FACULTY_ID, AGE, 0)));
+        when(facultyRepository.existsById(FACULTY_ID)).thenReturn(false);
+        assertThrows(FacultyNotFoundException.class, () -> out.getFacultyStatistics(FACULTY_ID));
+    }
+
+    @Test
+    public void getFacultyStatistics_shouldThrowIfFacultyDoesNotExist() {
+        when(facultyStatsRepository.findByFacultyId(FACULTY_ID)).thenReturn(Collections.emptyList());
+        when(facultyRepository.existsById(FACULTY_ID)).thenReturn(false);
+        assertThrows(FacultyNotFoundException.class, () -> out.getFacultyStatistics(FACULTY_ID));
+    }
+
+    @Test
+    public void test_reconcile() {
+        out.reconcile();
+        verify(facultyStatsRepository, times(1)).deleteAllBuckets();
+        verify(facultyStatsRepository, times(1)).rebuildFromStudents();
+    }
+}
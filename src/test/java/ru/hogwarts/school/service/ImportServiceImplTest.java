@@ -0,0 +1,146 @@
+package ru.hogwarts.school.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.hogwarts.school.dto.ImportError;
+import ru.hogwarts.school.dto.ImportReport;
+import ru.hogwarts.school.model.Faculty;
+import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.repository.FacultyRepository;
+import ru.hogwarts.school.repository.StudentRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+import static ru.hogwarts.school.constants.Constants.*;
+import static ru.hogwarts.school.utility.ImportFormat.CSV;
+import static ru.hogwarts.school.utility.ImportFormat.NDJSON;
+
+public class ImportServiceImplTest {
+    private final static int BATCH_SIZE = 2;
+
+    private StudentRepository studentRepository;
+
+    private FacultyRepository facultyRepository;
+
+    private ImportService out;
+
+    @BeforeEach
+    public void setup() {
+        studentRepository = mock(StudentRepository.class);
+        facultyRepository = mock(FacultyRepository.class);
+        out = new ImportServiceImpl(studentRepository, facultyRepository, mock(FacultyStatsService.class),
+                mock(PlatformTransactionManager.class), new ObjectMapper(), BATCH_SIZE);
+        when(facultyRepository.existsById(FACULTY_ID)).thenReturn(true);
+        when(facultyRepository.getReferenceById(FACULTY_ID)).thenReturn(FACULTY);
+    }
+
+    @Test
+    public void importStudents_shouldSaveByBatches() {
+        String csv = "name,age\n" +
+                TEST + "," + AGE + "\n" +
+                TEST2 + "," + AGE + "\n" +
+                TEST3 + "," + AGE + "\n";
+
+        ImportReport report = out.importStudents(toStream(csv), CSV, FACULTY_ID);
+        assertEquals(new ImportReport(3, 0, List.of()), report);
+        verify(studentRepository, times(2)).saveAll(anyList());
+        verify(studentRepository, times(2)).clear();
+        verify(facultyRepository, times(1)).existsById(FACULTY_ID);
+    }
+
+    @Test
+    public void importStudents_shouldReportInvalidRows() {
+        when(facultyRepository.existsById(ID)).thenReturn(false);
+        String ndjson = "{\"name\":\"" + TEST + "\",\"age\":" + INVALID_AGE + "}\n" +
+                "{\"name\":\"" + TEST2 + "\",\"age\":" + AGE + ",\"facultyId\":" + ID + "}\n" +
+                "{\"name\":\n" +
+                "{\"name\":\"" + TEST3 + "\",\"age\":" + AGE + "}\n";
+
+        ImportReport report = out.importStudents(toStream(ndjson), NDJSON, FACULTY_ID);
+        assertEquals(1, report.imported());
+        assertEquals(3, report.failed());
+        assertEquals(List.of(1L, 2L, 3L), report.errors().stream().map(ImportError::line).toList());
+        verify(studentRepository, times(1)).saveAll(anyList());
+    }
+
+    @Test
+    public void importStudents_shouldSaveRowsOfFailedBatchOneByOne() {
+        doThrow(new DataIntegrityViolationException(TEST))
+                .doNothing()
+                .doThrow(new DataIntegrityViolationException(TEST, new SQLException(TEST, "23505")))
+                .when(studentRepository).flush();
+        String csv = "name,age\n" +
+                TEST + "," + AGE + "\n" +
+                TEST + "," + AGE2 + "\n";
+
+        ImportReport report = out.importStudents(toStream(csv), CSV, FACULTY_ID);
+        assertEquals(1, report.imported());
+        assertEquals(List.of(new ImportError(3, "Such a student already exists")), report.errors());
+        verify(studentRepository, times(3)).saveAll(anyList());
+    }
+
+    @Test
+    public void importStudents_shouldReportCauseOfFailedRow() {
+        doThrow(new DataIntegrityViolationException(TEST))
+                .doThrow(new IllegalStateException(TEST2))
+                .doNothing()
+                .when(studentRepository).flush();
+        String csv = "name,age\n" +
+                TEST + "," + AGE + "\n" +
+                TEST2 + "," + AGE + "\n";
+
+        ImportReport report = out.importStudents(toStream(csv), CSV, FACULTY_ID);
+        assertEquals(1, report.imported());
+        assertEquals(List.of(new ImportError(2, TEST2)), report.errors());
+    }
+
+    @Test
+    public void importStudents_shouldReportCauseOfOtherIntegrityViolations() {
+        doThrow(new DataIntegrityViolationException(TEST, new SQLException(TEST2, "23503")))
+                .when(studentRepository).flush();
+
+        ImportReport report = out.importStudents(toStream("name,age\n" + TEST + "," + AGE + "\n"), CSV, FACULTY_ID);
+        assertEquals(List.of(new ImportError(2, TEST2)), report.errors());
+    }
+
+    @Test
+    public void importStudents_shouldReadQuotedHeaderAfterByteOrderMark() {
+        String csv = "\uFEFF\"name\", \"age\"\n" + TEST + "," + AGE + "\n";
+
+        ImportReport report = out.importStudents(toStream(csv), CSV, FACULTY_ID);
+        assertEquals(new ImportReport(1, 0, List.of()), report);
+    }
+
+    @Test
+    public void importStudents_shouldRequireFaculty() {
+        ImportReport report = out.importStudents(toStream("name,age\n" + TEST + "," + AGE + "\n"), CSV, null);
+        assertEquals(1, report.failed());
+        verify(facultyRepository, never()).existsById(anyLong());
+        verify(studentRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    public void test_importFaculties() {
+        String csv = "color,name\n" + COLOR + "," + TEST + "\n" + COLOR + ",\n";
+
+        ImportReport report = out.importFaculties(toStream(csv), CSV);
+        assertEquals(1, report.imported());
+        assertEquals(3, report.errors().get(0).line());
+        verify(facultyRepository, times(1)).saveAll(List.of(new Faculty(0, TEST, COLOR)));
+    }
+
+    private InputStream toStream(String value) {
+        return new ByteArrayInputStream(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -2,18 +2,21 @@ package ru.hogwarts.school.service;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
 import ru.hogwarts.school.exception.InvalidStudentPropsException;
 import ru.hogwarts.school.exception.StudentNotFoundException;
 import ru.hogwarts.school.model.Student;
 import ru.hogwarts.school.repository.AvatarRepository;
 import ru.hogwarts.school.repository.StudentRepository;
+import ru.hogwarts.school.utility.ConsolePrinter;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static ru.hogwarts.school.constants.Constants.*;
 
@@ -22,17 +25,27 @@ public class StudentServiceImplTest {
 
     private AvatarRepository avatarRepository;
 
+    private AvatarBlobService avatarBlobService;
+
     private FacultyService facultyService;
 
+    private FacultyStatsService facultyStatsService;
+
+    private ConsolePrinter consolePrinter;
+
     private StudentService out;
 
     @BeforeEach
     public void setup() {
         studentRepository = mock(StudentRepository.class);
         avatarRepository = mock(AvatarRepository.class);
+        avatarBlobService = mock(AvatarBlobService.class);
         facultyService = mock(FacultyService.class);
-        out = new StudentServiceImpl(studentRepository, avatarRepository, facultyService);
-        when(studentRepository.save(any(Student.class))).thenReturn(new Student(ID, TEST, AGE, FACULTY));
+        facultyStatsService = mock(FacultyStatsService.class);
+        consolePrinter = mock(ConsolePrinter.class);
+        out = new StudentServiceImpl(studentRepository, avatarRepository, avatarBlobService, facultyService,
+                facultyStatsService, consolePrinter);
+        when(studentRepository.saveAndFlush(any(Student.class))).thenReturn(new Student(ID, TEST, AGE, FACULTY));
     }
 
     @Test
@@ -40,7 +53,7 @@ public class StudentServiceImplTest {
         Student actual = out.createStudent(new Student(ID, TEST, AGE, FACULTY), FACULTY_ID);
         Student expected = new Student(ID, TEST, AGE, FACULTY);
         assertEquals(actual, expected);
-        verify(studentRepository, times(1)).save(any(Student.class));
+        verify(studentRepository, times(1)).saveAndFlush(any(Student.class));
     }
 
     @Test
@@ -58,8 +71,7 @@ public class StudentServiceImplTest {
     public void test_updateStudentInfo() {
         Student student = new Student(1, TEST2, AGE, null);
         Student studentInDb = new Student(1, TEST2, AGE, FACULTY);
-        when(studentRepository.existsById(student.getId())).thenReturn(true);
-        when(studentRepository.save(student)).thenReturn(student);
+        when(studentRepository.saveAndFlush(student)).thenReturn(student);
         when(studentRepository.findById(student.getId())).thenReturn(Optional.of(studentInDb));
 
         assertEquals(TEST2, out.getStudent(1).getName());
@@ -67,20 +79,62 @@ public class StudentServiceImplTest {
 
         out.updateStudent(student);
 
-        verify(studentRepository, times(1)).save(student);
-        verify(studentRepository, times(3)).existsById(student.getId());
+        verify(studentRepository, times(1)).saveAndFlush(student);
+        verify(studentRepository, times(4)).findById(student.getId());
+        verify(studentRepository, never()).existsById(anyLong());
     }
 
     @Test
     public void updateStudentInfo_shouldThrowIfStudentDoesNotExist() {
-        when(studentRepository.existsById(ID)).thenReturn(false);
+        when(studentRepository.findById(ID)).thenReturn(Optional.empty());
         assertThrows(StudentNotFoundException.class, () -> out.updateStudent(new Student(ID, TEST, AGE, FACULTY)));
     }
 
     @Test
     public void deleteStudent_shouldThrowIfStudentDoesntExist() {
-        when(studentRepository.existsById(ID)).thenReturn(false);
-        assertThrows(StudentNotFoundException.class, () -> out.getStudent(ID));
+        when(studentRepository.findById(ID)).thenReturn(Optional.empty());
+        assertThrows(StudentNotFoundException.class, () -> out.deleteStudent(ID));
+    }
+
+    @Test
+    public void deleteStudent_shouldReleaseContentOfAvatar() {
+        when(studentRepository.findById(ID)).thenReturn(Optional.of(new Student(ID, TEST, AGE, null)));
+        when(avatarRepository.findBlobHashesByStudentIdIn(List.of(ID))).thenReturn(List.of(TEST));
+
+        out.deleteStudent(ID);
+        verify(avatarBlobService, times(1)).releaseAll(List.of(TEST));
+        verify(avatarRepository, times(1)).deleteByStudentIdIn(List.of(ID));
+    }
+
+    @Test
+    public void deleteStudent_shouldNotWriteFaculty() {
+        when(studentRepository.findById(ID)).thenReturn(Optional.of(new Student(ID, TEST, AGE, FACULTY)));
+
+        out.deleteStudent(ID);
+        verify(studentRepository, times(1)).deleteByIdIn(List.of(ID));
+        verify(facultyStatsService, times(1)).removeStudent(FACULTY_ID, AGE);
+        verifyNoInteractions(facultyService);
+    }
+
+    @Test
+    public void deleteStudents_shouldDeleteAllStudentsAtOnce() {
+        List<Student> students = List.of(new Student(ID, TEST, AGE, FACULTY), new Student(ID2, TEST2, AGE, null));
+        when(studentRepository.findAllWithFacultyByIdIn(List.of(ID, ID2))).thenReturn(students);
+
+        out.deleteStudents(List.of(ID, ID2, ID));
+        verify(avatarRepository, times(1)).deleteByStudentIdIn(List.of(ID, ID2));
+        verify(studentRepository, times(1)).deleteByIdIn(List.of(ID, ID2));
+        verify(facultyStatsService, times(1)).removeStudents(students);
+    }
+
+    @Test
+    public void deleteStudents_shouldThrowIfAnyStudentDoesntExist() {
+        when(studentRepository.findAllWithFacultyByIdIn(List.of(ID, ID2)))
+                .thenReturn(List.of(new Student(ID, TEST, AGE, FACULTY)));
+
+        assertThrows(StudentNotFoundException.class, () -> out.deleteStudents(List.of(ID, ID2)));
+        verify(studentRepository, never()).deleteByIdIn(any());
+        verifyNoInteractions(facultyStatsService);
     }
 
     @Test
@@ -110,25 +164,33 @@ public class StudentServiceImplTest {
     }
 
     @Test
-    public void test_getStudentsNamesThatStartsWithA() {
-        List<Student> students = getAllStudents();
-        students.add(new Student(ID, "Alex", AGE, FACULTY));
-        when(studentRepository.findAll()).thenReturn(students);
-
-        List<String> actual = out.getStudentsNamesThatStartsWithA().stream().toList();
-        assertEquals(1, actual.size());
-        assertEquals("ALEX", actual.get(0));
+    public void printNamesInConsole_shouldPrintListThenPairsOfNames() {
+        when(studentRepository.findByIdGreaterThanOrderById(eq(0L), any(Pageable.class))).thenReturn(List.of(
+                new Student(ID, TEST, AGE, null),
+                new Student(ID, TEST2, AGE, null),
+                new Student(ID, TEST3, AGE, null)));
+        CompletableFuture<Void> listPrinted = new CompletableFuture<>();
+        when(consolePrinter.printInOrder(List.of(List.of(List.of(TEST, TEST2, TEST3).toString()))))
+                .thenReturn(listPrinted);
+
+        out.printNamesInConsole();
+        verify(consolePrinter, never()).printConcurrently(any());
+        listPrinted.complete(null);
+        verify(consolePrinter, times(1)).printConcurrently(List.of(List.of(TEST, TEST2), List.of(TEST3)));
     }
 
     @Test
-    public void test_computeAverageAge() {
-        when(studentRepository.findAll()).thenReturn(getAllStudents());
-        double expected = (AGE + AGE + AGE) / (double) 3;
-        double expectedFormatted = new BigDecimal(Double.toString(expected))
-                .setScale(2, RoundingMode.HALF_UP)
-                .doubleValue();
-
-        assertEquals(expectedFormatted, out.computeAverageAge());
+    public void printNamesInConsoleInOrder_shouldPrintListAndPairsOfNames() {
+        when(studentRepository.findByIdGreaterThanOrderById(eq(0L), any(Pageable.class))).thenReturn(List.of(
+                new Student(ID, TEST, AGE, null),
+                new Student(ID, TEST2, AGE, null),
+                new Student(ID, TEST3, AGE, null)));
+
+        out.printNamesInConsoleInOrder();
+        verify(consolePrinter, times(1)).printInOrder(List.of(
+                List.of(List.of(TEST, TEST2, TEST3).toString()),
+                List.of(TEST, TEST2),
+                List.of(TEST3)));
     }
 
     private List<Student> getAllStudents() {
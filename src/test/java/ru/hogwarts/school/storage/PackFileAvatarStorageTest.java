@@ -0,0 +1,107 @@
+package ru.hogwarts.school.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Instant;
+
+import static java.nio.file.StandardOpenOption.READ;
+import static org.junit.jupiter.api.Assertions.*;
+import static ru.hogwarts.school.constants.Constants.TEST;
+import static ru.hogwarts.school.constants.Constants.TEST2;
+
+public class PackFileAvatarStorageTest {
+    private final static String KEY = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+
+    private final static String KEY2 = "a" + KEY.substring(1);
+
+    @TempDir
+    private Path root;
+
+    private PackFileAvatarStorage out;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        out = new PackFileAvatarStorage(root);
+    }
+
+    @AfterEach
+    public void cleanup() throws IOException {
+        out.close();
+    }
+
+    @Test
+    public void open_shouldReadCommittedObjects() throws IOException {
+        write(KEY, TEST);
+        write(KEY2, TEST2);
+
+        assertEquals(TEST, read(KEY));
+        assertEquals(TEST2, read(KEY2));
+    }
+
+    @Test
+    public void open_shouldThrowIfUploadIsNotCommitted() throws IOException {
+        try (AvatarStorage.Upload upload = out.create()) {
+            upload.getOutputStream().write(TEST.getBytes(StandardCharsets.UTF_8));
+        }
+        assertThrows(NoSuchFileException.class, () -> out.open(KEY));
+    }
+
+    @Test
+    public void constructor_shouldRestoreObjectsAndDeletionsFromPack() throws IOException {
+        write(KEY, TEST);
+        write(KEY2, TEST2);
+        out.delete(KEY);
+        out.close();
+
+        out = new PackFileAvatarStorage(root);
+        assertThrows(NoSuchFileException.class, () -> out.open(KEY));
+        assertEquals(TEST2, read(KEY2));
+    }
+
+    @Test
+    public void getFileRegion_shouldPointAtBytesOfObjectInsidePack() throws IOException {
+        write(KEY, TEST);
+        write(KEY2, TEST2);
+
+        FileRegion region = out.getFileRegion(KEY2).orElseThrow();
+        assertEquals(TEST2.length(), region.length());
+        ByteBuffer bytes = ByteBuffer.allocate((int) region.length());
+        try (FileChannel channel = FileChannel.open(region.file(), READ)) {
+            channel.read(bytes, region.offset());
+        }
+        assertEquals(TEST2, new String(bytes.array(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void deleteIf_shouldDeleteOnlyMatchingObjects() throws IOException {
+        write(KEY, TEST);
+        write(KEY2, TEST2);
+
+        assertEquals(1, out.deleteIf(Instant.now().plusSeconds(1), KEY::equals));
+        assertThrows(NoSuchFileException.class, () -> out.open(KEY));
+        assertEquals(TEST2, read(KEY2));
+    }
+
+    private void write(String key, String content) throws IOException {
+        try (AvatarStorage.Upload upload = out.create()) {
+            upload.getOutputStream().write(content.getBytes(StandardCharsets.UTF_8));
+            upload.commit(key);
+        }
+    }
+
+    private String read(String key) throws IOException {
+        try (InputStream in = out.open(key)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package ru.hogwarts.school.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.model.*;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static ru.hogwarts.school.constants.Constants.TEST;
+
+public class S3AvatarStorageTest {
+    private final static String BUCKET = "hogwarts";
+
+    private final static String PREFIX = "avatars/";
+
+    private final static String KEY = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+
+    private final static int PART_SIZE = 3;
+
+    private final static String UPLOAD_ID = "upload1";
+
+    private S3Client s3;
+
+    private S3AvatarStorage out;
+
+    @BeforeEach
+    public void setup() {
+        s3 = mock(S3Client.class);
+        S3Presigner presigner = S3Presigner.builder()
+                .endpointOverride(URI.create("http://localhost:9000"))
+                .region(Region.US_EAST_1)
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create(TEST, TEST)))
+                .serviceConfiguration(S3Configuration.builder().pathStyleAccessEnabled(true).build())
+                .build();
+        out = new S3AvatarStorage(s3, presigner, BUCKET, PREFIX, PART_SIZE, Duration.ofMinutes(15));
+    }
+
+    @Test
+    public void commit_shouldPutSmallObjectUnderItsKey() throws IOException {
+        try (AvatarStorage.Upload upload = out.create()) {
+            upload.getOutputStream().write("ab".getBytes(StandardCharsets.UTF_8));
+            upload.commit(KEY);
+        }
+
+        verify(s3).putObject(argThat((PutObjectRequest request) -> request.key().equals(PREFIX + KEY)),
+                any(RequestBody.class));
+        verify(s3, never()).createMultipartUpload(any(CreateMultipartUploadRequest.class));
+    }
+
+    @Test
+    public void commit_shouldStreamLargeObjectByPartsAndCopyItToItsKey() throws IOException {
+        when(s3.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CreateMultipartUploadResponse.builder().uploadId(UPLOAD_ID).build());
+        when(s3.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+                .thenReturn(UploadPartResponse.builder().eTag(TEST).build());
+
+        try (AvatarStorage.Upload upload = out.create()) {
+            upload.getOutputStream().write("abcdefg".getBytes(StandardCharsets.UTF_8));
+            verify(s3, times(2)).uploadPart(any(UploadPartRequest.class), any(RequestBody.class));
+            upload.commit(KEY);
+        }
+
+        verify(s3, times(3)).uploadPart(any(UploadPartRequest.class), any(RequestBody.class));
+        verify(s3).completeMultipartUpload(argThat((CompleteMultipartUploadRequest request) ->
+                request.multipartUpload().parts().size() == 3));
+        verify(s3).copyObject(argThat((CopyObjectRequest request) -> request.destinationKey().equals(PREFIX + KEY)));
+        verify(s3).deleteObject(argThat((DeleteObjectRequest request) -> request.key().startsWith(PREFIX + "uploads/")));
+        verify(s3, never()).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+    }
+
+    @Test
+    public void close_shouldAbortUploadThatIsNotCommitted() throws IOException {
+        when(s3.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CreateMultipartUploadResponse.builder().uploadId(UPLOAD_ID).build());
+        when(s3.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+                .thenReturn(UploadPartResponse.builder().eTag(TEST).build());
+
+        try (AvatarStorage.Upload upload = out.create()) {
+            upload.getOutputStream().write("abcd".getBytes(StandardCharsets.UTF_8));
+        }
+
+        verify(s3).abortMultipartUpload(argThat((AbortMultipartUploadRequest request) ->
+                request.uploadId().equals(UPLOAD_ID)));
+        verify(s3, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+    }
+
+    @Test
+    public void getDownloadUrl_shouldPresignUrlOfObject() {
+        URI url = out.getDownloadUrl(KEY, "image/png").orElseThrow();
+        assertEquals("localhost", url.getHost());
+        assertTrue(url.getPath().endsWith("/" + BUCKET + "/" + PREFIX + KEY));
+        assertTrue(url.getQuery().contains("X-Amz-Signature"));
+        assertTrue(url.getQuery().contains("response-content-type=image/png"));
+    }
+}
@@ -0,0 +1,121 @@
+package ru.hogwarts.school.utility;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConsolePrinterTest {
+    private final static int CALLERS = 32;
+
+    private final static int CALLS = 50;
+
+    private final static int GROUPS = 3;
+
+    private ExecutorService executor;
+
+    private ByteArrayOutputStream output;
+
+    private ConsolePrinter out;
+
+    @BeforeEach
+    public void setup() {
+        executor = Executors.newFixedThreadPool(4);
+        output = new ByteArrayOutputStream();
+        out = new ConsolePrinter(executor, new PrintStream(output, true));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void printInOrder_shouldNotMixLinesOfConcurrentCalls() throws Exception {
+        ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<Void>> printed = new ArrayList<>();
+        try {
+            List<CompletableFuture<CompletableFuture<Void>>> calls = IntStream.range(0, CALLERS * CALLS)
+                    .mapToObj(call -> CompletableFuture.supplyAsync(() -> {
+                        await(start);
+                        return out.printInOrder(groups(call));
+                    }, callers))
+                    .toList();
+            start.countDown();
+            for (CompletableFuture<CompletableFuture<Void>> call : calls) {
+                printed.add(call.get(10, TimeUnit.SECONDS));
+            }
+            CompletableFuture.allOf(printed.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+        } finally {
+            callers.shutdownNow();
+        }
+
+        String[] lines = output.toString().split(System.lineSeparator());
+        assertEquals(CALLERS * CALLS * GROUPS * 2, lines.length);
+        for (int i = 0; i < lines.length; i += GROUPS * 2) {
+            String call = lines[i].substring(0, lines[i].indexOf(':'));
+            for (int line = 0; line < GROUPS * 2; line++) {
+                assertEquals(call + ":" + line, lines[i + line]);
+            }
+        }
+    }
+
+    @Test
+    public void printInOrder_shouldContinueAfterFailedGroup() throws Exception {
+        AtomicBoolean reject = new AtomicBoolean(true);
+        out = new ConsolePrinter(task -> {
+            if (reject.getAndSet(false)) {
+                throw new RejectedExecutionException();
+            }
+            executor.execute(task);
+        }, new PrintStream(output, true));
+
+        CompletableFuture<Void> failed = out.printInOrder(List.of(List.of("0")));
+        out.printInOrder(List.of(List.of("1"))).get(10, TimeUnit.SECONDS);
+
+        assertTrue(failed.isCompletedExceptionally());
+        assertEquals("1" + System.lineSeparator(), output.toString());
+    }
+
+    @Test
+    public void printConcurrently_shouldKeepLinesOfGroupTogether() throws Exception {
+        out.printConcurrently(groups(0)).get(10, TimeUnit.SECONDS);
+
+        String[] lines = output.toString().split(System.lineSeparator());
+        assertEquals(GROUPS * 2, lines.length);
+        for (int i = 0; i < lines.length; i += 2) {
+            int first = Integer.parseInt(lines[i].substring(2));
+            assertEquals(0, first % 2);
+            assertEquals("0:" + (first + 1), lines[i + 1]);
+        }
+    }
+
+    private static List<List<String>> groups(int call) {
+        return IntStream.range(0, GROUPS)
+                .mapToObj(group -> List.of(call + ":" + group * 2, call + ":" + (group * 2 + 1)))
+                .toList();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
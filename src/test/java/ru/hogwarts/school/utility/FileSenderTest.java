@@ -0,0 +1,124 @@
+package ru.hogwarts.school.utility;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import ru.hogwarts.school.storage.FileRegion;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static ru.hogwarts.school.constants.Constants.TEST;
+
+public class FileSenderTest {
+    private final static String CONTENT = "0123456789";
+
+    private final static String MEDIA_TYPE = "image/png";
+
+    @TempDir
+    private Path dir;
+
+    private Path file;
+
+    private MockHttpServletRequest request;
+
+    private MockHttpServletResponse response;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        file = Files.writeString(dir.resolve("avatar.png"), CONTENT);
+        request = new MockHttpServletRequest("GET", "/avatars/1/real");
+        response = new MockHttpServletResponse();
+    }
+
+    @Test
+    public void send_shouldWriteWholeFileWithValidators() throws IOException {
+        FileSender.send(wholeFile(), null, MEDIA_TYPE, request, response);
+        assertEquals(200, response.getStatus());
+        assertEquals(CONTENT, response.getContentAsString());
+        assertEquals(MEDIA_TYPE, response.getContentType());
+        assertEquals(CONTENT.length(), response.getContentLengthLong());
+        assertEquals("bytes", response.getHeader(HttpHeaders.ACCEPT_RANGES));
+        assertNotNull(response.getHeader(HttpHeaders.ETAG));
+        assertNotNull(response.getHeader(HttpHeaders.LAST_MODIFIED));
+    }
+
+    @Test
+    public void send_shouldAnswerNotModifiedIfEtagMatches() throws IOException {
+        FileSender.send(wholeFile(), null, MEDIA_TYPE, request, response);
+        String etag = response.getHeader(HttpHeaders.ETAG);
+
+        MockHttpServletRequest conditional = new MockHttpServletRequest("GET", "/avatars/1/real");
+        conditional.addHeader(HttpHeaders.IF_NONE_MATCH, etag);
+        MockHttpServletResponse notModified = new MockHttpServletResponse();
+        FileSender.send(wholeFile(), null, MEDIA_TYPE, conditional, notModified);
+        assertEquals(304, notModified.getStatus());
+        assertEquals(0, notModified.getContentAsByteArray().length);
+    }
+
+    @Test
+    public void send_shouldWriteRequestedRange() throws IOException {
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+        FileSender.send(wholeFile(), null, MEDIA_TYPE, request, response);
+        assertEquals(206, response.getStatus());
+        assertEquals("2345", response.getContentAsString());
+        assertEquals("bytes 2-5/10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals(4, response.getContentLengthLong());
+    }
+
+    @Test
+    public void send_shouldIgnoreRangeIfFileHasChanged() throws IOException {
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"outdated\"");
+        FileSender.send(wholeFile(), null, MEDIA_TYPE, request, response);
+        assertEquals(200, response.getStatus());
+        assertEquals(CONTENT, response.getContentAsString());
+    }
+
+    @Test
+    public void send_shouldRejectUnsatisfiableRange() throws IOException {
+        request.addHeader(HttpHeaders.RANGE, "bytes=20-30");
+        FileSender.send(wholeFile(), null, MEDIA_TYPE, request, response);
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+    }
+
+    @Test
+    public void send_shouldHandFileToConnectorIfSendfileIsSupported() throws IOException {
+        request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+        request.addHeader(HttpHeaders.RANGE, "bytes=4-");
+        FileSender.send(wholeFile(), null, MEDIA_TYPE, request, response);
+        assertEquals(206, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+        assertEquals(file.toAbsolutePath().toString(), request.getAttribute("org.apache.tomcat.sendfile.filename"));
+        assertEquals(4L, request.getAttribute("org.apache.tomcat.sendfile.start"));
+        assertEquals(10L, request.getAttribute("org.apache.tomcat.sendfile.end"));
+    }
+
+    @Test
+    public void send_shouldWriteOnlyRegionOfFile() throws IOException {
+        FileRegion region = new FileRegion(file, 3, 4, Instant.now());
+        request.addHeader(HttpHeaders.RANGE, "bytes=1-");
+        FileSender.send(region, "\"" + TEST + "\"", MEDIA_TYPE, request, response);
+        assertEquals(206, response.getStatus());
+        assertEquals("456", response.getContentAsString());
+        assertEquals("bytes 1-3/4", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals("\"" + TEST + "\"", response.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    public void send_shouldThrowIfFileIsShorterThanRegion() {
+        FileRegion region = new FileRegion(file, 3, CONTENT.length(), Instant.now());
+        assertThrows(IOException.class, () -> FileSender.send(region, "\"" + TEST + "\"", MEDIA_TYPE, request, response));
+    }
+
+    private FileRegion wholeFile() throws IOException {
+        return new FileRegion(file, 0, Files.size(file), Files.getLastModifiedTime(file).toInstant());
+    }
+}
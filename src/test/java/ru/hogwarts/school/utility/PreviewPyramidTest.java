@@ -0,0 +1,69 @@
+package ru.hogwarts.school.utility;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.Set;
+import java.util.SortedMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PreviewPyramidTest {
+    private final static int[] WIDTHS = {64, 128, 256};
+
+    private final static float QUALITY = 0.85f;
+
+    @Test
+    public void generate_shouldKeepProportionsOfEveryWidth() throws IOException {
+        SortedMap<Integer, byte[]> previews = PreviewPyramid.generate(createImage(3000, 1500, "png"), WIDTHS, QUALITY);
+        assertEquals(Set.of(64, 128, 256), previews.keySet());
+        for (int width : WIDTHS) {
+            BufferedImage preview = read(previews.get(width));
+            assertEquals(width, preview.getWidth());
+            assertEquals(width / 2, preview.getHeight());
+        }
+    }
+
+    @Test
+    public void generate_shouldNotUpscaleNarrowImages() throws IOException {
+        SortedMap<Integer, byte[]> previews = PreviewPyramid.generate(createImage(50, 30, "png"), WIDTHS, QUALITY);
+        assertEquals(Set.of(50), previews.keySet());
+        assertEquals(30, read(previews.get(50)).getHeight());
+    }
+
+    @Test
+    public void generate_shouldWriteJpegWithGivenQuality() throws IOException {
+        byte[] image = createImage(600, 400, "jpg");
+        byte[] high = PreviewPyramid.generate(image, WIDTHS, 0.95f).get(256);
+        byte[] low = PreviewPyramid.generate(image, WIDTHS, 0.3f).get(256);
+        assertEquals(256, read(low).getWidth());
+        assertTrue(low.length < high.length);
+    }
+
+    @Test
+    public void generate_shouldThrowIfContentIsNotImage() {
+        assertThrows(IOException.class, () -> PreviewPyramid.generate(new byte[]{1, 2, 3}, WIDTHS, QUALITY));
+    }
+
+    private byte[] createImage(int width, int height, String format) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(width);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, random.nextInt(0xFFFFFF));
+            }
+        }
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ImageIO.write(image, format, baos);
+        return baos.toByteArray();
+    }
+
+    private BufferedImage read(byte[] content) throws IOException {
+        return ImageIO.read(new ByteArrayInputStream(content));
+    }
+}